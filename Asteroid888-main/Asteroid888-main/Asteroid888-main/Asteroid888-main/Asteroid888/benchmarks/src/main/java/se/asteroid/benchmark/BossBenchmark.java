@@ -0,0 +1,55 @@
+package se.asteroid.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import se.asteroid.model.Boss;
+import se.asteroid.model.ProjectileBuffer;
+import se.asteroid.model.Ship;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Boss.update() pinned to one attack pattern, on top of a preloaded field of
+// stationary boss bullets that every update has to move and bounds check.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class BossBenchmark {
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int count;
+
+    // 0 spiral, 1 spread, 2 wave, 3 cross
+    @Param({"0", "1", "2", "3"})
+    public int pattern;
+
+    private Boss boss;
+    private MethodHandle setAttackPattern;
+    private MethodHandle setPatternDuration;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Ship player = new Ship(400, 500);
+        boss = new Boss(400, 150, player);
+
+        Random random = new Random(42);
+        ProjectileBuffer bullets = boss.getBulletBuffer();
+        for (int i = 0; i < count; i++) {
+            bullets.add(10 + random.nextDouble() * 780, 10 + random.nextDouble() * 580, 0, 0, 0);
+        }
+
+        setAttackPattern = Worlds.fieldSetter(Boss.class, "attackPattern");
+        setPatternDuration = Worlds.fieldSetter(Boss.class, "patternDuration");
+    }
+
+    @Benchmark
+    public int update() throws Throwable {
+        // Keep the boss from rotating to the next pattern
+        setAttackPattern.invoke(boss, pattern);
+        setPatternDuration.invoke(boss, 0);
+        boss.update();
+        return boss.getBulletBuffer().size();
+    }
+}
@@ -0,0 +1,77 @@
+package se.asteroid.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import se.asteroid.model.Asteroid;
+import se.asteroid.model.Hitbox;
+import se.asteroid.model.ProjectileBuffer;
+import se.asteroid.model.World;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// One full collision pass: player bullets against every target, then enemies
+// against the player. Targets fill the top of the screen while the player and
+// its bullets sit in the bottom band, so nothing is hit and every invocation
+// sees the same world. That is the worst case for brute force (every bullet
+// scans every target) and shows what the broadphase saves.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CollisionBenchmark {
+    private static final int BULLETS = 256;
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int count;
+
+    @Param({"BRUTE_FORCE", "SPATIAL_HASH"})
+    public World.CollisionMode mode;
+
+    private World world;
+    private MethodHandle checkCollisions;
+    private MethodHandle checkEnemyCollisionsWithPlayer;
+    private MethodHandle checkBulletCollisions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        world = Worlds.empty(mode, 400, 560);
+        Random random = new Random(42);
+        for (int i = 0; i < count; i++) {
+            world.getAsteroids().add(new Asteroid(30 + random.nextDouble() * 740,
+                    30 + random.nextDouble() * 360, random.nextBoolean()));
+        }
+
+        // Stationary bullets, they stay put between invocations
+        ProjectileBuffer bullets = world.getPlayer().getBulletBuffer();
+        for (int i = 0; i < BULLETS; i++) {
+            bullets.add(10 + random.nextDouble() * 780, 470 + random.nextDouble() * 50, -90, 0, 0);
+        }
+
+        checkCollisions = Worlds.privateMethod(World.class, "checkCollisions");
+        checkEnemyCollisionsWithPlayer = Worlds.privateMethod(World.class, "checkEnemyCollisionsWithPlayer",
+                Hitbox.class);
+        checkBulletCollisions = Worlds.privateMethod(World.class, "checkBulletCollisions", double.class, double.class);
+    }
+
+    @Benchmark
+    public int collisionPass() throws Throwable {
+        checkCollisions.invoke(world);
+        return world.getPlayer().getBulletBuffer().size();
+    }
+
+    // Brute force scan of the player against every target, whatever the mode
+    @Benchmark
+    public boolean enemyCollisionsWithPlayer() throws Throwable {
+        checkEnemyCollisionsWithPlayer.invoke(world, world.getPlayer().getHitbox());
+        return world.isExploding();
+    }
+
+    // Single bullet test outside a collision pass, which takes the brute force path
+    @Benchmark
+    public boolean bulletCollisions() throws Throwable {
+        return (boolean) checkBulletCollisions.invoke(world, 400.0, 500.0);
+    }
+}
@@ -0,0 +1,66 @@
+package se.asteroid.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import se.asteroid.model.Asteroid;
+import se.asteroid.model.Boss;
+import se.asteroid.model.Missile;
+import se.asteroid.model.Ship;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Homing update for a swarm of missiles, both as Missile objects and as the
+// missile slots of a ProjectileBuffer that the game actually uses. Targets
+// never move, so missiles circle them and stay on screen.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class MissileBenchmark {
+    private static final int TARGETS = 16;
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int count;
+
+    private Missile[] missiles;
+    private Ship ship;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        Asteroid[] targets = new Asteroid[TARGETS];
+        for (int i = 0; i < TARGETS; i++) {
+            targets[i] = new Asteroid(50 + random.nextDouble() * 700, 50 + random.nextDouble() * 500, true);
+        }
+
+        missiles = new Missile[count];
+        for (int i = 0; i < count; i++) {
+            missiles[i] = new Missile(random.nextDouble() * 800, random.nextDouble() * 600,
+                    targets[i % TARGETS]);
+        }
+
+        ship = new Ship(400, 550);
+        Boss boss = new Boss(400, 150, ship);
+        for (int i = 0; i < count; i++) {
+            ship.fireMissile(boss);
+        }
+    }
+
+    @Benchmark
+    public double missileObjects() {
+        double sum = 0;
+        for (Missile missile : missiles) {
+            missile.update();
+            sum += missile.getX();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int missileBuffer() {
+        ship.getBulletBuffer().update();
+        return ship.getBulletBuffer().size();
+    }
+}
@@ -0,0 +1,39 @@
+package se.asteroid.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import se.asteroid.model.ProjectileBuffer;
+import se.asteroid.model.Ship;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Ship.update() with a large number of live bullets. The bullets have no
+// velocity, so none leave the screen and the workload stays constant.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ShipBenchmark {
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int count;
+
+    private Ship ship;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ship = new Ship(400, 300);
+        Random random = new Random(42);
+        ProjectileBuffer bullets = ship.getBulletBuffer();
+        for (int i = 0; i < count; i++) {
+            bullets.add(10 + random.nextDouble() * 780, 10 + random.nextDouble() * 580, -90, 0, 0);
+        }
+    }
+
+    @Benchmark
+    public int update() {
+        ship.update();
+        return ship.getBulletBuffer().size();
+    }
+}
@@ -0,0 +1,106 @@
+package se.asteroid.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import se.asteroid.util.FastMath;
+import se.asteroid.util.SinTable;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Table sin/cos and the polynomial atan2 against StrictMath and Math over the
+// angles the game feeds them. The worst error of each table size over the
+// same inputs is printed once per trial, so accuracy and throughput come out
+// of one run.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrigBenchmark {
+    private static final int SAMPLES = 4096;
+
+    @Param({"8", "12", "16"})
+    public int bits;
+
+    private SinTable table;
+    private double[] degrees;
+    private double[] ys;
+    private double[] xs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        table = new SinTable(bits);
+        SplittableRandom random = new SplittableRandom(42);
+        degrees = new double[SAMPLES];
+        ys = new double[SAMPLES];
+        xs = new double[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            degrees[i] = random.nextDouble(-720, 720);
+            ys[i] = random.nextDouble(-600, 600);
+            xs[i] = random.nextDouble(-800, 800);
+        }
+
+        double sinError = 0;
+        double atanError = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            double radians = Math.toRadians(degrees[i]);
+            sinError = Math.max(sinError, Math.abs(table.sinDeg(degrees[i]) - StrictMath.sin(radians)));
+            sinError = Math.max(sinError, Math.abs(table.cosDeg(degrees[i]) - StrictMath.cos(radians)));
+            atanError = Math.max(atanError, Math.abs(FastMath.atan2(ys[i], xs[i]) - StrictMath.atan2(ys[i], xs[i])));
+        }
+        System.out.printf("%n%d bit table: max sin/cos error %.3e, max atan2 error %.3e%n", bits, sinError, atanError);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double tableSinCos() {
+        double sum = 0;
+        for (double d : degrees) {
+            sum += table.cosDeg(d) + table.sinDeg(d);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double strictSinCos() {
+        double sum = 0;
+        for (double d : degrees) {
+            double radians = Math.toRadians(d);
+            sum += StrictMath.cos(radians) + StrictMath.sin(radians);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double mathSinCos() {
+        double sum = 0;
+        for (double d : degrees) {
+            double radians = Math.toRadians(d);
+            sum += Math.cos(radians) + Math.sin(radians);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double fastAtan2() {
+        double sum = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            sum += FastMath.atan2(ys[i], xs[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double strictAtan2() {
+        double sum = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            sum += StrictMath.atan2(ys[i], xs[i]);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,60 @@
+package se.asteroid.benchmark;
+
+import se.asteroid.model.World;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+// Setup helpers. The collision passes are private to World, so the benchmarks
+// reach them through method handles resolved once per trial.
+final class Worlds {
+    private Worlds() {
+    }
+
+    // Started world with the opening wave removed and the player moved to (x, y),
+    // open to hits like a freshly built ship
+    static World empty(World.CollisionMode mode, double playerX, double playerY) {
+        World world = new World();
+        world.setCollisionMode(mode);
+        world.start();
+        world.getAsteroids().clear();
+        world.getRegularEnemies().clear();
+        world.getSecondTierEnemies().clear();
+        world.getPlayer().setMotion(playerX, playerY, 0, 0, 0);
+        world.getPlayer().setInvincible(false);
+        return world;
+    }
+
+    static MethodHandle privateMethod(Class<?> owner, String name, Class<?>... parameterTypes) {
+        try {
+            Method method = owner.getDeclaredMethod(name, parameterTypes);
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot access " + owner.getSimpleName() + "." + name, e);
+        }
+    }
+
+    static MethodHandle fieldSetter(Class<?> owner, String name) {
+        try {
+            Field field = findField(owner, name);
+            field.setAccessible(true);
+            return MethodHandles.lookup().unreflectSetter(field);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot access " + owner.getSimpleName() + "." + name, e);
+        }
+    }
+
+    static Field findField(Class<?> type, String name) throws NoSuchFieldException {
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            try {
+                return c.getDeclaredField(name);
+            } catch (NoSuchFieldException e) {
+                // keep looking in the superclass
+            }
+        }
+        throw new NoSuchFieldException(name);
+    }
+}
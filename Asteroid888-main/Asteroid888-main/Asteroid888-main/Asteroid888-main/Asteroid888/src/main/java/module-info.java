@@ -3,11 +3,14 @@ module se.asteroid {
     requires javafx.fxml;
     requires java.desktop;
     requires org.apache.logging.log4j;
-    requires java.logging;
 
     opens se.asteroid.controller to javafx.fxml;
     opens se.asteroid.model to javafx.fxml;
 
     exports se.asteroid.controller;
     exports se.asteroid.model;
+    exports se.asteroid.view;
+    exports se.asteroid.util;
+    exports se.asteroid.env;
+    exports se.asteroid.net;
 }
\ No newline at end of file
@@ -0,0 +1,206 @@
+package se.asteroid.controller;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.swing.*;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.locks.LockSupport;
+
+// Fixed timestep clock driven by System.nanoTime. Elapsed time is collected in
+// an accumulator and spent in whole simulation steps, so the game runs at the
+// same speed whatever the frame rate. Frames render in between with the
+// fraction of a step left over. By default tick and render both run on the
+// EDT, so the world is never touched by two threads; with an active renderer
+// they run on the loop thread instead and the EDT only handles input.
+// When the listener reports it is idle (menus, end screens) the loop stops
+// ticking and sleeps until wake() or the listener's next animation deadline,
+// then draws a single frame.
+public class GameLoop implements Runnable {
+    // idleNanos() value for sleeping until wake()
+    public static final long UNTIL_WOKEN = Long.MAX_VALUE;
+
+    public interface Listener {
+        void tick();
+
+        // alpha is how far the clock is between the last and the next tick, 0..1
+        void render(double alpha);
+
+        // How long the loop may sleep after this frame, 0 while playing or
+        // UNTIL_WOKEN for a screen that only changes on input
+        default long idleNanos() {
+            return 0;
+        }
+    }
+
+    private static final Logger logger = LogManager.getLogger(GameLoop.class);
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final Listener listener;
+    private final long stepNanos;
+    private final long frameNanos;
+    private final int maxCatchUpSteps;
+    private final boolean onEventThread;
+
+    private long previousTime = -1;
+    private long accumulator;
+    private long droppedSteps;
+    private long idleWakeups;
+
+    private volatile boolean running;
+    private volatile boolean idle;
+    private volatile Thread thread;
+
+    public GameLoop(int ticksPerSecond, int framesPerSecond, int maxCatchUpSteps, Listener listener) {
+        this(ticksPerSecond, framesPerSecond, maxCatchUpSteps, true, listener);
+    }
+
+    public GameLoop(int ticksPerSecond, int framesPerSecond, int maxCatchUpSteps, boolean onEventThread,
+                    Listener listener) {
+        if (ticksPerSecond <= 0 || framesPerSecond <= 0 || maxCatchUpSteps <= 0) {
+            throw new IllegalArgumentException("Rates and catch-up steps must be positive");
+        }
+        this.stepNanos = NANOS_PER_SECOND / ticksPerSecond;
+        this.frameNanos = NANOS_PER_SECOND / framesPerSecond;
+        this.maxCatchUpSteps = maxCatchUpSteps;
+        this.onEventThread = onEventThread;
+        this.listener = listener;
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        previousTime = -1;
+        accumulator = 0;
+        thread = new Thread(this, "game-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Ends an idle sleep early, e.g. on input, so the next frame draws now
+    public void wake() {
+        Thread current = thread;
+        if (current != null && idle) {
+            LockSupport.unpark(current);
+        }
+    }
+
+    public boolean isIdle() {
+        return idle;
+    }
+
+    @Override
+    public void run() {
+        long nextFrame = System.nanoTime();
+        while (running) {
+            long now = System.nanoTime();
+            int steps = advance(now);
+            double alpha = getAlpha();
+            if (onEventThread) {
+                try {
+                    SwingUtilities.invokeAndWait(() -> frame(steps, alpha));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (InvocationTargetException e) {
+                    logger.error("Error in game loop frame", e.getCause());
+                }
+            } else {
+                try {
+                    frame(steps, alpha);
+                } catch (RuntimeException e) {
+                    logger.error("Error in game loop frame", e);
+                }
+            }
+
+            long idleNanos = listener.idleNanos();
+            if (idleNanos > 0) {
+                sleepIdle(idleNanos);
+                nextFrame = System.nanoTime();
+                continue;
+            }
+
+            nextFrame += frameNanos;
+            long wait = nextFrame - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            } else {
+                // Running behind, don't try to render the missed frames
+                nextFrame = System.nanoTime();
+            }
+        }
+    }
+
+    private void sleepIdle(long idleNanos) {
+        idle = true;
+        // Recheck after publishing the flag, a wake() in between found idle
+        // false and did not unpark
+        if (listener.idleNanos() > 0) {
+            if (idleNanos == UNTIL_WOKEN) {
+                LockSupport.park(this);
+            } else {
+                LockSupport.parkNanos(this, idleNanos);
+            }
+        }
+        idle = false;
+        idleWakeups++;
+        // Idle time is not simulation time, start the clock again from now
+        previousTime = -1;
+        accumulator = 0;
+    }
+
+    private void frame(int steps, double alpha) {
+        for (int i = 0; i < steps; i++) {
+            listener.tick();
+        }
+        listener.render(alpha);
+    }
+
+    // Adds the time since the last call and returns how many steps are due.
+    // After a long stall only maxCatchUpSteps run and the backlog is dropped,
+    // so the simulation slows down instead of spiralling.
+    public int advance(long now) {
+        if (previousTime < 0) {
+            previousTime = now;
+            return 0;
+        }
+        accumulator += now - previousTime;
+        previousTime = now;
+
+        int steps = (int) Math.min(accumulator / stepNanos, maxCatchUpSteps);
+        accumulator -= steps * stepNanos;
+        if (steps == maxCatchUpSteps && accumulator >= stepNanos) {
+            droppedSteps += accumulator / stepNanos;
+            accumulator %= stepNanos;
+        }
+        return steps;
+    }
+
+    public double getAlpha() {
+        return (double) accumulator / stepNanos;
+    }
+
+    public long getStepNanos() {
+        return stepNanos;
+    }
+
+    public long getDroppedSteps() {
+        return droppedSteps;
+    }
+
+    public long getIdleWakeups() {
+        return idleWakeups;
+    }
+}
@@ -0,0 +1,33 @@
+package se.asteroid.env;
+
+import se.asteroid.model.PlayerInput;
+
+// An agent action packed into one int of bit flags, so a whole batch of
+// actions is a plain int[]
+public final class Action {
+    public static final int NONE = 0;
+    public static final int UP = 1;
+    public static final int DOWN = 1 << 1;
+    public static final int LEFT = 1 << 2;
+    public static final int RIGHT = 1 << 3;
+    public static final int SHOOT = 1 << 4;
+    public static final int MISSILE = 1 << 5;
+    public static final int ROTATE_LEFT = 1 << 6;
+    public static final int ROTATE_RIGHT = 1 << 7;
+
+    private Action() {
+    }
+
+    // Overwrites input with the held keys and presses of one action
+    public static void apply(int action, PlayerInput input) {
+        input.clear();
+        input.setUp((action & UP) != 0);
+        input.setDown((action & DOWN) != 0);
+        input.setLeft((action & LEFT) != 0);
+        input.setRight((action & RIGHT) != 0);
+        if ((action & SHOOT) != 0) input.addShot();
+        if ((action & MISSILE) != 0) input.addMissileBurst();
+        if ((action & ROTATE_LEFT) != 0) input.addRotateLeft();
+        if ((action & ROTATE_RIGHT) != 0) input.addRotateRight();
+    }
+}
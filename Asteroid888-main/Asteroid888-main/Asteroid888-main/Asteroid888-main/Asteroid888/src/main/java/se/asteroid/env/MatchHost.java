@@ -0,0 +1,388 @@
+package se.asteroid.env;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import se.asteroid.model.AssetCache;
+import se.asteroid.model.PlayerInput;
+import se.asteroid.model.World;
+import se.asteroid.util.LogLinearHistogram;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.apache.logging.log4j.util.Unbox.box;
+
+// Runs many matches in one JVM for tournaments and bot ladders. Each World
+// gets a virtual thread with its own tick clock, no Swing involved, and a
+// Controller picks every tick's action on that thread, so it can read the
+// world without locking. A tick takes a permit from a fair semaphore sized
+// to the cores, so matches step in the order their ticks came due and one
+// catching up cannot starve the others. A match that falls too far behind
+// drops ticks instead of bursting through them.
+// Each tick's latency, from when it was due until it finished, goes into a
+// histogram, and its stepping time into the per match budget. admit() turns
+// new matches away while the p99 latency over the last second is above the
+// limit, and before that when the measured cost of a tick says one more
+// match would not fit on the cores. Until anything is measured a tick is
+// taken to cost its whole budget, so a burst of admissions starts slowly.
+public class MatchHost implements Closeable {
+    public interface Controller {
+        // Action bits for the next tick, see Action
+        int nextAction(World world);
+    }
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final int MAX_CATCH_UP_TICKS = 5;
+    // Latency percentiles are taken over windows this long
+    private static final long WINDOW_NANOS = NANOS_PER_SECOND;
+    // Share of the cores admitted matches are expected to keep busy
+    private static final double MAX_UTILIZATION = 0.8;
+
+    private static final Logger logger = LogManager.getLogger(MatchHost.class);
+
+    private final int tickRate;
+    private final long stepNanos;
+    private final long tickBudgetNanos;
+    private final int maxMatches;
+    private final long p99LimitNanos;
+    private final int cores;
+    private final Semaphore permits;
+
+    private final Set<Match> matches = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong overBudgetTicks = new AtomicLong();
+    private volatile boolean closed;
+
+    // Every match records into the same window, so it is guarded by a lock
+    // that parks a virtual thread instead of pinning its carrier
+    private final ReentrantLock latencyLock = new ReentrantLock();
+    private final LogLinearHistogram window = new LogLinearHistogram();
+    private long windowStart = System.nanoTime();
+    private long windowBusyNanos;
+    private long windowTicks;
+    private volatile LogLinearHistogram.Snapshot lastWindow = new LogLinearHistogram().snapshot();
+    // Mean stepping time of a tick in the last window that had any
+    private volatile long tickCostNanos;
+
+    // tickBudgetNanos is the stepping time a match may use per tick before the
+    // tick counts as over budget
+    public MatchHost(int tickRate, long tickBudgetNanos, int maxMatches, long p99LimitNanos) {
+        if (tickRate <= 0 || tickBudgetNanos <= 0 || maxMatches <= 0 || p99LimitNanos <= 0) {
+            throw new IllegalArgumentException("Rates, budgets and limits must be positive");
+        }
+        this.tickRate = tickRate;
+        this.stepNanos = NANOS_PER_SECOND / tickRate;
+        this.tickBudgetNanos = tickBudgetNanos;
+        this.tickCostNanos = tickBudgetNanos;
+        this.maxMatches = maxMatches;
+        this.p99LimitNanos = p99LimitNanos;
+        this.cores = Runtime.getRuntime().availableProcessors();
+        this.permits = new Semaphore(cores, true);
+        // Sprites are shared by every world, decode them before any thread needs them
+        AssetCache.preload();
+    }
+
+    // Starts a match, or throws RejectedExecutionException when the host is
+    // full or its ticks are already running late
+    public Match admit(long seed, Controller controller) {
+        if (closed) {
+            throw reject("Host is closed");
+        }
+        long p99 = getTickLatencyP99();
+        if (p99 > p99LimitNanos) {
+            throw reject("p99 tick latency " + p99 / 1000 + " us is over " + p99LimitNanos / 1000 + " us");
+        }
+        int count = active.incrementAndGet();
+        if (count > maxMatches) {
+            active.decrementAndGet();
+            throw reject("Host is full with " + maxMatches + " matches");
+        }
+        double load = (double) count * tickCostNanos * tickRate / (cores * (double) NANOS_PER_SECOND);
+        if (count > 1 && load > MAX_UTILIZATION) {
+            active.decrementAndGet();
+            throw reject("Host is saturated, " + count + " matches would need " + Math.round(load * 100)
+                    + "% of " + cores + " cores");
+        }
+        Match match;
+        try {
+            match = new Match(nextId.getAndIncrement(), seed, controller);
+        } catch (RuntimeException e) {
+            active.decrementAndGet();
+            throw e;
+        }
+        matches.add(match);
+        admitted.incrementAndGet();
+        match.thread.start();
+        return match;
+    }
+
+    private RejectedExecutionException reject(String reason) {
+        rejected.incrementAndGet();
+        return new RejectedExecutionException(reason);
+    }
+
+    private void recordTick(long latency, long stepTime) {
+        latencyLock.lock();
+        try {
+            window.record(latency);
+            windowBusyNanos += stepTime;
+            windowTicks++;
+            rotateWindow(System.nanoTime());
+        } finally {
+            latencyLock.unlock();
+        }
+    }
+
+    // Called holding the lock
+    private void rotateWindow(long now) {
+        if (now - windowStart < WINDOW_NANOS) return;
+        lastWindow = window.snapshot();
+        if (windowTicks > 0) {
+            tickCostNanos = Math.max(1, windowBusyNanos / windowTicks);
+        }
+        window.reset();
+        windowBusyNanos = 0;
+        windowTicks = 0;
+        windowStart = now;
+    }
+
+    // p99 tick latency of the last full window, 0 when nothing ticked in it
+    public long getTickLatencyP99() {
+        return getTickLatency().p99();
+    }
+
+    // Tick latency percentiles of the last full window
+    public LogLinearHistogram.Snapshot getTickLatency() {
+        latencyLock.lock();
+        try {
+            rotateWindow(System.nanoTime());
+        } finally {
+            latencyLock.unlock();
+        }
+        return lastWindow;
+    }
+
+    // Stops every match and waits for their threads
+    @Override
+    public void close() {
+        closed = true;
+        List<Match> running = new ArrayList<>(matches);
+        for (Match match : running) {
+            match.stop();
+        }
+        for (Match match : running) {
+            try {
+                match.thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public int getActiveMatches() {
+        return active.get();
+    }
+
+    public long getAdmitted() {
+        return admitted.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    // Ticks of any match that stepped longer than the tick budget
+    public long getOverBudgetTicks() {
+        return overBudgetTicks.get();
+    }
+
+    public long getTickBudgetNanos() {
+        return tickBudgetNanos;
+    }
+
+    // Mean stepping time of a tick that admission plans with
+    public long getTickCostNanos() {
+        return tickCostNanos;
+    }
+
+    // One hosted game, running until its game is over or stop() is called
+    public final class Match {
+        private final int id;
+        private final World world;
+        private final Controller controller;
+        private final PlayerInput input = new PlayerInput();
+        private final Thread thread;
+        private volatile boolean stopped;
+        private volatile boolean finished;
+
+        // Written by the match thread only, read by anyone
+        private volatile long ticks;
+        private volatile long droppedTicks;
+        private volatile long busyNanos;
+        private volatile long maxStepNanos;
+        private volatile long overBudget;
+        private volatile int score;
+        private volatile int lives;
+
+        private Match(int id, long seed, Controller controller) {
+            this.id = id;
+            this.controller = controller;
+            this.world = new World(seed);
+            // Per phase timing is for the interactive game, skip the clock reads
+            world.getProfiler().setEnabled(false);
+            world.start();
+            this.score = world.getScore();
+            this.lives = world.getLives();
+            this.thread = Thread.ofVirtual().name("match-" + id).unstarted(this::run);
+        }
+
+        private void run() {
+            long nextTick = System.nanoTime();
+            try {
+                while (!stopped && !world.isGameOver()) {
+                    long wait = nextTick - System.nanoTime();
+                    if (wait > 0) {
+                        // Unmounts the virtual thread, may wake early
+                        LockSupport.parkNanos(wait);
+                        continue;
+                    }
+
+                    permits.acquire();
+                    long start = System.nanoTime();
+                    try {
+                        Action.apply(controller.nextAction(world), input);
+                        world.step(input);
+                    } finally {
+                        permits.release();
+                    }
+                    long end = System.nanoTime();
+                    account(end - start, end - nextTick);
+
+                    nextTick += stepNanos;
+                    long behind = end - nextTick;
+                    if (behind >= MAX_CATCH_UP_TICKS * stepNanos) {
+                        // Too far behind to catch up, the host is saturated
+                        long missed = behind / stepNanos;
+                        droppedTicks += missed;
+                        nextTick += missed * stepNanos;
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Stopped while waiting for a permit
+            } catch (RuntimeException e) {
+                logger.error("Match {} failed on tick {}", box(id), box(ticks), e);
+            } finally {
+                finished = true;
+                matches.remove(this);
+                active.decrementAndGet();
+            }
+        }
+
+        private void account(long stepTime, long latency) {
+            ticks++;
+            busyNanos += stepTime;
+            if (stepTime > maxStepNanos) maxStepNanos = stepTime;
+            if (stepTime > tickBudgetNanos) {
+                overBudget++;
+                overBudgetTicks.incrementAndGet();
+            }
+            score = world.getScore();
+            lives = world.getLives();
+            recordTick(latency, stepTime);
+        }
+
+        public void stop() {
+            stopped = true;
+            thread.interrupt();
+        }
+
+        // Waits for the match to end, false if it did not within the timeout
+        public boolean join(long timeout, TimeUnit unit) throws InterruptedException {
+            return thread.join(Duration.ofNanos(unit.toNanos(timeout)));
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public boolean isFinished() {
+            return finished;
+        }
+
+        public long getTicks() {
+            return ticks;
+        }
+
+        // Ticks skipped because the match fell behind its clock
+        public long getDroppedTicks() {
+            return droppedTicks;
+        }
+
+        // Time spent stepping, against the tick budget
+        public long getBusyNanos() {
+            return busyNanos;
+        }
+
+        public long getMaxStepNanos() {
+            return maxStepNanos;
+        }
+
+        public long getOverBudgetTicks() {
+            return overBudget;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public int getLives() {
+            return lives;
+        }
+    }
+
+    // Runs bot matches and logs the host's load once a second:
+    // MatchHost [matches] [seconds] [tick rate] [p99 limit in ms]
+    public static void main(String[] args) throws InterruptedException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int tickRate = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        long p99Limit = TimeUnit.MILLISECONDS.toNanos(args.length > 3 ? Long.parseLong(args[3]) : 8);
+
+        try (MatchHost host = new MatchHost(tickRate, NANOS_PER_SECOND / tickRate / 4, count, p99Limit)) {
+            SplittableRandom seeds = new SplittableRandom(1);
+            long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            while (System.nanoTime() - end < 0) {
+                // Keep trying to fill the host, admission holds back when it is saturated
+                for (int i = host.getActiveMatches(); i < count; i++) {
+                    long seed = seeds.nextLong();
+                    try {
+                        host.admit(seed, world -> (world.getTick() + seed) % 7 == 0
+                                ? Action.SHOOT | Action.RIGHT : Action.UP);
+                    } catch (RejectedExecutionException e) {
+                        break;
+                    }
+                }
+                Thread.sleep(1000);
+                logger.info("{} matches, {} rejected, {} ticks over budget, {} us a tick, tick latency {}",
+                        box(host.getActiveMatches()), box(host.getRejected()), box(host.getOverBudgetTicks()),
+                        box(host.getTickCostNanos() / 1000), host.getTickLatency());
+            }
+        }
+    }
+}
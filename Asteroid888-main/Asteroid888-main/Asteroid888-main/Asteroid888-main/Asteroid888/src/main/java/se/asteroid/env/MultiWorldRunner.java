@@ -0,0 +1,136 @@
+package se.asteroid.env;
+
+import se.asteroid.model.PlayerInput;
+import se.asteroid.model.World;
+
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Hosts N independent worlds for agents and steps them together on a
+// fork-join pool. Each call takes one action per world and fills a reused
+// StepBatch with the reward (score gained this step), score, lives and
+// whether the episode ended. A finished world is restarted on its next step.
+// Worlds never share state, so the workers need no locking.
+public class MultiWorldRunner {
+    private final World[] worlds;
+    private final PlayerInput[] inputs;
+    private final int[] lastScore;
+    private final ForkJoinPool pool;
+    private final int threshold;
+    private final StepBatch batch;
+
+    private int[] pendingActions;
+    private ObservationEncoder encoder;
+    private ByteBuffer observations;
+
+    public MultiWorldRunner(int worldCount, long seed) {
+        this(worldCount, seed, ForkJoinPool.commonPool());
+    }
+
+    public MultiWorldRunner(int worldCount, long seed, ForkJoinPool pool) {
+        if (worldCount <= 0) {
+            throw new IllegalArgumentException("Need at least one world: " + worldCount);
+        }
+        this.pool = pool;
+        this.worlds = new World[worldCount];
+        this.inputs = new PlayerInput[worldCount];
+        this.lastScore = new int[worldCount];
+        this.batch = new StepBatch(worldCount);
+        // A few tasks per worker so an uneven world does not stall the batch
+        this.threshold = Math.max(1, worldCount / (pool.getParallelism() * 4));
+
+        // Split seeds so every world has its own reproducible stream
+        SplittableRandom seeds = new SplittableRandom(seed);
+        for (int i = 0; i < worldCount; i++) {
+            worlds[i] = new World(seeds.split().nextLong());
+            // Per phase timing is for the interactive game, skip the clock reads
+            worlds[i].getProfiler().setEnabled(false);
+            worlds[i].start();
+            inputs[i] = new PlayerInput();
+        }
+    }
+
+    // Steps every world once with actions[i] (Action bit flags) and returns
+    // the batch, which is overwritten by the next call
+    public StepBatch step(int[] actions) {
+        if (actions.length != worlds.length) {
+            throw new IllegalArgumentException("Expected " + worlds.length + " actions, got " + actions.length);
+        }
+        pendingActions = actions;
+        pool.invoke(new StepTask(0, worlds.length));
+        pendingActions = null;
+        return batch;
+    }
+
+    private void stepWorld(int i, int action) {
+        World world = worlds[i];
+        if (world.isGameOver()) {
+            world.start();
+            lastScore[i] = 0;
+        }
+
+        Action.apply(action, inputs[i]);
+        world.step(inputs[i]);
+
+        int score = world.getScore();
+        batch.reward[i] = score - lastScore[i];
+        batch.score[i] = score;
+        batch.lives[i] = world.getLives();
+        batch.done[i] = world.isGameOver();
+        lastScore[i] = score;
+
+        if (encoder != null) {
+            encoder.encode(world, observations, i * encoder.size());
+        }
+    }
+
+    // From now on each step also encodes world i at i * encoder.size() of the
+    // returned buffer, inside the same parallel pass
+    public ByteBuffer observeWith(ObservationEncoder encoder) {
+        ByteBuffer buffer = encoder.allocate(worlds.length);
+        for (int i = 0; i < worlds.length; i++) {
+            encoder.encode(worlds[i], buffer, i * encoder.size());
+        }
+        this.encoder = encoder;
+        this.observations = buffer;
+        return buffer;
+    }
+
+    public int size() {
+        return worlds.length;
+    }
+
+    // For observation encoders, only safe to read between step() calls
+    public World getWorld(int i) {
+        return worlds[i];
+    }
+
+    public StepBatch getBatch() {
+        return batch;
+    }
+
+    private class StepTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        StepTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                int[] actions = pendingActions;
+                for (int i = from; i < to; i++) {
+                    stepWorld(i, actions[i]);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new StepTask(from, middle), new StepTask(middle, to));
+        }
+    }
+}
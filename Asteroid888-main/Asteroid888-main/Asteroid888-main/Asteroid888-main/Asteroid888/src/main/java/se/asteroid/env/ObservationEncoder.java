@@ -0,0 +1,365 @@
+package se.asteroid.env;
+
+import se.asteroid.model.Asteroid;
+import se.asteroid.model.Boss;
+import se.asteroid.model.Hitbox;
+import se.asteroid.model.ProjectileBuffer;
+import se.asteroid.model.RegularEnemy;
+import se.asteroid.model.SecondTier;
+import se.asteroid.model.Ship;
+import se.asteroid.model.World;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+// Writes the state of a world into a fixed little-endian layout so agents
+// and other processes can read it straight out of a (direct) ByteBuffer.
+// Only absolute puts are used, the buffer position is never touched and
+// several worlds can be encoded into one buffer from different threads as
+// long as their regions do not overlap. Nothing is allocated per encode.
+//
+// Layout, offsets from the start of the observation:
+//   header  (HEADER_BYTES)    version, capacities, flags, tick, score,
+//                             lives, boss pattern, section counts, ship, boss
+//   asteroids                 maxEntities * ENTITY_BYTES
+//   regular enemies           maxEntities * ENTITY_BYTES
+//   second tier enemies       maxEntities * ENTITY_BYTES
+//   player bullets            maxBullets * BULLET_BYTES
+//   enemy and boss bullets    maxBullets * BULLET_BYTES
+//   occupancy grid            gridCols * gridRows bytes of GRID_* bits, row major
+// Sections hold count entries, the rest of their slots are stale.
+public class ObservationEncoder {
+    public static final int VERSION = 1;
+
+    public static final int FLAG_STARTED = 1;
+    public static final int FLAG_GAME_OVER = 1 << 1;
+    public static final int FLAG_SUCCEEDED = 1 << 2;
+    public static final int FLAG_BOSS_PHASE = 1 << 3;
+    public static final int FLAG_BOSS_DEFEATED = 1 << 4;
+    public static final int FLAG_EXPLODING = 1 << 5;
+    public static final int FLAG_INVINCIBLE = 1 << 6;
+
+    // Header fields, ints unless noted
+    public static final int OFFSET_VERSION = 0;
+    public static final int OFFSET_MAX_ENTITIES = 4;
+    public static final int OFFSET_MAX_BULLETS = 8;
+    public static final int OFFSET_GRID_COLS = 12;
+    public static final int OFFSET_GRID_ROWS = 16;
+    public static final int OFFSET_FLAGS = 20;
+    public static final int OFFSET_TICK = 24; // long
+    public static final int OFFSET_SCORE = 32;
+    public static final int OFFSET_LIVES = 36;
+    public static final int OFFSET_BOSS_PATTERN = 40; // -1 without a living boss
+    public static final int OFFSET_ASTEROID_COUNT = 44;
+    public static final int OFFSET_REGULAR_COUNT = 48;
+    public static final int OFFSET_SECOND_TIER_COUNT = 52;
+    public static final int OFFSET_PLAYER_BULLET_COUNT = 56;
+    public static final int OFFSET_ENEMY_BULLET_COUNT = 60;
+    public static final int OFFSET_SHIP = 64; // float x, y, angle, int health
+    public static final int OFFSET_BOSS = 80; // entity record
+    public static final int HEADER_BYTES = 104;
+
+    // Entity record: float x, y, velocityX, velocityY, int health, int kind
+    public static final int ENTITY_BYTES = 24;
+    public static final int KIND_SMALL_ASTEROID = 0;
+    public static final int KIND_LARGE_ASTEROID = 1;
+    public static final int KIND_REGULAR_ENEMY = 2;
+    public static final int KIND_SECOND_TIER = 3;
+    public static final int KIND_BOSS = 4;
+
+    // Bullet record: float x, y, velocityX, velocityY
+    public static final int BULLET_BYTES = 16;
+
+    public static final byte GRID_SHIP = 1;
+    public static final byte GRID_ASTEROID = 1 << 1;
+    public static final byte GRID_ENEMY = 1 << 2;
+    public static final byte GRID_BOSS = 1 << 3;
+    public static final byte GRID_PLAYER_BULLET = 1 << 4;
+    public static final byte GRID_ENEMY_BULLET = 1 << 5;
+
+    private final int maxEntities;
+    private final int maxBullets;
+    private final int gridCols;
+    private final int gridRows;
+    private final double cellWidth;
+    private final double cellHeight;
+
+    private final int asteroidOffset;
+    private final int regularOffset;
+    private final int secondTierOffset;
+    private final int playerBulletOffset;
+    private final int enemyBulletOffset;
+    private final int gridOffset;
+    private final int size;
+
+    // Without a grid
+    public ObservationEncoder(int maxEntities, int maxBullets) {
+        this(maxEntities, maxBullets, 0, 0);
+    }
+
+    public ObservationEncoder(int maxEntities, int maxBullets, int gridCols, int gridRows) {
+        if (maxEntities < 0 || maxBullets < 0 || gridCols < 0 || gridRows < 0) {
+            throw new IllegalArgumentException("Capacities must not be negative");
+        }
+        this.maxEntities = maxEntities;
+        this.maxBullets = maxBullets;
+        this.gridCols = gridCols;
+        this.gridRows = gridRows;
+        this.cellWidth = gridCols == 0 ? 0 : (double) World.WIDTH / gridCols;
+        this.cellHeight = gridRows == 0 ? 0 : (double) World.HEIGHT / gridRows;
+
+        int entitySection = maxEntities * ENTITY_BYTES;
+        int bulletSection = maxBullets * BULLET_BYTES;
+        asteroidOffset = HEADER_BYTES;
+        regularOffset = asteroidOffset + entitySection;
+        secondTierOffset = regularOffset + entitySection;
+        playerBulletOffset = secondTierOffset + entitySection;
+        enemyBulletOffset = playerBulletOffset + bulletSection;
+        gridOffset = enemyBulletOffset + bulletSection;
+        // Pad to 8 bytes so observations packed back to back stay aligned
+        size = (gridOffset + gridCols * gridRows + 7) & ~7;
+    }
+
+    // A direct little-endian buffer with room for count observations
+    public ByteBuffer allocate(int count) {
+        return ByteBuffer.allocateDirect(size * count).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // Encodes world at offset, the buffer must be little-endian
+    public void encode(World world, ByteBuffer out, int offset) {
+        if (out.order() != ByteOrder.LITTLE_ENDIAN) {
+            throw new IllegalArgumentException("Observation buffers must be little-endian");
+        }
+        Ship player = world.getPlayer();
+        Boss boss = world.getBoss();
+        boolean bossAlive = boss != null && boss.isAlive();
+
+        int flags = 0;
+        if (world.isGameStarted()) flags |= FLAG_STARTED;
+        if (world.isGameOver()) flags |= FLAG_GAME_OVER;
+        if (world.isGameSucceeded()) flags |= FLAG_SUCCEEDED;
+        if (world.isBossPhaseStarted()) flags |= FLAG_BOSS_PHASE;
+        if (world.isBossDefeated()) flags |= FLAG_BOSS_DEFEATED;
+        if (world.isExploding()) flags |= FLAG_EXPLODING;
+        if (player != null && player.isInvincible()) flags |= FLAG_INVINCIBLE;
+
+        out.putInt(offset + OFFSET_VERSION, VERSION);
+        out.putInt(offset + OFFSET_MAX_ENTITIES, maxEntities);
+        out.putInt(offset + OFFSET_MAX_BULLETS, maxBullets);
+        out.putInt(offset + OFFSET_GRID_COLS, gridCols);
+        out.putInt(offset + OFFSET_GRID_ROWS, gridRows);
+        out.putInt(offset + OFFSET_FLAGS, flags);
+        out.putLong(offset + OFFSET_TICK, world.getTick());
+        out.putInt(offset + OFFSET_SCORE, world.getScore());
+        out.putInt(offset + OFFSET_LIVES, world.getLives());
+        out.putInt(offset + OFFSET_BOSS_PATTERN, bossAlive ? boss.getAttackPattern() : -1);
+
+        if (player != null) {
+            out.putFloat(offset + OFFSET_SHIP, (float) player.getX());
+            out.putFloat(offset + OFFSET_SHIP + 4, (float) player.getY());
+            out.putFloat(offset + OFFSET_SHIP + 8, (float) player.getAngle());
+            out.putInt(offset + OFFSET_SHIP + 12, player.getHealth());
+        } else {
+            out.putLong(offset + OFFSET_SHIP, 0);
+            out.putLong(offset + OFFSET_SHIP + 8, 0);
+        }
+        if (bossAlive) {
+            putEntity(out, offset + OFFSET_BOSS, boss.getX(), boss.getY(), boss.getVelocityX(), boss.getVelocityY(),
+                    boss.getHealth(), KIND_BOSS);
+        } else {
+            for (int i = 0; i < ENTITY_BYTES; i += 8) {
+                out.putLong(offset + OFFSET_BOSS + i, 0);
+            }
+        }
+
+        out.putInt(offset + OFFSET_ASTEROID_COUNT,
+                putAsteroids(out, offset + asteroidOffset, world.getAsteroids()));
+        out.putInt(offset + OFFSET_REGULAR_COUNT,
+                putRegularEnemies(out, offset + regularOffset, world.getRegularEnemies()));
+        out.putInt(offset + OFFSET_SECOND_TIER_COUNT,
+                putSecondTierEnemies(out, offset + secondTierOffset, world.getSecondTierEnemies()));
+
+        int playerBullets = player != null ? putBullets(out, offset + playerBulletOffset, 0, player.getBulletBuffer()) : 0;
+        out.putInt(offset + OFFSET_PLAYER_BULLET_COUNT, playerBullets);
+
+        int enemyBullets = 0;
+        List<RegularEnemy> regularEnemies = world.getRegularEnemies();
+        for (int i = 0; i < regularEnemies.size(); i++) {
+            enemyBullets = putBullets(out, offset + enemyBulletOffset, enemyBullets, regularEnemies.get(i).getBulletBuffer());
+        }
+        List<SecondTier> secondTierEnemies = world.getSecondTierEnemies();
+        for (int i = 0; i < secondTierEnemies.size(); i++) {
+            enemyBullets = putBullets(out, offset + enemyBulletOffset, enemyBullets, secondTierEnemies.get(i).getBulletBuffer());
+        }
+        if (bossAlive) {
+            enemyBullets = putBullets(out, offset + enemyBulletOffset, enemyBullets, boss.getBulletBuffer());
+        }
+        out.putInt(offset + OFFSET_ENEMY_BULLET_COUNT, enemyBullets);
+
+        if (gridCols > 0 && gridRows > 0) {
+            rasterize(world, out, offset + gridOffset);
+        }
+    }
+
+    private int putAsteroids(ByteBuffer out, int at, List<Asteroid> asteroids) {
+        int count = Math.min(asteroids.size(), maxEntities);
+        for (int i = 0; i < count; i++) {
+            Asteroid a = asteroids.get(i);
+            putEntity(out, at + i * ENTITY_BYTES, a.getX(), a.getY(), a.getVelocityX(), a.getVelocityY(),
+                    a.getHealth(), a.isLarge() ? KIND_LARGE_ASTEROID : KIND_SMALL_ASTEROID);
+        }
+        return count;
+    }
+
+    private int putRegularEnemies(ByteBuffer out, int at, List<RegularEnemy> enemies) {
+        int count = Math.min(enemies.size(), maxEntities);
+        for (int i = 0; i < count; i++) {
+            RegularEnemy e = enemies.get(i);
+            putEntity(out, at + i * ENTITY_BYTES, e.getX(), e.getY(), e.getVelocityX(), e.getVelocityY(),
+                    e.getHealth(), KIND_REGULAR_ENEMY);
+        }
+        return count;
+    }
+
+    private int putSecondTierEnemies(ByteBuffer out, int at, List<SecondTier> enemies) {
+        int count = Math.min(enemies.size(), maxEntities);
+        for (int i = 0; i < count; i++) {
+            SecondTier e = enemies.get(i);
+            putEntity(out, at + i * ENTITY_BYTES, e.getX(), e.getY(), e.getVelocityX(), e.getVelocityY(),
+                    e.getHealth(), KIND_SECOND_TIER);
+        }
+        return count;
+    }
+
+    private static void putEntity(ByteBuffer out, int at, double x, double y, double velocityX, double velocityY,
+                                  int health, int kind) {
+        out.putFloat(at, (float) x);
+        out.putFloat(at + 4, (float) y);
+        out.putFloat(at + 8, (float) velocityX);
+        out.putFloat(at + 12, (float) velocityY);
+        out.putInt(at + 16, health);
+        out.putInt(at + 20, kind);
+    }
+
+    // Appends bullets after the count already written, returns the new count
+    private int putBullets(ByteBuffer out, int at, int count, ProjectileBuffer bullets) {
+        int n = Math.min(bullets.size(), maxBullets - count);
+        for (int i = 0; i < n; i++) {
+            int slot = at + (count + i) * BULLET_BYTES;
+            out.putFloat(slot, (float) bullets.getX(i));
+            out.putFloat(slot + 4, (float) bullets.getY(i));
+            out.putFloat(slot + 8, (float) bullets.getVelocityX(i));
+            out.putFloat(slot + 12, (float) bullets.getVelocityY(i));
+        }
+        return count + n;
+    }
+
+    private void rasterize(World world, ByteBuffer out, int at) {
+        int cells = gridCols * gridRows;
+        int i = 0;
+        for (; i + 8 <= cells; i += 8) {
+            out.putLong(at + i, 0);
+        }
+        for (; i < cells; i++) {
+            out.put(at + i, (byte) 0);
+        }
+
+        Ship player = world.getPlayer();
+        if (player != null && !world.isExploding()) {
+            markBox(out, at, player.getHitbox(), GRID_SHIP);
+            markBullets(out, at, player.getBulletBuffer(), GRID_PLAYER_BULLET);
+        }
+        List<Asteroid> asteroids = world.getAsteroids();
+        for (int j = 0; j < asteroids.size(); j++) {
+            markBox(out, at, asteroids.get(j).getHitbox(), GRID_ASTEROID);
+        }
+        List<RegularEnemy> regularEnemies = world.getRegularEnemies();
+        for (int j = 0; j < regularEnemies.size(); j++) {
+            markBox(out, at, regularEnemies.get(j).getHitbox(), GRID_ENEMY);
+            markBullets(out, at, regularEnemies.get(j).getBulletBuffer(), GRID_ENEMY_BULLET);
+        }
+        List<SecondTier> secondTierEnemies = world.getSecondTierEnemies();
+        for (int j = 0; j < secondTierEnemies.size(); j++) {
+            markBox(out, at, secondTierEnemies.get(j).getHitbox(), GRID_ENEMY);
+            markBullets(out, at, secondTierEnemies.get(j).getBulletBuffer(), GRID_ENEMY_BULLET);
+        }
+        Boss boss = world.getBoss();
+        if (boss != null && boss.isAlive()) {
+            markBox(out, at, boss.getHitbox(), GRID_BOSS);
+            markBullets(out, at, boss.getBulletBuffer(), GRID_ENEMY_BULLET);
+        }
+    }
+
+    // Marks every cell the box overlaps, clipped to the screen
+    private void markBox(ByteBuffer out, int at, Hitbox box, byte bit) {
+        int minCol = Math.max(0, (int) (box.getMinX() / cellWidth));
+        int maxCol = Math.min(gridCols - 1, (int) (box.getMaxX() / cellWidth));
+        int minRow = Math.max(0, (int) (box.getMinY() / cellHeight));
+        int maxRow = Math.min(gridRows - 1, (int) (box.getMaxY() / cellHeight));
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                mark(out, at + row * gridCols + col, bit);
+            }
+        }
+    }
+
+    // Bullets are small enough that their centre cell is enough
+    private void markBullets(ByteBuffer out, int at, ProjectileBuffer bullets, byte bit) {
+        for (int i = 0; i < bullets.size(); i++) {
+            double x = bullets.getX(i);
+            double y = bullets.getY(i);
+            if (x < 0 || y < 0 || x >= World.WIDTH || y >= World.HEIGHT) continue;
+            mark(out, at + (int) (y / cellHeight) * gridCols + (int) (x / cellWidth), bit);
+        }
+    }
+
+    private static void mark(ByteBuffer out, int index, byte bit) {
+        out.put(index, (byte) (out.get(index) | bit));
+    }
+
+    // Bytes per observation
+    public int size() {
+        return size;
+    }
+
+    public int getMaxEntities() {
+        return maxEntities;
+    }
+
+    public int getMaxBullets() {
+        return maxBullets;
+    }
+
+    public int getGridCols() {
+        return gridCols;
+    }
+
+    public int getGridRows() {
+        return gridRows;
+    }
+
+    public int getAsteroidOffset() {
+        return asteroidOffset;
+    }
+
+    public int getRegularEnemyOffset() {
+        return regularOffset;
+    }
+
+    public int getSecondTierOffset() {
+        return secondTierOffset;
+    }
+
+    public int getPlayerBulletOffset() {
+        return playerBulletOffset;
+    }
+
+    public int getEnemyBulletOffset() {
+        return enemyBulletOffset;
+    }
+
+    public int getGridOffset() {
+        return gridOffset;
+    }
+}
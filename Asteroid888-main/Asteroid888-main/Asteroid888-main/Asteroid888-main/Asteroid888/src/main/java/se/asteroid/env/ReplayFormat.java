@@ -0,0 +1,27 @@
+package se.asteroid.env;
+
+// Layout of a replay file. A 13 byte header, the magic "A8RP", a version
+// byte and the world seed as a little-endian long, followed by entries.
+// Each entry starts with a varint (skipped << 1 | control), where skipped is
+// how many ticks since the previous entry repeated the held keys with no
+// presses. A tick entry (control 0) follows with one byte of Action bits:
+// the held keys in full, plus a flag per press kind that happened. Each
+// flagged press count comes next as a varint. A control entry (control 1)
+// follows with one of the codes below.
+final class ReplayFormat {
+    static final byte[] MAGIC = {'A', '8', 'R', 'P'};
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 13;
+
+    static final int HELD_MASK = Action.UP | Action.DOWN | Action.LEFT | Action.RIGHT;
+
+    // World.start()
+    static final int CONTROL_START = 1;
+    // World.reset()
+    static final int CONTROL_RESET = 2;
+    // End of the recording, its skipped ticks are the trailing idle ticks
+    static final int CONTROL_END = 3;
+
+    private ReplayFormat() {
+    }
+}
@@ -0,0 +1,201 @@
+package se.asteroid.env;
+
+import se.asteroid.model.PlayerInput;
+import se.asteroid.model.World;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// Plays a ReplayRecorder recording into a fresh World built from the
+// recorded seed. The world only depends on its seed and its inputs, so it
+// goes through exactly the recorded game. step() advances one recorded
+// tick; runHeadless() plays flat out, for load tests and reproducing bugs,
+// and runRealTime() paces the ticks like the game loop does.
+public class ReplayPlayer {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final byte[] data;
+    private final long seed;
+    private final World world;
+    private final PlayerInput input = new PlayerInput();
+    // The tick entry read last, applied once its skipped ticks have run
+    private final PlayerInput next = new PlayerInput();
+
+    private int position = ReplayFormat.HEADER_BYTES;
+    private long skipped;
+    private boolean tickPending;
+    private int controlPending;
+    private boolean finished;
+    private long ticks;
+
+    public ReplayPlayer(byte[] data) {
+        if (data.length < ReplayFormat.HEADER_BYTES
+                || !Arrays.equals(data, 0, ReplayFormat.MAGIC.length, ReplayFormat.MAGIC, 0, ReplayFormat.MAGIC.length)) {
+            throw new IllegalArgumentException("Not a replay");
+        }
+        if (data[4] != ReplayFormat.VERSION) {
+            throw new IllegalArgumentException("Unsupported replay version " + data[4]);
+        }
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value |= (data[5 + i] & 0xFFL) << (8 * i);
+        }
+        this.data = data;
+        this.seed = value;
+        this.world = new World(seed);
+        // The recording has its own timings, keep the clock reads out of a replay
+        world.getProfiler().setEnabled(false);
+    }
+
+    public static ReplayPlayer read(Path path) throws IOException {
+        return new ReplayPlayer(Files.readAllBytes(path));
+    }
+
+    // Plays up to and including the next recorded tick, false once the
+    // recording is over
+    public boolean step() {
+        while (true) {
+            if (skipped > 0) {
+                // Held keys carry on, presses were only for their own tick
+                skipped--;
+                input.clearPresses();
+                stepWorld();
+                return true;
+            }
+            if (tickPending) {
+                tickPending = false;
+                input.copyFrom(next);
+                stepWorld();
+                return true;
+            }
+            if (controlPending != 0) {
+                int control = controlPending;
+                controlPending = 0;
+                switch (control) {
+                    case ReplayFormat.CONTROL_START -> world.start();
+                    case ReplayFormat.CONTROL_RESET -> world.reset();
+                    default -> finished = true;
+                }
+                continue;
+            }
+            if (finished || position >= data.length) {
+                // A recording cut short by a crash just ends
+                finished = true;
+                return false;
+            }
+            readEntry();
+        }
+    }
+
+    // Plays the rest of the recording as fast as possible, returns the ticks played
+    public long runHeadless() {
+        long start = ticks;
+        while (step()) {
+            // Nothing to pace
+        }
+        return ticks - start;
+    }
+
+    // Plays the rest at the given tick rate, onTick sees the world after each tick
+    public void runRealTime(int ticksPerSecond, Consumer<World> onTick) {
+        long stepNanos = NANOS_PER_SECOND / ticksPerSecond;
+        long nextTick = System.nanoTime();
+        while (step()) {
+            onTick.accept(world);
+            nextTick += stepNanos;
+            long wait = nextTick - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (Thread.currentThread().isInterrupted()) return;
+        }
+    }
+
+    private void stepWorld() {
+        world.step(input);
+        ticks++;
+    }
+
+    private void readEntry() {
+        long header = readVarint();
+        skipped = header >>> 1;
+        if ((header & 1) != 0) {
+            controlPending = readByte();
+            return;
+        }
+        int bits = readByte();
+        next.clear();
+        next.setUp((bits & Action.UP) != 0);
+        next.setDown((bits & Action.DOWN) != 0);
+        next.setLeft((bits & Action.LEFT) != 0);
+        next.setRight((bits & Action.RIGHT) != 0);
+        int shots = (bits & Action.SHOOT) != 0 ? (int) readVarint() : 0;
+        int missiles = (bits & Action.MISSILE) != 0 ? (int) readVarint() : 0;
+        int rotateLeft = (bits & Action.ROTATE_LEFT) != 0 ? (int) readVarint() : 0;
+        int rotateRight = (bits & Action.ROTATE_RIGHT) != 0 ? (int) readVarint() : 0;
+        for (int i = 0; i < shots; i++) next.addShot();
+        for (int i = 0; i < missiles; i++) next.addMissileBurst();
+        for (int i = 0; i < rotateLeft; i++) next.addRotateLeft();
+        for (int i = 0; i < rotateRight; i++) next.addRotateRight();
+        tickPending = true;
+    }
+
+    private long readVarint() {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("Malformed varint at byte " + position);
+    }
+
+    private int readByte() {
+        if (position >= data.length) {
+            throw new IllegalArgumentException("Replay ends inside an entry");
+        }
+        return data[position++] & 0xFF;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    // Ticks played so far
+    public long getTicks() {
+        return ticks;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    // Plays a replay file headless and prints how fast it ran:
+    // ReplayPlayer <file> [--realtime]
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: ReplayPlayer <replay file> [--realtime]");
+            return;
+        }
+        ReplayPlayer player = read(Path.of(args[0]));
+        long start = System.nanoTime();
+        if (args.length > 1 && "--realtime".equals(args[1])) {
+            player.runRealTime(60, world -> { });
+        } else {
+            player.runHeadless();
+        }
+        double seconds = (System.nanoTime() - start) / (double) NANOS_PER_SECOND;
+        World world = player.getWorld();
+        System.out.printf("%d ticks in %.3f s (%.0f ticks/s), seed %d, score %d, lives %d%n",
+                player.getTicks(), seconds, player.getTicks() / seconds, player.getSeed(),
+                world.getScore(), world.getLives());
+    }
+}
@@ -0,0 +1,124 @@
+package se.asteroid.env;
+
+import se.asteroid.model.PlayerInput;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// Records the input of every tick a World is stepped with, plus its starts
+// and resets, in the compact ReplayFormat. Together with the world's seed
+// that is enough for ReplayPlayer to play the session again tick for tick.
+// A held key costs nothing while it stays held, so an entry is only written
+// when the held keys change or a press happens. Kept in memory, a long
+// session is a few kilobytes. Called from the tick thread only.
+public class ReplayRecorder {
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private final long seed;
+    private byte[] data = new byte[INITIAL_CAPACITY];
+    private int size;
+    private int held;
+    private int skipped;
+    private long ticks;
+
+    public ReplayRecorder(long seed) {
+        this.seed = seed;
+        System.arraycopy(ReplayFormat.MAGIC, 0, data, 0, ReplayFormat.MAGIC.length);
+        data[4] = (byte) ReplayFormat.VERSION;
+        for (int i = 0; i < Long.BYTES; i++) {
+            data[5 + i] = (byte) (seed >>> (8 * i));
+        }
+        size = ReplayFormat.HEADER_BYTES;
+    }
+
+    public void recordStart() {
+        writeControl(ReplayFormat.CONTROL_START);
+    }
+
+    public void recordReset() {
+        writeControl(ReplayFormat.CONTROL_RESET);
+    }
+
+    // The input the world was just stepped with
+    public void record(PlayerInput input) {
+        ticks++;
+        int bits = 0;
+        if (input.isUp()) bits |= Action.UP;
+        if (input.isDown()) bits |= Action.DOWN;
+        if (input.isLeft()) bits |= Action.LEFT;
+        if (input.isRight()) bits |= Action.RIGHT;
+        if (input.getShots() > 0) bits |= Action.SHOOT;
+        if (input.getMissileBursts() > 0) bits |= Action.MISSILE;
+        if (input.getRotateLeft() > 0) bits |= Action.ROTATE_LEFT;
+        if (input.getRotateRight() > 0) bits |= Action.ROTATE_RIGHT;
+
+        if (bits == held) {
+            // Same keys held, nothing pressed
+            skipped++;
+            return;
+        }
+        writeVarint((long) skipped << 1);
+        writeByte(bits);
+        if (input.getShots() > 0) writeVarint(input.getShots());
+        if (input.getMissileBursts() > 0) writeVarint(input.getMissileBursts());
+        if (input.getRotateLeft() > 0) writeVarint(input.getRotateLeft());
+        if (input.getRotateRight() > 0) writeVarint(input.getRotateRight());
+        held = bits & ReplayFormat.HELD_MASK;
+        skipped = 0;
+    }
+
+    private void writeControl(int code) {
+        writeVarint((long) skipped << 1 | 1);
+        writeByte(code);
+        skipped = 0;
+    }
+
+    // The finished replay so far, the recorder can keep going afterwards
+    public byte[] toByteArray() {
+        byte[] copy = Arrays.copyOf(data, size + 11);
+        int end = size;
+        long header = (long) skipped << 1 | 1;
+        while ((header & ~0x7FL) != 0) {
+            copy[end++] = (byte) ((header & 0x7F) | 0x80);
+            header >>>= 7;
+        }
+        copy[end++] = (byte) header;
+        copy[end++] = (byte) ReplayFormat.CONTROL_END;
+        return Arrays.copyOf(copy, end);
+    }
+
+    public void writeTo(Path path) throws IOException {
+        Files.write(path, toByteArray());
+    }
+
+    private void writeVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }
+
+    private void writeByte(int value) {
+        if (size == data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        data[size++] = (byte) value;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    // Ticks recorded so far
+    public long getTicks() {
+        return ticks;
+    }
+
+    // Encoded bytes so far, header included
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,23 @@
+package se.asteroid.env;
+
+// Per-world results of one MultiWorldRunner step, index i is world i. The
+// arrays are reused between steps, copy them to keep a step around.
+public class StepBatch {
+    // Score gained this step
+    public final int[] reward;
+    public final int[] score;
+    public final int[] lives;
+    // The episode ended this step, the world restarts on the next one
+    public final boolean[] done;
+
+    StepBatch(int size) {
+        reward = new int[size];
+        score = new int[size];
+        lives = new int[size];
+        done = new boolean[size];
+    }
+
+    public int size() {
+        return reward.length;
+    }
+}
@@ -0,0 +1,122 @@
+package se.asteroid.model;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Decodes, scales and slices each sprite once. Images come back premultiplied
+// and in the screen's native format, and are shared between entities, so
+// callers must only draw them and never modify the pixels.
+public final class AssetCache {
+    private static final Logger logger = LogManager.getLogger(AssetCache.class);
+
+    private static final Map<String, BufferedImage> images = new ConcurrentHashMap<>();
+    private static final Map<String, BufferedImage[][]> sheets = new ConcurrentHashMap<>();
+    // Classes that load their sprites when initialized
+    private static final List<Class<?>> PRELOADED = List.of(Ship.class, Asteroid.class, RegularEnemy.class,
+            SecondTier.class, Boss.class, Projectile.class, Missile.class, Explosion.class);
+
+    private AssetCache() {
+    }
+
+    // Sprite scaled to width x height, or null when the resource is missing
+    public static BufferedImage getScaled(String path, int width, int height) {
+        return images.computeIfAbsent(path + "@" + width + "x" + height, key -> {
+            BufferedImage source = decode(path);
+            if (source == null) return null;
+            return copy(source, 0, 0, source.getWidth(), source.getHeight(), width, height);
+        });
+    }
+
+    // Sheet cut into rows x cols equal frames, or null when the resource is missing
+    public static BufferedImage[][] getSheet(String path, int rows, int cols) {
+        return sheets.computeIfAbsent(path + "#" + rows + "x" + cols, key -> {
+            BufferedImage source = decode(path);
+            if (source == null) return null;
+
+            int frameWidth = source.getWidth() / cols;
+            int frameHeight = source.getHeight() / rows;
+            BufferedImage[][] frames = new BufferedImage[rows][cols];
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
+                    frames[row][col] = copy(source, col * frameWidth, row * frameHeight,
+                            frameWidth, frameHeight, frameWidth, frameHeight);
+                }
+            }
+            logger.debug("Sliced {} into {}x{} frames of {}x{}", path, rows, cols, frameWidth, frameHeight);
+            return frames;
+        });
+    }
+
+    // A private copy of source at width x height, for sprites set in code
+    static BufferedImage scale(BufferedImage source, int width, int height) {
+        return copy(source, 0, 0, source.getWidth(), source.getHeight(), width, height);
+    }
+
+    // Decodes every sprite the simulation uses now instead of in the first
+    // world that spawns each kind. A host starting many worlds at once calls
+    // this first, so no world thread blocks on a decode inside the cache.
+    public static void preload() {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (Class<?> type : PRELOADED) {
+            try {
+                lookup.ensureInitialized(type);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot initialize " + type.getName(), e);
+            }
+        }
+    }
+
+    public static void clear() {
+        images.clear();
+        sheets.clear();
+        RotationCache.clear();
+    }
+
+    private static BufferedImage decode(String path) {
+        URL url = AssetCache.class.getResource(path);
+        if (url == null) {
+            logger.error("Asset not found: {}", path);
+            return null;
+        }
+        try {
+            return ImageIO.read(url);
+        } catch (IOException e) {
+            logger.error("Failed to decode asset {}", path, e);
+            return null;
+        }
+    }
+
+    // Copies a region of the source into a new image the display can blit
+    // without a format conversion
+    private static BufferedImage copy(BufferedImage source, int srcX, int srcY, int srcWidth, int srcHeight,
+                                      int width, int height) {
+        BufferedImage image = createCompatible(width, height);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2d.drawImage(source, 0, 0, width, height,
+                srcX, srcY, srcX + srcWidth, srcY + srcHeight, null);
+        g2d.dispose();
+        return image;
+    }
+
+    static BufferedImage createCompatible(int width, int height) {
+        if (!GraphicsEnvironment.isHeadless()) {
+            GraphicsConfiguration config = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+            if (config.getColorModel(Transparency.TRANSLUCENT).isAlphaPremultiplied()) {
+                return config.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+            }
+        }
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+    }
+}
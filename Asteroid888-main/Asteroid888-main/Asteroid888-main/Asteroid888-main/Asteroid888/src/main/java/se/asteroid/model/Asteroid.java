@@ -1,9 +1,14 @@
 package se.asteroid.model;
 
-import javax.swing.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import se.asteroid.util.IntRaster;
+
 import java.awt.*;
-import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 public class Asteroid extends Character {
     private int maxHealth;
@@ -11,6 +16,7 @@ public class Asteroid extends Character {
     public double rotationAngle;
     private double rotationSpeed;
     private BufferedImage asteroidImage;
+    private final RandomGenerator random;
 
     // ขนาดต่างๆ คงเดิม
     private static final int LARGE_WIDTH = 100;
@@ -19,42 +25,64 @@ public class Asteroid extends Character {
     private static final int SMALL_HEIGHT = 70;
     private static final int LARGE_HITBOX = 50;
     private static final int SMALL_HITBOX = 25;
+    private static final Color HEALTH_BAR_BACKGROUND = new Color(255, 0, 0, 128);
+    private static final Color HEALTH_BAR_FILL = new Color(0, 255, 0, 192);
 
     // เพิ่มค่าคงที่สำหรับขอบเขตหน้าจอ
     private static final int SCREEN_WIDTH = 800;
     private static final int SCREEN_HEIGHT = 600;
 
+    // Looked up once per JVM, not on every spawn
+    private static final BufferedImage LARGE_IMAGE = AssetCache.getScaled("/assets/asteroid.png", LARGE_WIDTH, LARGE_HEIGHT);
+    private static final BufferedImage SMALL_IMAGE = AssetCache.getScaled("/assets/asteroid.png", SMALL_WIDTH, SMALL_HEIGHT);
+
+    private static final Logger logger = LogManager.getLogger(Asteroid.class);
+
     public Asteroid(double x, double y, boolean isLarge) {
+        this(x, y, isLarge, ThreadLocalRandom.current());
+    }
+
+    // World passes its own seeded generator so spawns replay from the seed
+    public Asteroid(double x, double y, boolean isLarge, RandomGenerator random) {
         super(x, y,
-                Math.random() * (isLarge ? 1.0 : 2.0) - (isLarge ? 0.5 : 1.0),
-                Math.random() * (isLarge ? 1.0 : 2.0) - (isLarge ? 0.5 : 1.0),
+                random.nextDouble() * (isLarge ? 1.0 : 2.0) - (isLarge ? 0.5 : 1.0),
+                random.nextDouble() * (isLarge ? 1.0 : 2.0) - (isLarge ? 0.5 : 1.0),
                 0,
                 isLarge ? 100 : 50);
 
+        this.random = random;
         this.isLarge = isLarge;
         this.maxHealth = health;
-        this.rotationAngle = Math.random() * 360;
-        this.rotationSpeed = Math.random() * 2 - 1;
-
-        try {
-            ImageIcon icon = new ImageIcon(getClass().getResource("/assets/asteroid.png"));
-            Image originalImage = icon.getImage();
+        this.rotationAngle = random.nextDouble() * 360;
+        this.rotationSpeed = random.nextDouble() * 2 - 1;
 
-            int width = isLarge ? LARGE_WIDTH : SMALL_WIDTH;
-            int height = isLarge ? LARGE_HEIGHT : SMALL_HEIGHT;
+        loadImage();
+        updateHitbox();
+    }
 
-            asteroidImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-            Graphics2D g2d = asteroidImage.createGraphics();
-            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+    private void loadImage() {
+        asteroidImage = isLarge ? LARGE_IMAGE : SMALL_IMAGE;
+    }
 
-            int drawWidth = width;
-            int drawHeight = height;
+    @Override
+    void saveState(ByteBuffer buffer) {
+        super.saveState(buffer);
+        buffer.put((byte) (isLarge ? 1 : 0)).putInt(maxHealth).putDouble(rotationAngle).putDouble(rotationSpeed);
+    }
 
-            g2d.drawImage(originalImage, 0, 0, drawWidth, drawHeight, null);
-            g2d.dispose();
-        } catch (Exception e) {
-            System.err.println("Error loading asteroid image: " + e.getMessage());
+    @Override
+    void loadState(ByteBuffer buffer) {
+        super.loadState(buffer);
+        boolean large = buffer.get() != 0;
+        maxHealth = buffer.getInt();
+        rotationAngle = buffer.getDouble();
+        rotationSpeed = buffer.getDouble();
+        if (large != isLarge) {
+            // Only a different size needs another image
+            isLarge = large;
+            loadImage();
         }
+        updateHitbox();
     }
 
     @Override
@@ -65,6 +93,7 @@ public class Asteroid extends Character {
         rotationAngle += rotationSpeed;
 
         handleScreenBounce();
+        updateHitbox();
     }
 
     private void handleScreenBounce() {
@@ -91,42 +120,51 @@ public class Asteroid extends Character {
             bounced = true;
         }
         if (bounced) {
-            rotationSpeed = Math.random() * 2 - 1;
+            rotationSpeed = random.nextDouble() * 2 - 1;
         }
     }
 
     @Override
     public void draw(Graphics2D g) {
+        drawAsteroid(g, null, asteroidImage, isLarge, x, y, rotationAngle, health, maxHealth);
+    }
+
+    // raster is null unless the tiled compositor is drawing
+    static void drawAsteroid(Graphics2D g, IntRaster raster, BufferedImage asteroidImage, boolean isLarge,
+                             double x, double y, double rotationAngle, int health, int maxHealth) {
         if (asteroidImage != null) {
-            AffineTransform transform = new AffineTransform();
-            transform.translate(x - asteroidImage.getWidth()/2, y - asteroidImage.getHeight()/2);
-            transform.rotate(Math.toRadians(rotationAngle), asteroidImage.getWidth()/2, asteroidImage.getHeight()/2);
-            g.drawImage(asteroidImage, transform, null);
+            RotationCache.draw(g, raster, asteroidImage, rotationAngle, x, y);
         }
 
-        drawHealthBar(g);
+        drawHealthBar(g, raster, isLarge, x, y, health, maxHealth);
+    }
+
+    @Override
+    FrameSnapshot.Sprite snapshot() {
+        return new FrameSnapshot.AsteroidSprite(asteroidImage, isLarge, previousX, previousY, x, y,
+                rotationAngle, health, maxHealth);
     }
 
-    private void drawHealthBar(Graphics2D g) {
+    private static void drawHealthBar(Graphics2D g, IntRaster raster, boolean isLarge, double x, double y,
+                                      int health, int maxHealth) {
         int healthBarWidth = isLarge ? 120 : 80;
         int healthBarHeight = 6;
         int currentHealthWidth = (int)((health / (double)maxHealth) * healthBarWidth);
         int yOffset = isLarge ? LARGE_HEIGHT/2 + 15 : SMALL_HEIGHT/2 + 15;
 
         // Background of health bar
-        g.setColor(new Color(255, 0, 0, 128));
-        g.fillRect((int)x - healthBarWidth/2, (int)y - yOffset,
+        fillRect(g, raster, HEALTH_BAR_BACKGROUND, (int)x - healthBarWidth/2, (int)y - yOffset,
                 healthBarWidth, healthBarHeight);
 
         // Current health
-        g.setColor(new Color(0, 255, 0, 192));
-        g.fillRect((int)x - healthBarWidth/2, (int)y - yOffset,
+        fillRect(g, raster, HEALTH_BAR_FILL, (int)x - healthBarWidth/2, (int)y - yOffset,
                 currentHealthWidth, healthBarHeight);
     }
 
-    public Rectangle getBounds() {
+    @Override
+    protected void updateHitbox() {
         int hitboxSize = isLarge ? LARGE_HITBOX : SMALL_HITBOX;
-        return new Rectangle(
+        hitbox.set(
                 (int)(x - hitboxSize/2),
                 (int)(y - hitboxSize/2),
                 hitboxSize,
@@ -134,10 +172,14 @@ public class Asteroid extends Character {
         );
     }
 
+    public Rectangle getBounds() {
+        return hitbox.toRectangle();
+    }
+
     public void hit() {
         health -= 10;
         if (health <= 0) {
-            System.out.println("Asteroid destroyed!");
+            logger.debug("Asteroid destroyed!");
         }
     }
 
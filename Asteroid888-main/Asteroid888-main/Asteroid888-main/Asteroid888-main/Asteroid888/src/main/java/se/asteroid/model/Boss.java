@@ -1,31 +1,31 @@
 package se.asteroid.model;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import se.asteroid.util.FastMath;
+import se.asteroid.util.IntRaster;
+
 import java.awt.*;
-import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
-import javax.imageio.ImageIO;
-import java.awt.image.RasterFormatException;
-import java.io.IOException;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
 import java.util.List;
-import java.util.logging.Logger;
-import java.util.logging.Level;
 
 public class Boss extends Character {
     private int attackCooldown;
     private int attackPattern;
     private int patternDuration;
-    private List<Projectile> projectiles;
+    private ProjectileBuffer projectiles;
     private static final int PATTERN_SWITCH_TIME = 300;
     private static final int INITIAL_HEALTH = 100;
-    private static final Logger logger = Logger.getLogger(Boss.class.getName());
+    private static final Color HEALTH_BAR_BACKGROUND = new Color(60, 60, 60, 180);
+    private static final Logger logger = LogManager.getLogger(Boss.class);
 
     // Sprite-related constants
     private static final int SPRITE_ROWS = 2;
     private static final int SPRITE_COLS = 4;
+    private static final BufferedImage[][] SHEET = AssetCache.getSheet("/assets/boss.png", SPRITE_ROWS, SPRITE_COLS);
 
     // Animation fields
-    private BufferedImage spriteSheet;
     private BufferedImage[][] sprites;
     private int currentRow = 0;
     private int currentFrame = 0;
@@ -52,54 +52,16 @@ public class Boss extends Character {
         this.attackCooldown = 0;
         this.attackPattern = 0;
         this.patternDuration = 0;
-        this.projectiles = new ArrayList<>();
+        this.projectiles = new ProjectileBuffer(ProjectileBuffer.OWNER_BOSS);
         this.target = player;
         loadSpriteSheet();
+        updateHitbox();
     }
 
     private void loadSpriteSheet() {
-        try {
-            spriteSheet = ImageIO.read(getClass().getResource("/assets/boss.png"));
-            if (spriteSheet == null) {
-                logger.log(Level.SEVERE, "Failed to load boss sprite sheet - file not found");
-                return;
-            }
-            // Log the actual dimensions of the loaded sprite sheet
-            logger.log(Level.INFO, "Loaded sprite sheet dimensions: " +
-                    spriteSheet.getWidth() + "x" + spriteSheet.getHeight());
-            // Calculate sprite dimensions based on the actual sprite sheet size
-            int actualSpriteWidth = spriteSheet.getWidth() / SPRITE_COLS;
-            int actualSpriteHeight = spriteSheet.getHeight() / SPRITE_ROWS;
-            logger.log(Level.INFO, "Individual sprite dimensions: " +
-                    actualSpriteWidth + "x" + actualSpriteHeight);
-
-            sprites = new BufferedImage[SPRITE_ROWS][SPRITE_COLS];
-
-            // Safely extract subimages
-            for (int row = 0; row < SPRITE_ROWS; row++) {
-                for (int col = 0; col < SPRITE_COLS; col++) {
-                    if ((col * actualSpriteWidth + actualSpriteWidth) <= spriteSheet.getWidth() &&
-                            (row * actualSpriteHeight + actualSpriteHeight) <= spriteSheet.getHeight()) {
-
-                        sprites[row][col] = spriteSheet.getSubimage(
-                                col * actualSpriteWidth,
-                                row * actualSpriteHeight,
-                                actualSpriteWidth,
-                                actualSpriteHeight
-                        );
-                    } else {
-                        logger.log(Level.WARNING, "Sprite at position [" + row + "][" + col +
-                                "] is outside sprite sheet bounds");
-                    }
-                }
-            }
-            logger.log(Level.INFO, "Successfully loaded boss sprites");
-        } catch (IOException e) {
-            logger.log(Level.SEVERE, "Failed to load boss sprite sheet", e);
-        } catch (RasterFormatException e) {
-            logger.log(Level.SEVERE, "Error cutting sprite sheet: " + e.getMessage(), e);
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "Unexpected error loading sprite sheet: " + e.getMessage(), e);
+        sprites = SHEET;
+        if (sprites == null) {
+            logger.error("Failed to load boss sprite sheet - file not found");
         }
     }
 
@@ -122,6 +84,7 @@ public class Boss extends Character {
         updateAttackPattern();
         updateBullets();
         updateAnimation();
+        updateHitbox();
     }
     private void updateAttackPattern() {
         if (patternDuration >= PATTERN_SWITCH_TIME) {
@@ -172,12 +135,9 @@ public class Boss extends Character {
     private void spiralAttack() {
         if (!isAlive()) return;
         double spiralAngle = angle + patternDuration * 10;
-        Projectile projectile = new Projectile(x, y, spiralAngle);
-        projectile.setVelocity(
-                SPIRAL_SPEED * Math.cos(Math.toRadians(spiralAngle)),
-                SPIRAL_SPEED * Math.sin(Math.toRadians(spiralAngle))
-        );
-        projectiles.add(projectile);
+        projectiles.add(x, y, spiralAngle,
+                SPIRAL_SPEED * FastMath.cosDeg(spiralAngle),
+                SPIRAL_SPEED * FastMath.sinDeg(spiralAngle));
     }
 
     private void spreadAttack() {
@@ -185,26 +145,20 @@ public class Boss extends Character {
         int numBullets = 12;
         for (int i = 0; i < numBullets; i++) {
             double spreadAngle = angle + (360.0 / numBullets) * i;
-            Projectile projectile = new Projectile(x, y, spreadAngle);
-            projectile.setVelocity(
-                    SPREAD_SPEED * Math.cos(Math.toRadians(spreadAngle)),
-                    SPREAD_SPEED * Math.sin(Math.toRadians(spreadAngle))
-            );
-            projectiles.add(projectile);
+            projectiles.add(x, y, spreadAngle,
+                    SPREAD_SPEED * FastMath.cosDeg(spreadAngle),
+                    SPREAD_SPEED * FastMath.sinDeg(spreadAngle));
         }
     }
 
     private void waveAttack() {
         if (!isAlive()) return;
-        double baseAngle = angle + Math.sin(patternDuration * 0.1) * 30;
+        double baseAngle = angle + FastMath.sin(patternDuration * 0.1) * 30;
         for (int i = -3; i <= 3; i++) {
             double waveAngle = baseAngle + i * 10;
-            Projectile projectile = new Projectile(x, y, waveAngle);
-            projectile.setVelocity(
-                    WAVE_SPEED * Math.cos(Math.toRadians(waveAngle)),
-                    WAVE_SPEED * Math.sin(Math.toRadians(waveAngle))
-            );
-            projectiles.add(projectile);
+            projectiles.add(x, y, waveAngle,
+                    WAVE_SPEED * FastMath.cosDeg(waveAngle),
+                    WAVE_SPEED * FastMath.sinDeg(waveAngle));
         }
     }
 
@@ -212,23 +166,20 @@ public class Boss extends Character {
         if (!isAlive()) return;
         for (int i = 0; i < 4; i++) {
             double crossAngle = angle + i * 90;
-            Projectile projectile = new Projectile(x, y, crossAngle);
-            projectile.setVelocity(
-                    CROSS_SPEED * Math.cos(Math.toRadians(crossAngle)),
-                    CROSS_SPEED * Math.sin(Math.toRadians(crossAngle))
-            );
-            projectiles.add(projectile);
+            projectiles.add(x, y, crossAngle,
+                    CROSS_SPEED * FastMath.cosDeg(crossAngle),
+                    CROSS_SPEED * FastMath.sinDeg(crossAngle));
         }
     }
     private void updateBullets() {
-        projectiles.removeIf(bullet -> bullet.isOffScreen(800, 600));
-        projectiles.forEach(Projectile::update);
+        projectiles.removeOffScreen(800, 600);
+        projectiles.update();
     }
 
     private void updateMovement() {
         // ตรวจสอบว่ามี target และยังมีชีวิตอยู่
         if (target == null) {
-            logger.log(Level.WARNING, "No target found for boss movement");
+            logger.warn("No target found for boss movement");
             return;
         }
 
@@ -253,22 +204,22 @@ public class Boss extends Character {
         }
 
         // คำนวณตำแหน่งใหม่
-        double targetX = target.getX() + Math.cos(orbitAngle) * currentDistance;
-        double targetY = target.getY() + Math.sin(orbitAngle) * currentDistance;
+        double targetX = target.getX() + FastMath.cos(orbitAngle) * currentDistance;
+        double targetY = target.getY() + FastMath.sin(orbitAngle) * currentDistance;
 
         // คำนวณความเร็วในการเคลื่อนที่
         double moveSpeed = 3.0;
-        double moveAngle = Math.atan2(targetY - y, targetX - x);
+        double moveAngle = FastMath.atan2(targetY - y, targetX - x);
 
-        velocityX = Math.cos(moveAngle) * moveSpeed;
-        velocityY = Math.sin(moveAngle) * moveSpeed;
+        velocityX = FastMath.cos(moveAngle) * moveSpeed;
+        velocityY = FastMath.sin(moveAngle) * moveSpeed;
 
         // อัปเดตตำแหน่ง
         x += velocityX;
         y += velocityY;
 
         // หันหน้าไปทางผู้เล่น
-        angle = Math.toDegrees(Math.atan2(target.getY() - y, target.getX() - x));
+        angle = FastMath.atan2Deg(target.getY() - y, target.getX() - x);
 
         // ตรวจสอบขอบจอ
         x = Math.max(0, Math.min(x, 800));
@@ -281,36 +232,22 @@ public class Boss extends Character {
     public void draw(Graphics2D g) {
         if (!isAlive()) return;
 
+        drawBoss(g, null, sprites, x, y, angle, currentFrame, health);
         if (sprites != null && sprites[0][currentFrame] != null) {
-            AffineTransform old = g.getTransform();
-
-            // Move to boss position
-            g.translate(x, y);
-
-            // Rotate boss sprite
-            g.rotate(Math.toRadians(angle));
-
-            // Get the current sprite dimensions
-            int spriteWidth = sprites[0][currentFrame].getWidth();
-            int spriteHeight = sprites[0][currentFrame].getHeight();
-
-            // Draw the current sprite frame
-            g.drawImage(sprites[0][currentFrame],
-                    -spriteWidth/2,
-                    -spriteHeight/2,
-                    spriteWidth,
-                    spriteHeight,
-                    null);
-
-            g.setTransform(old);
-
             // Draw bullets
-            for (Projectile projectile : projectiles) {
-                projectile.draw(g);
-            }
+            projectiles.draw(g);
+        }
+    }
+
+    // raster is null unless the tiled compositor is drawing
+    static void drawBoss(Graphics2D g, IntRaster raster, BufferedImage[][] sprites, double x, double y,
+                         double angle, int currentFrame, int health) {
+        if (sprites != null && sprites[0][currentFrame] != null) {
+            // Draw the current sprite frame rotated towards the player
+            RotationCache.draw(g, raster, sprites[0][currentFrame], angle, x, y);
 
             // Draw health bar
-            drawHealthBar(g);
+            drawHealthBar(g, raster, sprites, x, y, health);
         } else {
             // Fallback drawing if sprites aren't loaded
             g.setColor(Color.RED);
@@ -318,17 +255,26 @@ public class Boss extends Character {
         }
     }
 
-    private void drawHealthBar(Graphics2D g) {
+    @Override
+    FrameSnapshot.Sprite snapshot() {
+        return new FrameSnapshot.BossSprite(sprites, previousX, previousY, x, y, angle, currentFrame, health);
+    }
+
+    FrameSnapshot.Sprite snapshotBullets() {
+        return projectiles.snapshot();
+    }
+
+    private static void drawHealthBar(Graphics2D g, IntRaster raster, BufferedImage[][] sprites, double x, double y,
+                                      int health) {
         int barWidth = 100;
         int barHeight = 10;
         int spriteHeight = (sprites != null && sprites[0][0] != null) ?
                 sprites[0][0].getHeight() : 80;
-        int barX = (int) this.x - barWidth / 2;
-        int barY = (int) this.y - spriteHeight/2 - 20;
+        int barX = (int) x - barWidth / 2;
+        int barY = (int) y - spriteHeight/2 - 20;
 
         // Bar background
-        g.setColor(new Color(60, 60, 60, 180));
-        g.fillRect(barX - 1, barY - 1, barWidth + 2, barHeight + 2);
+        fillRect(g, raster, HEALTH_BAR_BACKGROUND, barX - 1, barY - 1, barWidth + 2, barHeight + 2);
 
         // Health bar
         float healthPercent = (float) health / INITIAL_HEALTH;
@@ -338,18 +284,46 @@ public class Boss extends Character {
                 0,
                 200
         );
-        g.setColor(healthColor);
-        g.fillRect(barX, barY, (int)(barWidth * healthPercent), barHeight);
+        fillRect(g, raster, healthColor, barX, barY, (int)(barWidth * healthPercent), barHeight);
     }
 
 
 
     public Rectangle getBounds() {
+        return hitbox.toRectangle();
+    }
+
+    @Override
+    void saveState(ByteBuffer buffer) {
+        super.saveState(buffer);
+        buffer.putInt(attackCooldown).putInt(attackPattern).putInt(patternDuration)
+                .putInt(currentRow).putInt(currentFrame).putInt(animationTick)
+                .put((byte) (isMoving ? 1 : 0))
+                .putDouble(orbitAngle).putDouble(currentDistance);
+    }
+
+    @Override
+    void loadState(ByteBuffer buffer) {
+        super.loadState(buffer);
+        attackCooldown = buffer.getInt();
+        attackPattern = buffer.getInt();
+        patternDuration = buffer.getInt();
+        currentRow = buffer.getInt();
+        currentFrame = buffer.getInt();
+        animationTick = buffer.getInt();
+        isMoving = buffer.get() != 0;
+        orbitAngle = buffer.getDouble();
+        currentDistance = buffer.getDouble();
+        updateHitbox();
+    }
+
+    @Override
+    protected void updateHitbox() {
         int spriteWidth = (sprites != null && sprites[0][0] != null) ?
                 sprites[0][0].getWidth() : 80;
         int spriteHeight = (sprites != null && sprites[0][0] != null) ?
                 sprites[0][0].getHeight() : 80;
-        return new Rectangle(
+        hitbox.set(
                 (int)x - spriteWidth/3,
                 (int)y - spriteHeight/3,
                 spriteWidth*2/3,
@@ -358,9 +332,17 @@ public class Boss extends Character {
     }
 
     public List<Projectile> getBullets() {
+        return projectiles.asList();
+    }
+
+    public ProjectileBuffer getBulletBuffer() {
         return projectiles;
     }
 
+    public int getAttackPattern() {
+        return attackPattern;
+    }
+
     public void hit(int damage) {
         health -= damage;
         if (health < 0) health = 0;
@@ -371,9 +353,14 @@ public class Boss extends Character {
         double dy = y - target.getY();
         return Math.sqrt(dx * dx + dy * dy);
     }
+
+    public Ship getTarget() {
+        return target;
+    }
+
     public void setTarget(Ship newTarget) {
         this.target = newTarget;
-        logger.log(Level.INFO, "Boss target updated to new player ship");
+        logger.info("Boss target updated to new player ship");
     }
 
 }
\ No newline at end of file
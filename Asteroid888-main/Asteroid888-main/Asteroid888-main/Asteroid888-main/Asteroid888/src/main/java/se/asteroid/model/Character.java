@@ -1,16 +1,23 @@
 package se.asteroid.model;
 
+import se.asteroid.util.IntRaster;
+
 import java.awt.*;
+import java.nio.ByteBuffer;
 
 abstract class Character {
     protected double x, y;        // Position
     protected double velocityX, velocityY; // Speed
     protected double angle;       // Rotation angle
     protected int health;         // Health points
+    protected final Hitbox hitbox = new Hitbox(); // Collision box, refreshed on move
+    protected double previousX, previousY; // Position at the start of the last tick
 
     public Character(double x, double y, double velocityX, double velocityY, double angle, int health) {
         this.x = x;
         this.y = y;
+        this.previousX = x;
+        this.previousY = y;
         this.velocityX = velocityX;
         this.velocityY = velocityY;
         this.angle = angle;
@@ -55,7 +62,51 @@ abstract class Character {
 
     public abstract void update(); // Abstract update logic specific to each character type
 
+    public void savePreviousPosition() {
+        previousX = x;
+        previousY = y;
+    }
+
+    // Immutable copy of what draw() needs, for rendering off the simulation thread
+    abstract FrameSnapshot.Sprite snapshot();
+
+    // Recompute the hitbox from the current position without allocating
+    protected abstract void updateHitbox();
+
+    // Mutable state for World.save and World.restore. Subclasses append their
+    // own fields and refresh the hitbox after loading.
+    void saveState(ByteBuffer buffer) {
+        buffer.putDouble(x).putDouble(y).putDouble(velocityX).putDouble(velocityY).putDouble(angle)
+                .putDouble(previousX).putDouble(previousY).putInt(health);
+    }
+
+    void loadState(ByteBuffer buffer) {
+        x = buffer.getDouble();
+        y = buffer.getDouble();
+        velocityX = buffer.getDouble();
+        velocityY = buffer.getDouble();
+        angle = buffer.getDouble();
+        previousX = buffer.getDouble();
+        previousY = buffer.getDouble();
+        health = buffer.getInt();
+    }
+
+    public Hitbox getHitbox() {
+        return hitbox;
+    }
+
     public boolean isAlive() {
         return health > 0;
     }
+
+    // Health bars and other flat fills go straight into the raster when the
+    // frame is drawn by the tiled compositor
+    static void fillRect(Graphics2D g, IntRaster raster, Color color, int x, int y, int width, int height) {
+        if (raster != null) {
+            raster.fillRect(x, y, width, height, color.getRGB());
+        } else {
+            g.setColor(color);
+            g.fillRect(x, y, width, height);
+        }
+    }
 }
\ No newline at end of file
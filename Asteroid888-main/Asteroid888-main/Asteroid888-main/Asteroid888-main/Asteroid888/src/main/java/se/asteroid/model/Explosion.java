@@ -1,11 +1,13 @@
 package se.asteroid.model;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
 import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.nio.ByteBuffer;
 
 public class Explosion {
     private double x, y;
@@ -16,7 +18,7 @@ public class Explosion {
     private boolean isFinished;
     private static BufferedImage[] explosionFrames;
     private static final int SPRITE_SIZE = 32; // ปรับขนาดตามต้องการ
-    private static final Logger logger = Logger.getLogger(Explosion.class.getName());
+    private static final Logger logger = LogManager.getLogger(Explosion.class);
 
     static {
         try {
@@ -27,7 +29,7 @@ public class Explosion {
                 explosionFrames[i] = spriteSheet.getSubimage(i * SPRITE_SIZE, 0, SPRITE_SIZE, SPRITE_SIZE);
             }
         } catch (IOException e) {
-            logger.log(Level.SEVERE, "Failed to load explosion sprite sheet", e);
+            logger.error("Failed to load explosion sprite sheet", e);
         }
     }
 
@@ -53,7 +55,12 @@ public class Explosion {
     }
 
     public void draw(Graphics2D g) {
-        if (isFinished || explosionFrames == null) return;
+        if (isFinished) return;
+        drawFrame(g, x, y, currentFrame);
+    }
+
+    static void drawFrame(Graphics2D g, double x, double y, int currentFrame) {
+        if (explosionFrames == null) return;
 
         BufferedImage currentSprite = explosionFrames[currentFrame];
         if (currentSprite != null) {
@@ -66,7 +73,24 @@ public class Explosion {
         }
     }
 
+    // Null once the animation is over
+    FrameSnapshot.Sprite snapshot() {
+        return isFinished ? null : new FrameSnapshot.ExplosionSprite(x, y, currentFrame);
+    }
+
     public boolean isFinished() {
         return isFinished;
     }
+
+    void saveState(ByteBuffer buffer) {
+        buffer.putDouble(x).putDouble(y).putInt(currentFrame).putInt(frameTimer).put((byte) (isFinished ? 1 : 0));
+    }
+
+    void loadState(ByteBuffer buffer) {
+        x = buffer.getDouble();
+        y = buffer.getDouble();
+        currentFrame = buffer.getInt();
+        frameTimer = buffer.getInt();
+        isFinished = buffer.get() != 0;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,213 @@
+package se.asteroid.model;
+
+import se.asteroid.util.FastMath;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Grid of distances to the nearest ship and the direction to head in from
+// every cell, for steering swarms. Enemies look up their cell instead of
+// each aiming at a ship, so a tick's steering costs the same for ten
+// enemies or ten thousand. The field only changes when a ship moves to
+// another cell, dies or respawns; update() checks that and rebuilds then.
+// Distances are octile, 2 passes of a chamfer transform over the grid, and
+// each cell also remembers which ship it leads to.
+public class FlowField {
+    // Cost of a straight and a diagonal step between cells
+    private static final int STRAIGHT = 10;
+    private static final int DIAGONAL = 14;
+    private static final int FAR = Integer.MAX_VALUE / 2;
+
+    private final int cellSize;
+    private final int columns;
+    private final int rows;
+    private final int[] distance;
+    private final int[] source;
+    private final float[] directionX;
+    private final float[] directionY;
+    private final float[] angle;
+
+    // The ships the field leads to and their cells, as of the last rebuild
+    private Ship[] ships = new Ship[4];
+    private int[] shipCells = new int[4];
+    private int shipCount;
+    private long rebuilds;
+
+    public FlowField(int width, int height, int cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+        this.columns = (width + cellSize - 1) / cellSize;
+        this.rows = (height + cellSize - 1) / cellSize;
+        int cells = columns * rows;
+        this.distance = new int[cells];
+        this.source = new int[cells];
+        this.directionX = new float[cells];
+        this.directionY = new float[cells];
+        this.angle = new float[cells];
+    }
+
+    // Leads to the ships World.nearestShip would pick from: every ship still
+    // flying, or the first pilot's when none is. Returns whether it rebuilt.
+    public boolean update(List<Pilot> pilots) {
+        boolean changed = false;
+        int count = 0;
+        for (Pilot pilot : pilots) {
+            if (pilot.ship == null || (pilot.exploding && pilots.size() > 1)) continue;
+            changed |= track(count++, pilot.ship);
+        }
+        if (count == 0 && !pilots.isEmpty() && pilots.get(0).ship != null) {
+            changed |= track(count++, pilots.get(0).ship);
+        }
+        if (count != shipCount) {
+            changed = true;
+            Arrays.fill(ships, count, Math.max(count, shipCount), null);
+            shipCount = count;
+        }
+        if (!changed) return false;
+        rebuild();
+        return true;
+    }
+
+    private boolean track(int index, Ship ship) {
+        if (index == ships.length) {
+            ships = Arrays.copyOf(ships, index * 2);
+            shipCells = Arrays.copyOf(shipCells, index * 2);
+        }
+        int cell = cellAt(ship.getX(), ship.getY());
+        if (index < shipCount && ships[index] == ship && shipCells[index] == cell) return false;
+        ships[index] = ship;
+        shipCells[index] = cell;
+        return true;
+    }
+
+    // Forces the next update() to rebuild, after the world was restored
+    public void invalidate() {
+        Arrays.fill(ships, null);
+        shipCount = 0;
+    }
+
+    private void rebuild() {
+        Arrays.fill(distance, FAR);
+        Arrays.fill(source, -1);
+        for (int i = shipCount - 1; i >= 0; i--) {
+            // The first ship wins a shared cell, like nearestShip
+            distance[shipCells[i]] = 0;
+            source[shipCells[i]] = i;
+        }
+
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                int cell = row * columns + column;
+                relax(cell, column - 1, row, STRAIGHT);
+                relax(cell, column - 1, row - 1, DIAGONAL);
+                relax(cell, column, row - 1, STRAIGHT);
+                relax(cell, column + 1, row - 1, DIAGONAL);
+            }
+        }
+        for (int row = rows - 1; row >= 0; row--) {
+            for (int column = columns - 1; column >= 0; column--) {
+                int cell = row * columns + column;
+                relax(cell, column + 1, row, STRAIGHT);
+                relax(cell, column + 1, row + 1, DIAGONAL);
+                relax(cell, column, row + 1, STRAIGHT);
+                relax(cell, column - 1, row + 1, DIAGONAL);
+            }
+        }
+
+        // Down the distance gradient, a ship's own cell has none
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                int cell = row * columns + column;
+                int own = distance[cell];
+                double dx = slope(column - 1, row, column + 1, row, own);
+                double dy = slope(column, row - 1, column, row + 1, own);
+                double length = Math.sqrt(dx * dx + dy * dy);
+                if (own == 0 || length == 0) {
+                    directionX[cell] = 0;
+                    directionY[cell] = 0;
+                    angle[cell] = Float.NaN;
+                } else {
+                    directionX[cell] = (float) (dx / length);
+                    directionY[cell] = (float) (dy / length);
+                    angle[cell] = (float) FastMath.atan2Deg(dy, dx);
+                }
+            }
+        }
+        rebuilds++;
+    }
+
+    private void relax(int cell, int column, int row, int cost) {
+        if (!inside(column, row)) return;
+        int from = row * columns + column;
+        int reached = distance[from] + cost;
+        if (reached < distance[cell]) {
+            distance[cell] = reached;
+            source[cell] = source[from];
+        }
+    }
+
+    // Drop in distance from the first neighbour to the second. On a border
+    // the missing neighbour continues the slope past the cell.
+    private double slope(int column1, int row1, int column2, int row2, int own) {
+        boolean in1 = inside(column1, row1);
+        boolean in2 = inside(column2, row2);
+        if (in1 && in2) return distance[row1 * columns + column1] - distance[row2 * columns + column2];
+        if (in1) return 2.0 * (distance[row1 * columns + column1] - own);
+        if (in2) return 2.0 * (own - distance[row2 * columns + column2]);
+        return 0;
+    }
+
+    private boolean inside(int column, int row) {
+        return column >= 0 && row >= 0 && column < columns && row < rows;
+    }
+
+    // Cell under a point, points off the grid are clamped to the border
+    public int cellAt(double x, double y) {
+        int column = Math.min(columns - 1, Math.max(0, (int) (x / cellSize)));
+        int row = Math.min(rows - 1, Math.max(0, (int) (y / cellSize)));
+        return row * columns + column;
+    }
+
+    // Unit vector to head in from a cell, 0 on a ship's cell
+    public float getDirectionX(int cell) {
+        return directionX[cell];
+    }
+
+    public float getDirectionY(int cell) {
+        return directionY[cell];
+    }
+
+    // Heading of the direction in degrees, NaN where there is none
+    public float getAngle(int cell) {
+        return angle[cell];
+    }
+
+    // Octile distance to the nearest ship, ten per cell
+    public int getDistance(int cell) {
+        return distance[cell];
+    }
+
+    // The ship a cell leads to, null before the first update
+    public Ship getTarget(int cell) {
+        int index = source[cell];
+        return index < 0 ? null : ships[index];
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    public long getRebuilds() {
+        return rebuilds;
+    }
+}
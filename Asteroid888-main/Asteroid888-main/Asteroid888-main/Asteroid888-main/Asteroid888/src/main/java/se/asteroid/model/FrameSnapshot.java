@@ -0,0 +1,230 @@
+package se.asteroid.model;
+
+import se.asteroid.util.IntRaster;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+// Immutable copy of everything a frame needs, taken by World at the end of a
+// tick. A renderer on another thread can draw it while the simulation moves
+// on. Sprites keep the position from the start of the tick so they can be
+// drawn in between. Images are the shared AssetCache instances.
+public final class FrameSnapshot {
+    public interface Sprite {
+        // alpha 0..1 blends from the previous position to the current one
+        void draw(Graphics2D g, double alpha);
+
+        // For the tiled compositor: g is clipped to the raster's band, and
+        // sprites that can write pixels directly do so instead of using g
+        default void draw(Graphics2D g, IntRaster raster, double alpha) {
+            draw(g, alpha);
+        }
+    }
+
+    private final long tick;
+    private final long createdNanos;
+    private final List<Sprite> sprites;
+    private final int score;
+    private final int lives;
+    private final boolean gameStarted;
+    private final boolean gameOver;
+    private final boolean gameSucceeded;
+    // Boss phase started and the boss is still alive
+    private final boolean bossBattle;
+    private final boolean bossDefeated;
+    private final boolean exploding;
+    private final int explosionTicks;
+    private final double playerX;
+    private final double playerY;
+
+    FrameSnapshot(long tick, List<Sprite> sprites, int score, int lives, boolean gameStarted, boolean gameOver,
+                  boolean gameSucceeded, boolean bossBattle, boolean bossDefeated, boolean exploding, int explosionTicks,
+                  double playerX, double playerY) {
+        this.tick = tick;
+        this.createdNanos = System.nanoTime();
+        this.sprites = List.copyOf(sprites);
+        this.score = score;
+        this.lives = lives;
+        this.gameStarted = gameStarted;
+        this.gameOver = gameOver;
+        this.gameSucceeded = gameSucceeded;
+        this.bossBattle = bossBattle;
+        this.bossDefeated = bossDefeated;
+        this.exploding = exploding;
+        this.explosionTicks = explosionTicks;
+        this.playerX = playerX;
+        this.playerY = playerY;
+    }
+
+    public void drawSprites(Graphics2D g, double alpha) {
+        for (Sprite sprite : sprites) {
+            sprite.draw(g, alpha);
+        }
+    }
+
+    public void drawSprites(Graphics2D g, IntRaster raster, double alpha) {
+        for (Sprite sprite : sprites) {
+            sprite.draw(g, raster, alpha);
+        }
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public long getCreatedNanos() {
+        return createdNanos;
+    }
+
+    public List<Sprite> getSprites() {
+        return sprites;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getLives() {
+        return lives;
+    }
+
+    public boolean isGameStarted() {
+        return gameStarted;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public boolean isGameSucceeded() {
+        return gameSucceeded;
+    }
+
+    public boolean isBossBattle() {
+        return bossBattle;
+    }
+
+    public boolean isBossDefeated() {
+        return bossDefeated;
+    }
+
+    public boolean isExploding() {
+        return exploding;
+    }
+
+    public int getExplosionTicks() {
+        return explosionTicks;
+    }
+
+    public double getPlayerX() {
+        return playerX;
+    }
+
+    public double getPlayerY() {
+        return playerY;
+    }
+
+    // Position between two ticks. Jumps longer than the limit (screen wrap,
+    // respawn) are not blended.
+    static double blend(double previous, double current, double alpha, double limit) {
+        if (Math.abs(current - previous) >= limit) return current;
+        return previous + (current - previous) * alpha;
+    }
+
+    static double blendX(double previous, double current, double alpha) {
+        return blend(previous, current, alpha, World.WIDTH / 2.0);
+    }
+
+    static double blendY(double previous, double current, double alpha) {
+        return blend(previous, current, alpha, World.HEIGHT / 2.0);
+    }
+
+    record AsteroidSprite(BufferedImage image, boolean large, double previousX, double previousY,
+                          double x, double y, double rotationAngle, int health, int maxHealth) implements Sprite {
+        @Override
+        public void draw(Graphics2D g, double alpha) {
+            draw(g, null, alpha);
+        }
+
+        @Override
+        public void draw(Graphics2D g, IntRaster raster, double alpha) {
+            Asteroid.drawAsteroid(g, raster, image, large, blendX(previousX, x, alpha), blendY(previousY, y, alpha),
+                    rotationAngle, health, maxHealth);
+        }
+    }
+
+    record RegularEnemySprite(BufferedImage image, double previousX, double previousY, double x, double y,
+                              double angle, int health, int maxHealth) implements Sprite {
+        @Override
+        public void draw(Graphics2D g, double alpha) {
+            draw(g, null, alpha);
+        }
+
+        @Override
+        public void draw(Graphics2D g, IntRaster raster, double alpha) {
+            RegularEnemy.drawEnemy(g, raster, image, blendX(previousX, x, alpha), blendY(previousY, y, alpha),
+                    angle, health, maxHealth);
+        }
+    }
+
+    record SecondTierSprite(BufferedImage image, double previousX, double previousY, double x, double y,
+                            double angle, int health, int maxHealth) implements Sprite {
+        @Override
+        public void draw(Graphics2D g, double alpha) {
+            draw(g, null, alpha);
+        }
+
+        @Override
+        public void draw(Graphics2D g, IntRaster raster, double alpha) {
+            SecondTier.drawEnemy(g, raster, image, blendX(previousX, x, alpha), blendY(previousY, y, alpha),
+                    angle, health, maxHealth);
+        }
+    }
+
+    record ShipSprite(BufferedImage[][] sprites, double previousX, double previousY, double x, double y,
+                      double angle, int row, int frame, int gunflashFrame, boolean invincible,
+                      int invincibleTicks, float shieldAngle) implements Sprite {
+        @Override
+        public void draw(Graphics2D g, double alpha) {
+            Ship.drawShip(g, sprites, blendX(previousX, x, alpha), blendY(previousY, y, alpha), angle,
+                    row, frame, gunflashFrame, invincible, invincibleTicks, shieldAngle);
+        }
+    }
+
+    record BossSprite(BufferedImage[][] sprites, double previousX, double previousY, double x, double y,
+                      double angle, int frame, int health) implements Sprite {
+        @Override
+        public void draw(Graphics2D g, double alpha) {
+            draw(g, null, alpha);
+        }
+
+        @Override
+        public void draw(Graphics2D g, IntRaster raster, double alpha) {
+            Boss.drawBoss(g, raster, sprites, blendX(previousX, x, alpha), blendY(previousY, y, alpha),
+                    angle, frame, health);
+        }
+    }
+
+    record ExplosionSprite(double x, double y, int frame) implements Sprite {
+        @Override
+        public void draw(Graphics2D g, double alpha) {
+            Explosion.drawFrame(g, x, y, frame);
+        }
+    }
+
+    // Columns copied out of a ProjectileBuffer, drawn at their ticked position
+    record ProjectileSprites(double[] x, double[] y, float[] angle, byte[] kind) implements Sprite {
+        @Override
+        public void draw(Graphics2D g, double alpha) {
+            for (int i = 0; i < x.length; i++) {
+                ProjectileBuffer.draw(g, x[i], y[i], angle[i], kind[i]);
+            }
+        }
+
+        @Override
+        public void draw(Graphics2D g, IntRaster raster, double alpha) {
+            ProjectileBuffer.stamp(g, raster, x, y, angle, kind);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package se.asteroid.model;
+
+import java.awt.*;
+
+// Mutable axis aligned box. Entities own one and refresh it in place when they
+// move, so collision tests compare primitives instead of allocating Rectangles.
+// Overlap follows Rectangle.intersects: touching edges do not collide.
+public class Hitbox {
+    private double minX;
+    private double minY;
+    private double maxX;
+    private double maxY;
+
+    public void set(double x, double y, double width, double height) {
+        minX = x;
+        minY = y;
+        maxX = x + width;
+        maxY = y + height;
+    }
+
+    public boolean intersects(Hitbox other) {
+        return intersects(other.minX, other.minY, other.maxX, other.maxY);
+    }
+
+    public boolean intersects(double otherMinX, double otherMinY, double otherMaxX, double otherMaxY) {
+        return minX < maxX && minY < maxY
+                && otherMinX < otherMaxX && otherMinY < otherMaxY
+                && minX < otherMaxX && otherMinX < maxX
+                && minY < otherMaxY && otherMinY < maxY;
+    }
+
+    public double getMinX() {
+        return minX;
+    }
+
+    public double getMinY() {
+        return minY;
+    }
+
+    public double getMaxX() {
+        return maxX;
+    }
+
+    public double getMaxY() {
+        return maxY;
+    }
+
+    public double getWidth() {
+        return maxX - minX;
+    }
+
+    public double getHeight() {
+        return maxY - minY;
+    }
+
+    public Rectangle toRectangle() {
+        return new Rectangle((int) minX, (int) minY, (int) (maxX - minX), (int) (maxY - minY));
+    }
+}
@@ -1,12 +1,7 @@
 package se.asteroid.model;
 
-
-import javax.imageio.ImageIO;
 import java.awt.*;
-import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
-import java.io.IOException;
-import java.util.logging.Level;
 
 public class Missile extends Projectile {
     private Character target; // The target enemy the missile will track.
@@ -15,17 +10,23 @@ public class Missile extends Projectile {
     // Define the size specifically for Missile
     private static final int SPRITE_WIDTH = 48;
     private static final int SPRITE_HEIGHT = 48;
+    // Missiles leave the ship at this angle and then home in at SPEED
+    static final double LAUNCH_ANGLE = 10;
+    static final double SPEED = 5;
 
     static {
-        try {
-            missileSprite = ImageIO.read(Missile.class.getResource("/assets/missile.PNG"));
-        } catch (IOException e) {
-            logger.log(Level.SEVERE, "Failed to load missile sprite", e);
+        missileSprite = AssetCache.getScaled("/assets/missile.PNG", SPRITE_WIDTH, SPRITE_HEIGHT);
+        if (missileSprite == null) {
+            logger.error("Failed to load missile sprite");
         }
     }
 
+    static BufferedImage getMissileSprite() {
+        return missileSprite;
+    }
+
     public Missile(double x, double y, Character target) {
-        super(x, y, 10);
+        super(x, y, LAUNCH_ANGLE);
         this.target = target;
     }
 
@@ -43,9 +44,8 @@ public class Missile extends Projectile {
         double distance = Math.sqrt(deltaX * deltaX + deltaY * deltaY);
 
         // Normalize the direction
-        double speed = 5; // Set missile speed
-        this.velocityX = (deltaX / distance) * speed;
-        this.velocityY = (deltaY / distance) * speed;
+        this.velocityX = (deltaX / distance) * SPEED;
+        this.velocityY = (deltaY / distance) * SPEED;
 
         // Move missile
         this.x += velocityX;
@@ -59,23 +59,24 @@ public class Missile extends Projectile {
 
     @Override
     public void draw(Graphics2D g) {
-        if (missileSprite == null) {
-            super.draw(g);
-            return;
-        }
+        drawMissile(g, x, y);
+    }
 
-        AffineTransform oldTransform = g.getTransform();
+    static int missileLeft(double x) {
+        return (int) Math.round(x) - SPRITE_WIDTH / 2;
+    }
 
-        g.translate(x, y);
-        g.rotate(Math.toRadians(0)); // Adjust angle if needed
+    static int missileTop(double y) {
+        return (int) Math.round(y) - SPRITE_HEIGHT / 2;
+    }
 
-        g.drawImage(missileSprite,
-                -SPRITE_WIDTH / 2,
-                -SPRITE_HEIGHT / 2,
-                SPRITE_WIDTH,
-                SPRITE_HEIGHT,
-                null);
+    static void drawMissile(Graphics2D g, double x, double y) {
+        if (missileSprite == null) {
+            drawBullet(g, x, y, LAUNCH_ANGLE);
+            return;
+        }
 
-        g.setTransform(oldTransform);
+        // Missiles are drawn unrotated, so a plain blit at the sprite's size
+        g.drawImage(missileSprite, missileLeft(x), missileTop(y), null);
     }
 }
@@ -0,0 +1,103 @@
+package se.asteroid.model;
+
+import java.nio.ByteBuffer;
+
+// One ship in a World and the state that follows it across respawns: its
+// missile bursts, its explosion and the input it is stepped with. A world
+// always has at least one, the single player game only ever has the one.
+// The slot is fixed for the pilot's life and picks its spawn point.
+public class Pilot {
+    private static final double CENTER_X = World.WIDTH / 2.0;
+    private static final double CENTER_Y = World.HEIGHT / 2.0;
+    // Slots after the first spawn on a ring around the centre
+    private static final int RING_SLOTS = 8;
+    private static final double RING_RADIUS = 150;
+
+    private int slot;
+    private final PlayerInput input = new PlayerInput();
+    Ship ship;
+    boolean exploding;
+    int explosionTicks;
+    // Pending missile bursts: missiles left and ticks until the next one
+    final int[] burstMissilesLeft;
+    final int[] burstCountdown;
+
+    Pilot(int slot, int maxBursts) {
+        this.slot = slot;
+        burstMissilesLeft = new int[maxBursts];
+        burstCountdown = new int[maxBursts];
+    }
+
+    // A fresh invincible ship on this pilot's spawn point
+    void spawn() {
+        ship = new Ship(spawnX(), spawnY());
+        ship.setInvincible(true);
+        exploding = false;
+        explosionTicks = 0;
+    }
+
+    void clearBursts() {
+        for (int i = 0; i < burstMissilesLeft.length; i++) {
+            burstMissilesLeft[i] = 0;
+        }
+    }
+
+    private double spawnX() {
+        if (slot == 0) return CENTER_X;
+        return CENTER_X + RING_RADIUS * Math.cos(2 * Math.PI * ((slot - 1) % RING_SLOTS) / RING_SLOTS);
+    }
+
+    private double spawnY() {
+        if (slot == 0) return CENTER_Y;
+        return CENTER_Y + RING_RADIUS * Math.sin(2 * Math.PI * ((slot - 1) % RING_SLOTS) / RING_SLOTS);
+    }
+
+    void saveState(ByteBuffer buffer) {
+        buffer.putShort((short) slot)
+                .put((byte) ((ship != null ? 1 : 0) | (exploding ? 2 : 0)))
+                .putInt(explosionTicks);
+        for (int i = 0; i < burstMissilesLeft.length; i++) {
+            buffer.putInt(burstMissilesLeft[i]).putInt(burstCountdown[i]);
+        }
+        if (ship != null) ship.saveState(buffer);
+    }
+
+    void loadState(ByteBuffer buffer) {
+        slot = buffer.getShort();
+        int flags = buffer.get();
+        exploding = (flags & 2) != 0;
+        explosionTicks = buffer.getInt();
+        for (int i = 0; i < burstMissilesLeft.length; i++) {
+            burstMissilesLeft[i] = buffer.getInt();
+            burstCountdown[i] = buffer.getInt();
+        }
+        if ((flags & 1) != 0) {
+            if (ship == null) ship = new Ship(spawnX(), spawnY());
+            ship.loadState(buffer);
+        } else {
+            ship = null;
+        }
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    // The input World.step() uses for this pilot, owned by whoever drives it
+    public PlayerInput getInput() {
+        return input;
+    }
+
+    // Null until the world starts
+    public Ship getShip() {
+        return ship;
+    }
+
+    public boolean isExploding() {
+        return exploding;
+    }
+
+    public int getExplosionTicks() {
+        return explosionTicks;
+    }
+}
@@ -0,0 +1,105 @@
+package se.asteroid.model;
+
+// Input for one simulation tick: keys that are held down plus the discrete
+// presses (shots, missile bursts, mouse rotations) that arrived since the last tick.
+public class PlayerInput {
+    private boolean up;
+    private boolean down;
+    private boolean left;
+    private boolean right;
+    private int shots;
+    private int missileBursts;
+    private int rotateLeft;
+    private int rotateRight;
+
+    public boolean isUp() {
+        return up;
+    }
+
+    public void setUp(boolean up) {
+        this.up = up;
+    }
+
+    public boolean isDown() {
+        return down;
+    }
+
+    public void setDown(boolean down) {
+        this.down = down;
+    }
+
+    public boolean isLeft() {
+        return left;
+    }
+
+    public void setLeft(boolean left) {
+        this.left = left;
+    }
+
+    public boolean isRight() {
+        return right;
+    }
+
+    public void setRight(boolean right) {
+        this.right = right;
+    }
+
+    public int getShots() {
+        return shots;
+    }
+
+    public void addShot() {
+        shots++;
+    }
+
+    public int getMissileBursts() {
+        return missileBursts;
+    }
+
+    public void addMissileBurst() {
+        missileBursts++;
+    }
+
+    public int getRotateLeft() {
+        return rotateLeft;
+    }
+
+    public void addRotateLeft() {
+        rotateLeft++;
+    }
+
+    public int getRotateRight() {
+        return rotateRight;
+    }
+
+    public void addRotateRight() {
+        rotateRight++;
+    }
+
+    // Drop the one-shot presses once a tick has consumed them, held keys stay
+    public void clearPresses() {
+        shots = 0;
+        missileBursts = 0;
+        rotateLeft = 0;
+        rotateRight = 0;
+    }
+
+    public void clear() {
+        up = false;
+        down = false;
+        left = false;
+        right = false;
+        clearPresses();
+    }
+
+    public void copyFrom(PlayerInput other) {
+        up = other.up;
+        down = other.down;
+        left = other.left;
+        right = other.right;
+        shots = other.shots;
+        missileBursts = other.missileBursts;
+        rotateLeft = other.rotateLeft;
+        rotateRight = other.rotateRight;
+    }
+}
@@ -1,13 +1,11 @@
 package se.asteroid.model;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import se.asteroid.util.FastMath;
+
 import java.awt.*;
-import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
-import javax.imageio.ImageIO;
-import java.io.IOException;
-import java.net.URL;
-import java.util.logging.Logger;
-import java.util.logging.Level;
 
 public class Projectile {
     double x;
@@ -17,35 +15,68 @@ public class Projectile {
     double velocityY;
     private double speed = 4;
 
-    // Static bullet sprite
+    // Static bullet sprite, already at its drawn size
     private static BufferedImage bulletSprite;
     private static final int SPRITE_WIDTH = 48;
     private static final int SPRITE_HEIGHT = 24;
-    static final Logger logger = Logger.getLogger(Projectile.class.getName());
+    // -Dasteroid.bullets=dots draws bullets as small dots instead of sprites,
+    // for bullet hell phases on slow machines
+    static final boolean DOTS = "dots".equalsIgnoreCase(System.getProperty("asteroid.bullets"));
+    static final int DOT_SIZE = 5;
+    // Premultiplied anti-aliased blue dot, stamped by the tiled compositor
+    static final int[] DOT_PIXELS = dotPixels(DOT_SIZE, Color.BLUE);
+    static final int HITBOX_WIDTH = SPRITE_WIDTH - 8;
+    static final int HITBOX_HEIGHT = SPRITE_HEIGHT - 4;
+    static final Logger logger = LogManager.getLogger(Projectile.class);
 
     public static void setBulletSprite(BufferedImage bulletSprite) {
-        Projectile.bulletSprite = bulletSprite;
+        Projectile.bulletSprite = bulletSprite == null ? null
+                : AssetCache.scale(bulletSprite, SPRITE_WIDTH, SPRITE_HEIGHT);
     }
 
     static {
-        URL resourceUrl = Projectile.class.getResource("/assets/bullet.PNG");
-        if (resourceUrl == null) {
-            logger.log(Level.SEVERE, "Resource /assets/bullet.png not found!");
-        } else {
-            try {
-                bulletSprite = ImageIO.read(resourceUrl);
-            } catch (IOException e) {
-                logger.log(Level.SEVERE, "Failed to load bullet sprite", e);
+        bulletSprite = AssetCache.getScaled("/assets/bullet.PNG", SPRITE_WIDTH, SPRITE_HEIGHT);
+        if (bulletSprite == null) {
+            logger.error("Resource /assets/bullet.png not found!");
+        }
+    }
+
+    static BufferedImage getBulletSprite() {
+        return bulletSprite;
+    }
+
+    // Coverage of a disc sampled 4x4 per pixel, premultiplied with color
+    private static int[] dotPixels(int size, Color color) {
+        int[] pixels = new int[size * size];
+        double radius = size / 2.0;
+        for (int py = 0; py < size; py++) {
+            for (int px = 0; px < size; px++) {
+                int inside = 0;
+                for (int sy = 0; sy < 4; sy++) {
+                    for (int sx = 0; sx < 4; sx++) {
+                        double dx = px + (sx + 0.5) / 4 - radius;
+                        double dy = py + (sy + 0.5) / 4 - radius;
+                        if (dx * dx + dy * dy <= radius * radius) inside++;
+                    }
+                }
+                int alpha = inside * 255 / 16;
+                pixels[py * size + px] = (alpha << 24) | ((color.getRed() * alpha / 255) << 16)
+                        | ((color.getGreen() * alpha / 255) << 8) | (color.getBlue() * alpha / 255);
             }
         }
+        return pixels;
+    }
+
+    // Used by ProjectileBuffer views, which keep their state in the buffer
+    Projectile() {
     }
 
     public Projectile(double x, double y, double angle) {
         this.x = x;
         this.y = y;
         this.angle = angle;
-        this.velocityX = speed * Math.cos(Math.toRadians(angle));
-        this.velocityY = speed * Math.sin(Math.toRadians(angle));
+        this.velocityX = speed * FastMath.cosDeg(angle);
+        this.velocityY = speed * FastMath.sinDeg(angle);
     }
 
     public void setVelocity(double velocityX, double velocityY) {
@@ -78,38 +109,41 @@ public class Projectile {
         return y;
     }
 
+    public double getAngle() {
+        return angle;
+    }
+
     public void draw(Graphics2D g) {
-        if (bulletSprite == null) {
+        drawBullet(g, x, y, angle);
+    }
+
+    static void drawBullet(Graphics2D g, double x, double y, double angle) {
+        if (bulletSprite == null || DOTS) {
             //Fallback if no image loaded
             g.setColor(Color.BLUE);
             g.fillOval((int) x - 2, (int) y - 2, 4, 4);
             return;
         }
 
-        AffineTransform oldTransform = g.getTransform();
-
-        g.translate(x, y);
-        g.rotate(Math.toRadians(angle));
+        // Pre-rotated copy, no transform to save and restore per bullet
+        RotationCache.draw(g, bulletSprite, angle, x, y);
+    }
 
-        // Draw from current position
-        g.drawImage(bulletSprite,
-                -SPRITE_WIDTH/2,
-                -SPRITE_HEIGHT/2,
-                SPRITE_WIDTH,
-                SPRITE_HEIGHT,
-                null);
+    public Rectangle getBounds() {
+        return bounds(x, y);
+    }
 
-        g.setTransform(oldTransform);
+    // Writes the hitbox of a projectile centred on x, y into out
+    static void hitbox(double x, double y, Hitbox out) {
+        out.set((int) x - HITBOX_WIDTH/2, (int) y - HITBOX_HEIGHT/2, HITBOX_WIDTH, HITBOX_HEIGHT);
     }
 
-    public Rectangle getBounds() {
-        int hitboxWidth = SPRITE_WIDTH - 8;
-        int hitboxHeight = SPRITE_HEIGHT - 4;
+    static Rectangle bounds(double x, double y) {
         return new Rectangle(
-                (int) x - hitboxWidth/2,
-                (int) y - hitboxHeight/2,
-                hitboxWidth,
-                hitboxHeight
+                (int) x - HITBOX_WIDTH/2,
+                (int) y - HITBOX_HEIGHT/2,
+                HITBOX_WIDTH,
+                HITBOX_HEIGHT
         );
     }
 }
\ No newline at end of file
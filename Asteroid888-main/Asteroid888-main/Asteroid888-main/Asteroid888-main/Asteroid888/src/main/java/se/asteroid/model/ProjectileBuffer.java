@@ -0,0 +1,445 @@
+package se.asteroid.model;
+
+import se.asteroid.util.FastMath;
+import se.asteroid.util.IntRaster;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+// Live projectiles stored as parallel primitive columns instead of one object
+// per bullet. Removal swaps the last slot into the hole, so order is not kept.
+// The columns act as the projectile pool: a despawned slot is reused by the
+// next shot and only a full buffer allocates. Both are counted into the
+// owning world's ProjectilePoolStats once the world has seen the buffer.
+public class ProjectileBuffer {
+    public static final byte KIND_BULLET = 0;
+    public static final byte KIND_MISSILE = 1;
+
+    public static final byte OWNER_PLAYER = 0;
+    public static final byte OWNER_REGULAR_ENEMY = 1;
+    public static final byte OWNER_SECOND_TIER = 2;
+    public static final byte OWNER_BOSS = 3;
+
+    // Same as Projectile, bullets fired without an explicit velocity use this speed
+    private static final double DEFAULT_SPEED = 4;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final byte owner;
+    private double[] x;
+    private double[] y;
+    private double[] velocityX;
+    private double[] velocityY;
+    private float[] angle;
+    private byte[] kind;
+    // Homing target per slot, only set for missiles
+    private Character[] target;
+    private int size;
+
+    // Counts on its own until a world adopts it, see setPoolStats()
+    private ProjectilePoolStats poolStats = new ProjectilePoolStats();
+
+    private final List<Projectile> view = new ListView();
+    // One view per slot index, created on first use
+    private Slot[] slots = new Slot[0];
+
+    public ProjectileBuffer(byte owner) {
+        this.owner = owner;
+        x = new double[INITIAL_CAPACITY];
+        y = new double[INITIAL_CAPACITY];
+        velocityX = new double[INITIAL_CAPACITY];
+        velocityY = new double[INITIAL_CAPACITY];
+        angle = new float[INITIAL_CAPACITY];
+        kind = new byte[INITIAL_CAPACITY];
+        target = new Character[INITIAL_CAPACITY];
+    }
+
+    public int add(double x, double y, double angle) {
+        return add(x, y, angle, DEFAULT_SPEED * FastMath.cosDeg(angle), DEFAULT_SPEED * FastMath.sinDeg(angle));
+    }
+
+    public int add(double x, double y, double angle, double velocityX, double velocityY) {
+        if (size == this.x.length) {
+            grow();
+            poolStats.miss();
+        } else {
+            poolStats.hit();
+        }
+        int i = size++;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.velocityX[i] = velocityX;
+        this.velocityY[i] = velocityY;
+        this.angle[i] = (float) angle;
+        this.kind[i] = KIND_BULLET;
+        this.target[i] = null;
+        return i;
+    }
+
+    int addMissile(double x, double y, Character target) {
+        int i = add(x, y, Missile.LAUNCH_ANGLE);
+        this.kind[i] = KIND_MISSILE;
+        this.target[i] = target;
+        return i;
+    }
+
+    private void grow() {
+        int capacity = x.length * 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        velocityX = Arrays.copyOf(velocityX, capacity);
+        velocityY = Arrays.copyOf(velocityY, capacity);
+        angle = Arrays.copyOf(angle, capacity);
+        kind = Arrays.copyOf(kind, capacity);
+        target = Arrays.copyOf(target, capacity);
+    }
+
+    public void remove(int i) {
+        int last = --size;
+        if (i != last) {
+            x[i] = x[last];
+            y[i] = y[last];
+            velocityX[i] = velocityX[last];
+            velocityY[i] = velocityY[last];
+            angle[i] = angle[last];
+            kind[i] = kind[last];
+            target[i] = target[last];
+        }
+        target[last] = null;
+    }
+
+    // Live slots for World.save, missile targets as references into the world
+    void saveState(ByteBuffer buffer, World world) {
+        buffer.putInt(size);
+        for (int i = 0; i < size; i++) {
+            buffer.putDouble(x[i]).putDouble(y[i]).putDouble(velocityX[i]).putDouble(velocityY[i])
+                    .putFloat(angle[i]).put(kind[i]).putInt(world.targetRef(target[i]));
+        }
+    }
+
+    // Overwrites the slots in place, the columns only grow if the saved
+    // buffer held more projectiles than this one has room for
+    void loadState(ByteBuffer buffer, World world) {
+        int count = buffer.getInt();
+        while (x.length < count) {
+            grow();
+        }
+        for (int i = 0; i < count; i++) {
+            x[i] = buffer.getDouble();
+            y[i] = buffer.getDouble();
+            velocityX[i] = buffer.getDouble();
+            velocityY[i] = buffer.getDouble();
+            angle[i] = buffer.getFloat();
+            kind[i] = buffer.get();
+            target[i] = world.resolveTarget(buffer.getInt());
+        }
+        Arrays.fill(target, count, Math.max(count, size), null);
+        size = count;
+    }
+
+    public void clear() {
+        Arrays.fill(target, 0, size, null);
+        size = 0;
+    }
+
+    // Moves one projectile a tick, missiles steer towards a live target
+    public void update(int i) {
+        if (kind[i] == KIND_MISSILE) {
+            Character t = target[i];
+            if (t != null && t.isAlive()) {
+                double deltaX = t.getX() - x[i];
+                double deltaY = t.getY() - y[i];
+                double distance = Math.sqrt(deltaX * deltaX + deltaY * deltaY);
+                velocityX[i] = (deltaX / distance) * Missile.SPEED;
+                velocityY[i] = (deltaY / distance) * Missile.SPEED;
+            }
+        }
+        x[i] += velocityX[i];
+        y[i] += velocityY[i];
+    }
+
+    public void update() {
+        for (int i = 0; i < size; i++) {
+            update(i);
+        }
+    }
+
+    // Moves every projectile and drops the ones that left the field
+    public void updateAndRemoveOffScreen(int width, int height) {
+        for (int i = size - 1; i >= 0; i--) {
+            update(i);
+            if (isOffScreen(i, width, height)) {
+                remove(i);
+            }
+        }
+    }
+
+    public void removeOffScreen(int width, int height) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (isOffScreen(i, width, height)) {
+                remove(i);
+            }
+        }
+    }
+
+    public boolean isOffScreen(int i, int width, int height) {
+        double px = x[i];
+        double py = y[i];
+        return px < 0 || px > width || py < 0 || py > height;
+    }
+
+    // Index of the first projectile whose hitbox overlaps the box, or -1
+    public int findIntersecting(Hitbox box) {
+        double minX = box.getMinX();
+        double minY = box.getMinY();
+        double maxX = box.getMaxX();
+        double maxY = box.getMaxY();
+        if (maxX <= minX || maxY <= minY) return -1;
+        for (int i = 0; i < size; i++) {
+            int left = (int) x[i] - Projectile.HITBOX_WIDTH / 2;
+            int top = (int) y[i] - Projectile.HITBOX_HEIGHT / 2;
+            if (left < maxX && minX < left + Projectile.HITBOX_WIDTH
+                    && top < maxY && minY < top + Projectile.HITBOX_HEIGHT) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public void draw(Graphics2D g) {
+        for (int i = 0; i < size; i++) {
+            draw(g, i);
+        }
+    }
+
+    public void draw(Graphics2D g, int i) {
+        draw(g, x[i], y[i], angle[i], kind[i]);
+    }
+
+    static void draw(Graphics2D g, double x, double y, float angle, byte kind) {
+        if (kind == KIND_MISSILE) {
+            Missile.drawMissile(g, x, y);
+        } else {
+            Projectile.drawBullet(g, x, y, angle);
+        }
+    }
+
+    // Stamps a batch of projectiles straight into the raster in one pass:
+    // pre-rotated bullet sprites, unrotated missiles, or anti-aliased dots in
+    // dot mode. Sprite pixels are looked up once per run of equal angles
+    // rather than per bullet, and projectiles outside the raster's band are
+    // skipped before any lookup. Without a raster, or with the rotation cache
+    // off, it draws through Graphics2D as before.
+    static void stamp(Graphics2D g, IntRaster raster, double[] x, double[] y, float[] angle, byte[] kind) {
+        int count = x.length;
+        if (raster == null || RotationCache.getBuckets() == 0) {
+            for (int i = 0; i < count; i++) {
+                draw(g, x[i], y[i], angle[i], kind[i]);
+            }
+            return;
+        }
+
+        BufferedImage bullet = Projectile.DOTS ? null : Projectile.getBulletSprite();
+        BufferedImage missile = Missile.getMissileSprite();
+        int[] missilePixels = missile != null ? IntRaster.pixelsOf(missile) : null;
+        int minY = raster.getMinY();
+        int maxY = raster.getMaxY();
+
+        BufferedImage lastRotated = null;
+        int[] lastPixels = null;
+        for (int i = 0; i < count; i++) {
+            if (kind[i] == KIND_MISSILE) {
+                if (missilePixels == null) {
+                    // Missiles without a sprite fall back to a bullet at launch angle
+                    draw(g, x[i], y[i], angle[i], kind[i]);
+                    continue;
+                }
+                int top = Missile.missileTop(y[i]);
+                if (top >= maxY || top + missile.getHeight() <= minY) continue;
+                raster.blit(missilePixels, missile.getWidth(), missile.getHeight(), Missile.missileLeft(x[i]), top);
+            } else if (bullet == null) {
+                int left = (int) Math.round(x[i]) - Projectile.DOT_SIZE / 2;
+                int top = (int) Math.round(y[i]) - Projectile.DOT_SIZE / 2;
+                if (top >= maxY || top + Projectile.DOT_SIZE <= minY) continue;
+                raster.blit(Projectile.DOT_PIXELS, Projectile.DOT_SIZE, Projectile.DOT_SIZE, left, top);
+            } else {
+                BufferedImage rotated = RotationCache.get(bullet, angle[i]);
+                int size = rotated.getWidth();
+                int top = (int) Math.round(y[i] - size / 2.0);
+                if (top >= maxY || top + size <= minY) continue;
+                if (rotated != lastRotated) {
+                    lastRotated = rotated;
+                    lastPixels = IntRaster.pixelsOf(rotated);
+                }
+                raster.blit(lastPixels, size, size, (int) Math.round(x[i] - size / 2.0), top);
+            }
+        }
+    }
+
+    // Copies the live slots so a renderer can draw them on another thread
+    FrameSnapshot.Sprite snapshot() {
+        return new FrameSnapshot.ProjectileSprites(Arrays.copyOf(x, size), Arrays.copyOf(y, size),
+                Arrays.copyOf(angle, size), Arrays.copyOf(kind, size));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte getOwner() {
+        return owner;
+    }
+
+    public double getX(int i) {
+        return x[i];
+    }
+
+    public double getY(int i) {
+        return y[i];
+    }
+
+    public double getVelocityX(int i) {
+        return velocityX[i];
+    }
+
+    public double getVelocityY(int i) {
+        return velocityY[i];
+    }
+
+    public float getAngle(int i) {
+        return angle[i];
+    }
+
+    public byte getKind(int i) {
+        return kind[i];
+    }
+
+    public ProjectilePoolStats getPoolStats() {
+        return poolStats;
+    }
+
+    // Reports into shared counters from now on, carrying over what was
+    // counted before
+    void setPoolStats(ProjectilePoolStats stats) {
+        if (stats == poolStats) return;
+        stats.add(poolStats);
+        poolStats = stats;
+    }
+
+    public void setVelocity(int i, double velocityX, double velocityY) {
+        this.velocityX[i] = velocityX;
+        this.velocityY[i] = velocityY;
+    }
+
+    // List view for callers that still work with Projectile objects. Elements
+    // read and write the slot they were fetched from and go stale after a removal.
+    // Compatibility only: get() reuses one view per index, but remove() hands
+    // back a detached copy and allocates, hot paths use remove(int) above.
+    public List<Projectile> asList() {
+        return view;
+    }
+
+    private class ListView extends AbstractList<Projectile> {
+        @Override
+        public Projectile get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            // A view only ever reads its own index, so one per index is enough
+            if (index >= slots.length) {
+                slots = Arrays.copyOf(slots, x.length);
+            }
+            Slot slot = slots[index];
+            if (slot == null) {
+                slot = new Slot(index);
+                slots[index] = slot;
+            }
+            return slot;
+        }
+
+        // The List contract returns the element, which outlives its slot,
+        // so this is the one call on the view that allocates
+        @Override
+        public Projectile remove(int index) {
+            Projectile removed = new Projectile(x[index], y[index], angle[index]);
+            removed.setVelocity(velocityX[index], velocityY[index]);
+            ProjectileBuffer.this.remove(index);
+            modCount++;
+            return removed;
+        }
+
+        @Override
+        public void clear() {
+            ProjectileBuffer.this.clear();
+            modCount++;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    // Projectile's own fields are unused here and shadow the columns, hence
+    // the qualified ProjectileBuffer.this access
+    private class Slot extends Projectile {
+        private final int index;
+
+        Slot(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void setVelocity(double velocityX, double velocityY) {
+            ProjectileBuffer.this.setVelocity(index, velocityX, velocityY);
+        }
+
+        @Override
+        public void update() {
+            ProjectileBuffer.this.update(index);
+        }
+
+        @Override
+        public double getVelocityY() {
+            return ProjectileBuffer.this.velocityY[index];
+        }
+
+        @Override
+        public double getVelocityX() {
+            return ProjectileBuffer.this.velocityX[index];
+        }
+
+        @Override
+        public boolean isOffScreen(int width, int height) {
+            return ProjectileBuffer.this.isOffScreen(index, width, height);
+        }
+
+        @Override
+        public double getX() {
+            return ProjectileBuffer.this.x[index];
+        }
+
+        @Override
+        public double getY() {
+            return ProjectileBuffer.this.y[index];
+        }
+
+        @Override
+        public double getAngle() {
+            return ProjectileBuffer.this.angle[index];
+        }
+
+        @Override
+        public void draw(Graphics2D g) {
+            ProjectileBuffer.this.draw(g, index);
+        }
+
+        @Override
+        public Rectangle getBounds() {
+            return Projectile.bounds(ProjectileBuffer.this.x[index], ProjectileBuffer.this.y[index]);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package se.asteroid.model;
+
+// Projectile pool counters for a whole world. Every ProjectileBuffer the
+// world steps reports its shots here, so the counts outlive the shooters
+// and survive start(). The peak is the most projectiles live at the end of
+// any one tick, summed over all buffers at the same moment.
+public final class ProjectilePoolStats {
+    private long hits;
+    private long misses;
+    private int live;
+    private int peak;
+
+    // A shot that reused a free slot
+    void hit() {
+        hits++;
+    }
+
+    // A shot that had to grow its buffer's columns
+    void miss() {
+        misses++;
+    }
+
+    void add(ProjectilePoolStats other) {
+        hits += other.hits;
+        misses += other.misses;
+    }
+
+    // Live projectiles over every buffer at the end of a tick
+    void sample(int live) {
+        this.live = live;
+        if (live > peak) {
+            peak = live;
+        }
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public int getLive() {
+        return live;
+    }
+
+    public int getPeak() {
+        return peak;
+    }
+
+    public void reset() {
+        hits = 0;
+        misses = 0;
+        peak = live;
+    }
+
+    @Override
+    public String toString() {
+        return "Projectile pool: " + hits + " hits, " + misses + " misses, " + live + " live, peak " + peak;
+    }
+}
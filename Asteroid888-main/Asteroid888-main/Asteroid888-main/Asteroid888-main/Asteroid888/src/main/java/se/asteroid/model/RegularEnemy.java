@@ -1,44 +1,52 @@
 package se.asteroid.model;
 
-import javax.swing.*;
+import se.asteroid.util.FastMath;
+import se.asteroid.util.IntRaster;
+
 import java.awt.*;
-import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 public class RegularEnemy extends Character {
     private static final int SHOOT_COOLDOWN = 120;
     private int currentCooldown = 0;
-    private List<Projectile> projectiles;
+    private ProjectileBuffer projectiles;
     private Ship target;
     private int maxHealth;
+    private final RandomGenerator random;
     private static final double BULLET_SPEED = 1.0;
+    // Speed along the flow field in swarm steering
+    private static final double CHASE_SPEED = 1.5;
+    // Set by steer() for one tick, the field already gave the heading
+    private boolean steered;
     private BufferedImage enemyImage;
 
     private static final int SHIP_WIDTH = 70;
     private static final int SHIP_HEIGHT = 70;
+    // Looked up once per JVM, not on every spawn
+    private static final BufferedImage ENEMY_IMAGE = AssetCache.getScaled("/assets/regular_enemy.PNG", SHIP_WIDTH, SHIP_HEIGHT);
     private static final int HITBOX_WIDTH = 45;
     private static final int HITBOX_HEIGHT = 35;
+    private static final Color HEALTH_BAR_BACKGROUND = new Color(255, 0, 0, 128);
+    private static final Color HEALTH_BAR_FILL = new Color(0, 255, 0, 192);
 
     public RegularEnemy(double x, double y, double velocityX, double velocityY, double angle, int health) {
+        this(x, y, velocityX, velocityY, angle, health, ThreadLocalRandom.current());
+    }
+
+    public RegularEnemy(double x, double y, double velocityX, double velocityY, double angle, int health,
+                        RandomGenerator random) {
         super(x, y, velocityX, velocityY, angle, health);
-        this.projectiles = new ArrayList<>();
+        this.random = random;
+        this.projectiles = new ProjectileBuffer(ProjectileBuffer.OWNER_REGULAR_ENEMY);
         this.maxHealth = health;
-        this.currentCooldown = (int)(Math.random() * SHOOT_COOLDOWN);
-
-        try {
-            ImageIcon icon = new ImageIcon(getClass().getResource("/assets/regular_enemy.PNG"));
-            Image originalImage = icon.getImage();
-
-            enemyImage = new BufferedImage(SHIP_WIDTH, SHIP_HEIGHT, BufferedImage.TYPE_INT_ARGB);
-            Graphics2D g2d = enemyImage.createGraphics();
-            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-            g2d.drawImage(originalImage, 0, 0, SHIP_WIDTH, SHIP_HEIGHT, null);
-            g2d.dispose();
-        } catch (Exception e) {
-            System.err.println("Error loading enemy image: " + e.getMessage());
-        }
+        this.currentCooldown = (int)(random.nextDouble() * SHOOT_COOLDOWN);
+
+        enemyImage = ENEMY_IMAGE;
+        updateHitbox();
     }
 
     @Override
@@ -61,6 +69,7 @@ public class RegularEnemy extends Character {
             y = 600 - SHIP_HEIGHT/2;
             velocityY = -Math.abs(velocityY);
         }
+        updateHitbox();
 
         if (currentCooldown > 0) {
             currentCooldown--;
@@ -71,49 +80,50 @@ public class RegularEnemy extends Character {
             currentCooldown = SHOOT_COOLDOWN;
         }
 
-        for (int i = projectiles.size() - 1; i >= 0; i--) {
-            Projectile projectile = projectiles.get(i);
-            projectile.update();
-            if (projectile.isOffScreen(800, 600)) {
-                projectiles.remove(i);
-            }
-        }
+        projectiles.updateAndRemoveOffScreen(800, 600);
 
-        if (target != null) {
+        if (target != null && !steered) {
             double dx = target.getX() - x;
             double dy = target.getY() - y;
-            angle = Math.toDegrees(Math.atan2(dy, dx));
+            angle = FastMath.atan2Deg(dy, dx);
         }
+        steered = false;
     }
 
     @Override
     public void draw(Graphics2D g) {
-        if (enemyImage != null) {
-            AffineTransform transform = new AffineTransform();
-            transform.translate(x - SHIP_WIDTH/2, y - SHIP_HEIGHT/2);
-            transform.rotate(Math.toRadians(angle), SHIP_WIDTH/2, SHIP_HEIGHT/2);
-            g.drawImage(enemyImage, transform, null);
+        drawEnemy(g, null, enemyImage, x, y, angle, health, maxHealth);
+        projectiles.draw(g);
+    }
 
+    // raster is null unless the tiled compositor is drawing
+    static void drawEnemy(Graphics2D g, IntRaster raster, BufferedImage enemyImage, double x, double y,
+                          double angle, int health, int maxHealth) {
+        if (enemyImage != null) {
+            RotationCache.draw(g, raster, enemyImage, angle, x, y);
         }
 
-        drawHealthBar(g);
+        drawHealthBar(g, raster, x, y, health, maxHealth);
+    }
+
+    @Override
+    FrameSnapshot.Sprite snapshot() {
+        return new FrameSnapshot.RegularEnemySprite(enemyImage, previousX, previousY, x, y, angle, health, maxHealth);
+    }
 
-        for (Projectile projectile : projectiles) {
-            projectile.draw(g);
-        }
+    FrameSnapshot.Sprite snapshotBullets() {
+        return projectiles.snapshot();
     }
 
-    private void drawHealthBar(Graphics2D g) {
+    private static void drawHealthBar(Graphics2D g, IntRaster raster, double x, double y, int health, int maxHealth) {
         int healthBarWidth = 100;
         int healthBarHeight = 6;
         int currentHealthWidth = (int)((health / (double)maxHealth) * healthBarWidth);
 
-        g.setColor(new Color(255, 0, 0, 128));
-        g.fillRect((int)x - healthBarWidth/2, (int)y - SHIP_HEIGHT/2 - 15,
+        fillRect(g, raster, HEALTH_BAR_BACKGROUND, (int)x - healthBarWidth/2, (int)y - SHIP_HEIGHT/2 - 15,
                 healthBarWidth, healthBarHeight);
 
-        g.setColor(new Color(0, 255, 0, 192));
-        g.fillRect((int)x - healthBarWidth/2, (int)y - SHIP_HEIGHT/2 - 15,
+        fillRect(g, raster, HEALTH_BAR_FILL, (int)x - healthBarWidth/2, (int)y - SHIP_HEIGHT/2 - 15,
                 currentHealthWidth, healthBarHeight);
     }
 
@@ -124,23 +134,22 @@ public class RegularEnemy extends Character {
             double distance = Math.sqrt(dx * dx + dy * dy);
 
             double accuracy = 0.95;
-            if (Math.random() > accuracy) {
-                dx += (Math.random() - 0.5) * 20;
-                dy += (Math.random() - 0.5) * 20;
+            if (random.nextDouble() > accuracy) {
+                dx += (random.nextDouble() - 0.5) * 20;
+                dy += (random.nextDouble() - 0.5) * 20;
                 distance = Math.sqrt(dx * dx + dy * dy);
             }
 
             dx = (dx / distance) * BULLET_SPEED;
             dy = (dy / distance) * BULLET_SPEED;
 
-            Projectile projectile = new Projectile(x, y, angle);
-            projectile.setVelocity(dx, dy);
-            projectiles.add(projectile);
+            projectiles.add(x, y, angle, dx, dy);
         }
     }
 
-    public Rectangle getBounds() {
-        return new Rectangle(
+    @Override
+    protected void updateHitbox() {
+        hitbox.set(
                 (int)(x - HITBOX_WIDTH/2),
                 (int)(y - HITBOX_HEIGHT/2),
                 HITBOX_WIDTH,
@@ -148,6 +157,10 @@ public class RegularEnemy extends Character {
         );
     }
 
+    public Rectangle getBounds() {
+        return hitbox.toRectangle();
+    }
+
     public void hit() {
         health -= 25;
     }
@@ -157,9 +170,41 @@ public class RegularEnemy extends Character {
     }
 
     public List<Projectile> getBullets() {
+        return projectiles.asList();
+    }
+
+    public ProjectileBuffer getBulletBuffer() {
         return projectiles;
     }
+    @Override
+    void saveState(ByteBuffer buffer) {
+        super.saveState(buffer);
+        buffer.putInt(currentCooldown).putInt(maxHealth);
+    }
+
+    @Override
+    void loadState(ByteBuffer buffer) {
+        super.loadState(buffer);
+        currentCooldown = buffer.getInt();
+        maxHealth = buffer.getInt();
+        updateHitbox();
+    }
+
     public void setTarget(Ship target) {
         this.target = target;
     }
+
+    // Swarm steering, before update(): heads down the flow field and faces
+    // that way, and takes its target from the field instead of searching
+    void steer(FlowField field) {
+        int cell = field.cellAt(x, y);
+        velocityX = field.getDirectionX(cell) * CHASE_SPEED;
+        velocityY = field.getDirectionY(cell) * CHASE_SPEED;
+        float heading = field.getAngle(cell);
+        if (!Float.isNaN(heading)) {
+            angle = heading;
+        }
+        target = field.getTarget(cell);
+        steered = true;
+    }
 }
\ No newline at end of file
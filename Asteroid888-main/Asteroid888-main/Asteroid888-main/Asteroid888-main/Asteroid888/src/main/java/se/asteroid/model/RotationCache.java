@@ -0,0 +1,109 @@
+package se.asteroid.model;
+
+import se.asteroid.util.IntRaster;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Pre-rotated copies of shared sprites, one per angle bucket, so a rotating
+// sprite is drawn with a plain untransformed drawImage instead of a rotated
+// bilinear blit every frame. Buckets are rendered on first use. The bucket
+// count is the quality setting (-Dasteroid.rotation.buckets, 64 by default);
+// 0 turns the cache off and draws with a transform as before. Keys are the
+// images from AssetCache, which are shared and never change.
+public final class RotationCache {
+    public static final String BUCKETS_PROPERTY = "asteroid.rotation.buckets";
+    public static final int DEFAULT_BUCKETS = 64;
+
+    private static final Map<BufferedImage, Rotations> rotations = new ConcurrentHashMap<>();
+    private static volatile int buckets = Math.max(0, Integer.getInteger(BUCKETS_PROPERTY, DEFAULT_BUCKETS));
+
+    private RotationCache() {
+    }
+
+    // Rotated copies live in a square as wide as the source's diagonal so no
+    // corner is clipped at any angle
+    private record Rotations(int buckets, int size, AtomicReferenceArray<BufferedImage> images) {
+    }
+
+    // Draws image rotated by degrees around its centre, centred on x, y
+    public static void draw(Graphics2D g, BufferedImage image, double degrees, double x, double y) {
+        draw(g, null, image, degrees, x, y);
+    }
+
+    // Same, blitting into the raster when there is one and the cache is on
+    static void draw(Graphics2D g, IntRaster raster, BufferedImage image, double degrees, double x, double y) {
+        BufferedImage rotated = get(image, degrees);
+        if (rotated != null) {
+            int left = (int) Math.round(x - rotated.getWidth() / 2.0);
+            int top = (int) Math.round(y - rotated.getHeight() / 2.0);
+            if (raster != null) {
+                raster.blit(rotated, left, top);
+            } else {
+                g.drawImage(rotated, left, top, null);
+            }
+            return;
+        }
+        AffineTransform transform = new AffineTransform();
+        transform.translate(x - image.getWidth() / 2.0, y - image.getHeight() / 2.0);
+        transform.rotate(Math.toRadians(degrees), image.getWidth() / 2.0, image.getHeight() / 2.0);
+        g.drawImage(image, transform, null);
+    }
+
+    // The copy of image for the bucket nearest degrees, or null when disabled
+    public static BufferedImage get(BufferedImage image, double degrees) {
+        int count = buckets;
+        if (count == 0) return null;
+
+        Rotations entry = rotations.get(image);
+        if (entry == null || entry.buckets() != count) {
+            int size = (int) Math.ceil(Math.hypot(image.getWidth(), image.getHeight()));
+            entry = new Rotations(count, size, new AtomicReferenceArray<>(count));
+            rotations.put(image, entry);
+        }
+
+        int bucket = Math.floorMod((int) Math.round(degrees * count / 360.0), count);
+        BufferedImage rotated = entry.images().get(bucket);
+        if (rotated == null) {
+            // Two threads may render the same bucket, either copy is fine
+            rotated = render(image, entry.size(), 360.0 * bucket / count);
+            entry.images().set(bucket, rotated);
+        }
+        return rotated;
+    }
+
+    private static BufferedImage render(BufferedImage image, int size, double degrees) {
+        BufferedImage rotated = AssetCache.createCompatible(size, size);
+        Graphics2D g2d = rotated.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g2d.translate(size / 2.0, size / 2.0);
+        g2d.rotate(Math.toRadians(degrees));
+        g2d.drawImage(image, -image.getWidth() / 2, -image.getHeight() / 2, null);
+        g2d.dispose();
+        return rotated;
+    }
+
+    public static int getBuckets() {
+        return buckets;
+    }
+
+    // Changes the quality, copies for the old bucket count are dropped
+    public static void setBuckets(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Bucket count must not be negative: " + count);
+        }
+        buckets = count;
+        clear();
+    }
+
+    // IntRaster keeps the pixels of every copy it blitted, they go too
+    public static void clear() {
+        rotations.clear();
+        IntRaster.clearCache();
+    }
+}
@@ -1,39 +1,48 @@
 package se.asteroid.model;
 
-import javax.swing.*;
+import se.asteroid.util.FastMath;
+import se.asteroid.util.IntRaster;
+
 import java.awt.*;
-import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 public class SecondTier extends Character {
     private static final int SHOOT_COOLDOWN = 120;
     private int currentCooldown = 0;
-    private List<Projectile> projectiles;
+    private ProjectileBuffer projectiles;
     private Ship target;
     private int maxHealth;
+    private final RandomGenerator random;
     private static final double BULLET_SPEED = 1.0;
+    // Speed along the flow field in swarm steering
+    private static final double CHASE_SPEED = 1.0;
+    // Set by steer() for one tick, the field already gave the heading
+    private boolean steered;
     private BufferedImage shipImage;
+    // Looked up once per JVM, not on every spawn
+    private static final BufferedImage SHIP_IMAGE = AssetCache.getScaled("/assets/secondTier_enemy.png", 90, 90);
+    private static final Color HEALTH_BAR_BACKGROUND = new Color(255, 0, 0, 128);
+    private static final Color HEALTH_BAR_FILL = new Color(0, 255, 0, 192);
 
     public SecondTier(double x, double y, double velocityX, double velocityY, double angle, int health) {
+        this(x, y, velocityX, velocityY, angle, health, ThreadLocalRandom.current());
+    }
+
+    public SecondTier(double x, double y, double velocityX, double velocityY, double angle, int health,
+                      RandomGenerator random) {
         super(x, y, velocityX, velocityY, angle, health);
-        this.projectiles = new ArrayList<>();
+        this.random = random;
+        this.projectiles = new ProjectileBuffer(ProjectileBuffer.OWNER_SECOND_TIER);
         this.maxHealth = health;
-        this.currentCooldown = (int)(Math.random() * SHOOT_COOLDOWN);
+        this.currentCooldown = (int)(random.nextDouble() * SHOOT_COOLDOWN);
 
         // โหลดรูปภาพยาน
-        try {
-            ImageIcon icon = new ImageIcon(getClass().getResource("/assets/secondTier_enemy.png"));
-            Image originalImage = icon.getImage();
-            shipImage = new BufferedImage(90, 90, BufferedImage.TYPE_INT_ARGB);
-            Graphics2D g2d = shipImage.createGraphics();
-            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-            g2d.drawImage(originalImage, 0, 0, 90, 90, null);
-            g2d.dispose();
-        } catch (Exception e) {
-            System.err.println("Error loading ship image: " + e.getMessage());
-        }
+        shipImage = SHIP_IMAGE;
+        updateHitbox();
     }
 
     private void shoot() {
@@ -47,9 +56,9 @@ public class SecondTier extends Character {
                 double distance = Math.sqrt(dx * dx + dy * dy);
 
                 double accuracy = 0.95;
-                if (Math.random() > accuracy) {
-                    dx += (Math.random() - 0.5) * 20;
-                    dy += (Math.random() - 0.5) * 20;
+                if (random.nextDouble() > accuracy) {
+                    dx += (random.nextDouble() - 0.5) * 20;
+                    dy += (random.nextDouble() - 0.5) * 20;
                     distance = Math.sqrt(dx * dx + dy * dy);
                 }
 
@@ -57,45 +66,51 @@ public class SecondTier extends Character {
                 dy = (dy / distance) * BULLET_SPEED;
 
                 // ปรับตำแหน่งจุดเริ่มต้นของกระสุน
-                double bulletStartX = x + offset * Math.cos(Math.toRadians(angle + 90));
-                double bulletStartY = y + offset * Math.sin(Math.toRadians(angle + 90));
+                double bulletStartX = x + offset * FastMath.cosDeg(angle + 90);
+                double bulletStartY = y + offset * FastMath.sinDeg(angle + 90);
 
-                Projectile projectile = new Projectile(bulletStartX, bulletStartY, angle);
-                projectile.setVelocity(dx, dy);
-                projectiles.add(projectile);
+                projectiles.add(bulletStartX, bulletStartY, angle, dx, dy);
             }
         }
     }
 
     @Override
     public void draw(Graphics2D g) {
+        drawEnemy(g, null, shipImage, x, y, angle, health, maxHealth);
+
+        // วาดกระสุน
+        projectiles.draw(g);
+    }
+
+    // raster is null unless the tiled compositor is drawing
+    static void drawEnemy(Graphics2D g, IntRaster raster, BufferedImage shipImage, double x, double y,
+                          double angle, int health, int maxHealth) {
         if (shipImage != null) {
-            AffineTransform transform = new AffineTransform();
-            transform.translate(x - shipImage.getWidth()/2, y - shipImage.getHeight()/2);
-            transform.rotate(Math.toRadians(angle), shipImage.getWidth()/2, shipImage.getHeight()/2);
-            g.drawImage(shipImage, transform, null);
+            RotationCache.draw(g, raster, shipImage, angle, x, y);
         }
 
         // วาด health bar
-        drawHealthBar(g);
+        drawHealthBar(g, raster, x, y, health, maxHealth);
+    }
 
-        // วาดกระสุน
-        for (Projectile projectile : projectiles) {
-            projectile.draw(g);
-        }
+    @Override
+    FrameSnapshot.Sprite snapshot() {
+        return new FrameSnapshot.SecondTierSprite(shipImage, previousX, previousY, x, y, angle, health, maxHealth);
     }
 
-    private void drawHealthBar(Graphics2D g) {
+    FrameSnapshot.Sprite snapshotBullets() {
+        return projectiles.snapshot();
+    }
+
+    private static void drawHealthBar(Graphics2D g, IntRaster raster, double x, double y, int health, int maxHealth) {
         int healthBarWidth = 40;
         int healthBarHeight = 4;
         int currentHealthWidth = (int)((health / (double)maxHealth) * healthBarWidth);
 
-        g.setColor(new Color(255, 0, 0, 128));
-        g.fillRect((int)x - healthBarWidth/2, (int)y - 35,
+        fillRect(g, raster, HEALTH_BAR_BACKGROUND, (int)x - healthBarWidth/2, (int)y - 35,
                 healthBarWidth, healthBarHeight);
 
-        g.setColor(new Color(0, 255, 0, 192));
-        g.fillRect((int)x - healthBarWidth/2, (int)y - 35,
+        fillRect(g, raster, HEALTH_BAR_FILL, (int)x - healthBarWidth/2, (int)y - 35,
                 currentHealthWidth, healthBarHeight);
     }
 
@@ -120,6 +135,7 @@ public class SecondTier extends Character {
             y = 600 - 30;
             velocityY = -Math.abs(velocityY);
         }
+        updateHitbox();
 
         // ส่วนที่เหลือของ update() คงเดิม
         if (currentCooldown > 0) {
@@ -131,30 +147,62 @@ public class SecondTier extends Character {
             currentCooldown = SHOOT_COOLDOWN;
         }
 
-        for (int i = projectiles.size() - 1; i >= 0; i--) {
-            Projectile projectile = projectiles.get(i);
-            projectile.update();
-            if (projectile.isOffScreen(800, 600)) {
-                projectiles.remove(i);
-            }
-        }
+        projectiles.updateAndRemoveOffScreen(800, 600);
 
-        if (target != null) {
+        if (target != null && !steered) {
             double dx = target.getX() - x;
             double dy = target.getY() - y;
-            angle = Math.toDegrees(Math.atan2(dy, dx));
+            angle = FastMath.atan2Deg(dy, dx);
         }
+        steered = false;
+    }
+
+    @Override
+    void saveState(ByteBuffer buffer) {
+        super.saveState(buffer);
+        buffer.putInt(currentCooldown).putInt(maxHealth);
+    }
+
+    @Override
+    void loadState(ByteBuffer buffer) {
+        super.loadState(buffer);
+        currentCooldown = buffer.getInt();
+        maxHealth = buffer.getInt();
+        updateHitbox();
     }
 
     public void setTarget(Ship target) {
         this.target = target;
     }
 
+    // Swarm steering, before update(): heads down the flow field and faces
+    // that way, and takes its target from the field instead of searching
+    void steer(FlowField field) {
+        int cell = field.cellAt(x, y);
+        velocityX = field.getDirectionX(cell) * CHASE_SPEED;
+        velocityY = field.getDirectionY(cell) * CHASE_SPEED;
+        float heading = field.getAngle(cell);
+        if (!Float.isNaN(heading)) {
+            angle = heading;
+        }
+        target = field.getTarget(cell);
+        steered = true;
+    }
+
+    @Override
+    protected void updateHitbox() {
+        hitbox.set((int)x - 25, (int)y - 25, 50, 50);
+    }
+
     public Rectangle getBounds() {
-        return new Rectangle((int)x - 25, (int)y - 25, 50, 50);
+        return hitbox.toRectangle();
     }
 
     public List<Projectile> getBullets() {
+        return projectiles.asList();
+    }
+
+    public ProjectileBuffer getBulletBuffer() {
         return projectiles;
     }
 
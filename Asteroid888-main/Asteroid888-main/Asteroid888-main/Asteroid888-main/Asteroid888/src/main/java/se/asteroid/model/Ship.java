@@ -1,27 +1,36 @@
 package se.asteroid.model;
 
 import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.MarkerManager;
 
 import java.awt.*;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import javax.imageio.ImageIO;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 import org.apache.logging.log4j.Logger;
+import se.asteroid.util.FastMath;
+import se.asteroid.util.LogSampler;
+
+import static org.apache.logging.log4j.util.Unbox.box;
 
 public class Ship extends Character {
     private static final double DECELERATION = 0.98;
     private static final double ACCELERATION = 0.5;
     private boolean shooting;
-    private List<Projectile> projectiles;
+    private ProjectileBuffer projectiles;
     private static final double MAX_VELOCITY = 5.0;
     private static final Logger logger = LogManager.getLogger(Ship.class);
+    // Movement logs fire every tick a key is held, they carry this marker so
+    // the config can filter them and are sampled, once a second by default
+    static final Marker MOVEMENT = MarkerManager.getMarker("MOVEMENT");
+    private final LogSampler movementSampler = LogSampler.forCategory("movement", 60);
     private boolean isMoving = false;
     // Sprite Ship fields
-    private BufferedImage spriteSheet;
     private BufferedImage[][] sprites;
     private int currentRow = 3; // Default to horizontal row
     private int currentFrame = 0;
@@ -31,6 +40,7 @@ public class Ship extends Character {
     private static final int SPRITE_COLS = 4;
     private static final int SPRITE_WIDTH = 80;  // 320/4
     private static final int SPRITE_HEIGHT = 80; // 320/4
+    private static final BufferedImage[][] SHEET = AssetCache.getSheet("/assets/ship.png", SPRITE_ROWS, SPRITE_COLS);
     private static final int HORIZONTAL_ROW = 3; // Row for A/D movement
     private static final int VERTICAL_ROW = 2;   // Row for W/S movement
     // Screen dimensions
@@ -56,6 +66,8 @@ public class Ship extends Character {
     private static final int SINGLE_SPRITE_WIDTH = 160;
     private static final int SINGLE_SPRITE_HEIGHT = 72;
 
+    private static final MovementDirection[] DIRECTIONS = MovementDirection.values();
+
     private enum MovementDirection {
         HORIZONTAL,
         VERTICAL,
@@ -95,30 +107,17 @@ public class Ship extends Character {
 
     public Ship(double x, double y) {
         super(x, y, 0, 0, 0, 100);
-        projectiles = new ArrayList<>();
+        projectiles = new ProjectileBuffer(ProjectileBuffer.OWNER_PLAYER);
         loadSpriteSheet();
-        logger.info("PlayerShip initialized at position ({}, {})", x, y);
+        updateHitbox();
+        logger.info("PlayerShip initialized at position ({}, {})", box(x), box(y));
     }
 
     private void loadSpriteSheet() {
-        try {
-            spriteSheet = ImageIO.read(getClass().getResource("/assets/ship.png"));
-            sprites = new BufferedImage[SPRITE_ROWS][SPRITE_COLS];
-
-            for (int row = 0; row < SPRITE_ROWS; row++) {
-                for (int col = 0; col < SPRITE_COLS; col++) {
-                    sprites[row][col] = spriteSheet.getSubimage(
-                            col * SPRITE_WIDTH,
-                            row * SPRITE_HEIGHT,
-                            SPRITE_WIDTH,
-                            SPRITE_HEIGHT
-                    );
-                }
-            }            logger.debug("Sprite sheet loaded successfully");
-
-        } catch (IOException e) {
-            logger.error("Failed to load sprite sheet", e);
-
+        // Shared with every respawned ship, the sheet is only decoded once
+        sprites = SHEET;
+        if (sprites == null) {
+            logger.error("Failed to load sprite sheet");
         }
     }
 
@@ -165,6 +164,7 @@ public class Ship extends Character {
         }
 
         move(); // This calls the parent's move() which includes screenWrap()
+        updateHitbox();
 
         velocityX *= DECELERATION;
         velocityY *= DECELERATION;
@@ -173,20 +173,24 @@ public class Ship extends Character {
         updateAnimation();
 
         // อัปเดตกระสุน
-        for (int i = projectiles.size() - 1; i >= 0; i--) {
-            Projectile projectile = projectiles.get(i);
-            projectile.update();
-            if (projectile.isOffScreen(SCREEN_WIDTH, SCREEN_HEIGHT)) {
-                projectiles.remove(i);
-            }
-        }
+        projectiles.updateAndRemoveOffScreen(SCREEN_WIDTH, SCREEN_HEIGHT);
 
     }
     @Override
     public void draw(Graphics2D g) {
+        drawShip(g, sprites, x, y, angle, currentRow, currentFrame, currentGunflashFrame,
+                isInvincible, invincibleTicks, shieldAngle);
+
+        // Draw all bullets
+        projectiles.draw(g);
+    }
+
+    static void drawShip(Graphics2D g, BufferedImage[][] sprites, double x, double y, double angle,
+                         int currentRow, int currentFrame, int currentGunflashFrame,
+                         boolean isInvincible, int invincibleTicks, float shieldAngle) {
         // Draw shield effect when invincible
         if (isInvincible) {
-            drawShieldEffect(g);
+            drawShieldEffect(g, x, y, shieldAngle);
         }
 
         // Draw ship with blinking effect when invincible
@@ -232,14 +236,19 @@ public class Ship extends Character {
                 g.setTransform(old);
             }
         }
+    }
 
-        // Draw all bullets
-        for (Projectile projectile : projectiles) {
-            projectile.draw(g);
-        }
+    @Override
+    FrameSnapshot.Sprite snapshot() {
+        return new FrameSnapshot.ShipSprite(sprites, previousX, previousY, x, y, angle, currentRow, currentFrame,
+                currentGunflashFrame, isInvincible, invincibleTicks, shieldAngle);
+    }
+
+    FrameSnapshot.Sprite snapshotBullets() {
+        return projectiles.snapshot();
     }
 
-    private void drawShieldEffect(Graphics2D g) {
+    private static void drawShieldEffect(Graphics2D g, double x, double y, float shieldAngle) {
         int shieldSize = 60;
         int numRings = 3;
 
@@ -258,16 +267,16 @@ public class Ship extends Character {
             // Draw particles
             int particleCount = 6 + i * 2; // More particles on outer rings
             for (int j = 0; j < particleCount; j++) {
-                double angle = Math.toRadians((360.0 / particleCount) * j + (shieldAngle * (i + 1)));
-                int particleX = (int) (Math.cos(angle) * size / 2);
-                int particleY = (int) (Math.sin(angle) * size / 2);
+                double angle = (360.0 / particleCount) * j + (shieldAngle * (i + 1));
+                int particleX = (int) (FastMath.cosDeg(angle) * size / 2);
+                int particleY = (int) (FastMath.sinDeg(angle) * size / 2);
                 int particleSize = 4 + i;  // Larger particles on outer rings
                 g.fillOval(particleX - particleSize / 2, particleY - particleSize / 2, particleSize, particleSize);
             }
         }
 
         // Draw an inner pulsating glow
-        int glowRadius = (int) (shieldSize * 0.75 + (Math.sin(shieldAngle) * 5));
+        int glowRadius = (int) (shieldSize * 0.75 + (FastMath.sin(shieldAngle) * 5));
         Color innerGlow = new Color(0, 255, 255, 120);
         g.setColor(innerGlow);
         g.fillOval(-glowRadius / 2, -glowRadius / 2, glowRadius, glowRadius);
@@ -281,13 +290,13 @@ public class Ship extends Character {
     }
 
     public void shoot() {
-        double radianAngle = Math.toRadians(angle - 90);
+        double spawnAngle = angle - 90;
         double spawnDistance = SPRITE_HEIGHT / 2;
-        double bulletX = x + spawnDistance * Math.cos(radianAngle);
-        double bulletY = y + spawnDistance * Math.sin(radianAngle);
-        projectiles.add(new Projectile(bulletX, bulletY, angle - 90));
+        double bulletX = x + spawnDistance * FastMath.cosDeg(spawnAngle);
+        double bulletY = y + spawnDistance * FastMath.sinDeg(spawnAngle);
+        projectiles.add(bulletX, bulletY, angle - 90);
         startGunflashAnimation();
-        logger.debug("Shot fired at angle: {}", angle);
+        logger.debug("Shot fired at angle: {}", box(angle));
     }
 
 
@@ -345,6 +354,10 @@ public class Ship extends Character {
     }
 
     public List<Projectile> getBullets() {
+        return projectiles.asList();
+    }
+
+    public ProjectileBuffer getBulletBuffer() {
         return projectiles;
     }
 
@@ -357,11 +370,55 @@ public class Ship extends Character {
     }
 
     private void logPosition() {
-        // Log current position and angle
-        logger.debug("Ship position - X: {}, Y: {}, Angle: {}",
-                String.format("%.2f", x),
-                String.format("%.2f", y),
-                String.format("%.2f", angle));
+        // Level and sample are checked first, so a skipped call neither boxes
+        // nor formats. box() reuses thread local buffers instead of allocating.
+        if (!logger.isDebugEnabled(MOVEMENT) || !movementSampler.sample()) return;
+        logger.debug(MOVEMENT, "Ship position - X: {}, Y: {}, Angle: {}",
+                box(round2(x)), box(round2(y)), box(round2(angle)));
+    }
+
+    private static double round2(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    @Override
+    void saveState(ByteBuffer buffer) {
+        super.saveState(buffer);
+        buffer.put((byte) ((shooting ? 1 : 0) | (isMoving ? 2 : 0) | (isInvincible ? 4 : 0)))
+                .put((byte) currentDirection.ordinal())
+                .putInt(currentRow).putInt(currentFrame).putInt(animationTick)
+                .putInt(currentGunflashFrame).putInt(gunflashTick).putInt(invincibleTicks)
+                .putFloat(shieldAngle);
+    }
+
+    @Override
+    void loadState(ByteBuffer buffer) {
+        super.loadState(buffer);
+        int flags = buffer.get();
+        shooting = (flags & 1) != 0;
+        isMoving = (flags & 2) != 0;
+        isInvincible = (flags & 4) != 0;
+        currentDirection = DIRECTIONS[buffer.get()];
+        currentRow = buffer.getInt();
+        currentFrame = buffer.getInt();
+        animationTick = buffer.getInt();
+        currentGunflashFrame = buffer.getInt();
+        gunflashTick = buffer.getInt();
+        invincibleTicks = buffer.getInt();
+        shieldAngle = buffer.getFloat();
+        updateHitbox();
+    }
+
+    // Puts the ship where an authoritative state has it, for client prediction
+    public void setMotion(double x, double y, double velocityX, double velocityY, double angle) {
+        this.x = x;
+        this.y = y;
+        this.previousX = x;
+        this.previousY = y;
+        this.velocityX = velocityX;
+        this.velocityY = velocityY;
+        this.angle = angle;
+        updateHitbox();
     }
 
     public double getX() {
@@ -374,11 +431,16 @@ public class Ship extends Character {
     }
 
     public Rectangle getBounds() {
+        return hitbox.toRectangle();
+    }
+
+    @Override
+    protected void updateHitbox() {
         // กำหนดขนาด hitbox ให้เป็นสี่เหลี่ยมที่เหมาะสมกับรูปยาน
         int hitboxWidth = SPRITE_WIDTH / 4;    // ความกว้างประมาณครึ่งหนึ่งของ sprite
         int hitboxHeight = SPRITE_HEIGHT * 1/3; // ความสูงประมาณ 2/3 ของ sprite เพื่อให้ครอบคลุมส่วนตัวยาน
 
-        return new Rectangle(
+        hitbox.set(
                 (int)x - hitboxWidth/2,   // จุดเริ่มต้น x (กึ่งกลาง)
                 (int)y - hitboxHeight/2,  // จุดเริ่มต้น y (กึ่งกลาง)
                 hitboxWidth,              // ความกว้างของ hitbox
@@ -419,7 +481,8 @@ public class Ship extends Character {
         }
 
         if (wrapped) {
-            logger.debug("Screen wrap from ({}, {}) to ({}, {})", oldX, oldY, x, y);
+            logger.debug(MOVEMENT, "Screen wrap from ({}, {}) to ({}, {})",
+                    box(oldX), box(oldY), box(x), box(y));
         }
     }
 
@@ -479,14 +542,14 @@ public class Ship extends Character {
     public void fireMissile(List<Asteroid> asteroids, List<RegularEnemy> regularEnemies, List<SecondTier> secondTier, Boss boss) {
         Character nearestEnemy = findNearestEnemy(asteroids, regularEnemies, secondTier, boss);
         if (nearestEnemy != null) {
-            projectiles.add(new Missile(this.getX(), this.getY(), nearestEnemy));
+            projectiles.addMissile(this.getX(), this.getY(), nearestEnemy);
         }
     }
 
     public void fireMissile(Boss boss) {
         Character nearestEnemy = findNearestEnemy(boss);
         if (nearestEnemy != null) {
-            projectiles.add(new Missile(this.getX(), this.getY(), nearestEnemy));
+            projectiles.addMissile(this.getX(), this.getY(), nearestEnemy);
         }
     }
 
@@ -0,0 +1,105 @@
+package se.asteroid.model;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+// The last N saved states of a World, one per tick, in preallocated buffers
+// that are reused as the ring wraps. record() after every step makes any of
+// the last N ticks restorable, for instant rewind or for rollback: restore
+// an earlier tick, then step again with corrected input. A slot only grows
+// when a state no longer fits, the steady state allocates nothing.
+public class SnapshotRing {
+    private static final int INITIAL_SLOT_BYTES = 16 * 1024;
+
+    private final ByteBuffer[] slots;
+    private final long[] ticks;
+    // Index of the newest snapshot and how many are held
+    private int newest = -1;
+    private int count;
+
+    public SnapshotRing(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Need room for at least one snapshot: " + capacity);
+        }
+        slots = new ByteBuffer[capacity];
+        ticks = new long[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = ByteBuffer.allocate(INITIAL_SLOT_BYTES);
+        }
+    }
+
+    public static SnapshotRing forSeconds(int seconds, int ticksPerSecond) {
+        return new SnapshotRing(Math.max(1, seconds * ticksPerSecond));
+    }
+
+    // Saves the world as the newest snapshot, overwriting the oldest when full
+    public void record(World world) {
+        int slot = (newest + 1) % slots.length;
+        ByteBuffer buffer = slots[slot];
+        while (true) {
+            buffer.clear();
+            try {
+                world.save(buffer);
+                break;
+            } catch (BufferOverflowException e) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                slots[slot] = buffer;
+            }
+        }
+        buffer.flip();
+        ticks[slot] = world.getTick();
+        newest = slot;
+        if (count < slots.length) count++;
+    }
+
+    // Restores the snapshot taken ticksBack records ago, 0 being the newest,
+    // and drops the newer ones so recording carries on from there. False when
+    // the ring does not go back that far.
+    public boolean rewind(World world, int ticksBack) {
+        if (ticksBack < 0 || ticksBack >= count) return false;
+        int slot = Math.floorMod(newest - ticksBack, slots.length);
+        ByteBuffer buffer = slots[slot];
+        buffer.rewind();
+        world.restore(buffer);
+        newest = slot;
+        count -= ticksBack;
+        return true;
+    }
+
+    // Restores the snapshot of the given world tick, see rewind()
+    public boolean restore(World world, long tick) {
+        for (int back = 0; back < count; back++) {
+            if (ticks[Math.floorMod(newest - back, slots.length)] == tick) {
+                return rewind(world, back);
+            }
+        }
+        return false;
+    }
+
+    public void clear() {
+        newest = -1;
+        count = 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    // Tick of the oldest snapshot held, -1 when empty
+    public long getOldestTick() {
+        return count == 0 ? -1 : ticks[Math.floorMod(newest - count + 1, slots.length)];
+    }
+
+    public long getNewestTick() {
+        return count == 0 ? -1 : ticks[newest];
+    }
+
+    // Bytes used by the newest snapshot
+    public int getNewestBytes() {
+        return count == 0 ? 0 : slots[newest].limit();
+    }
+}
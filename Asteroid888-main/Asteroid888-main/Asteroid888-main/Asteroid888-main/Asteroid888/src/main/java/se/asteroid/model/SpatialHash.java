@@ -0,0 +1,118 @@
+package se.asteroid.model;
+
+import java.util.Arrays;
+
+// Uniform grid broadphase. Items are int ids with an axis aligned box; a box
+// is linked into every cell it overlaps and query() returns each id once.
+// Boxes outside the grid are clamped into the border cells.
+public class SpatialHash {
+    private final int cellSize;
+    private final int columns;
+    private final int rows;
+    private final int[] cellHead;
+
+    // Cell entries as a linked list stored in flat arrays
+    private int[] entryItem;
+    private int[] entryNext;
+    private int entryCount;
+
+    // Per item stamp so a query reports an item only once
+    private int[] itemStamp;
+    private int stamp;
+
+    private int[] results;
+    private int resultCount;
+
+    public SpatialHash(int width, int height, int cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+        this.columns = (width + cellSize - 1) / cellSize;
+        this.rows = (height + cellSize - 1) / cellSize;
+        this.cellHead = new int[columns * rows];
+        this.entryItem = new int[64];
+        this.entryNext = new int[64];
+        this.itemStamp = new int[64];
+        this.results = new int[64];
+        clear();
+    }
+
+    public void clear() {
+        Arrays.fill(cellHead, -1);
+        entryCount = 0;
+    }
+
+    public void insert(int item, double minX, double minY, double maxX, double maxY) {
+        if (item >= itemStamp.length) {
+            itemStamp = Arrays.copyOf(itemStamp, Math.max(item + 1, itemStamp.length * 2));
+        }
+
+        int firstColumn = column(minX);
+        int lastColumn = column(maxX);
+        int firstRow = row(minY);
+        int lastRow = row(maxY);
+
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                int cell = r * columns + c;
+                if (entryCount == entryItem.length) {
+                    entryItem = Arrays.copyOf(entryItem, entryCount * 2);
+                    entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+                }
+                entryItem[entryCount] = item;
+                entryNext[entryCount] = cellHead[cell];
+                cellHead[cell] = entryCount;
+                entryCount++;
+            }
+        }
+    }
+
+    // Collects the ids of every item sharing a cell with the box, read them
+    // back with getResult(i) for i < the returned count
+    public int query(double minX, double minY, double maxX, double maxY) {
+        resultCount = 0;
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(itemStamp, 0);
+            stamp = 1;
+        }
+
+        int firstColumn = column(minX);
+        int lastColumn = column(maxX);
+        int firstRow = row(minY);
+        int lastRow = row(maxY);
+
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                for (int e = cellHead[r * columns + c]; e != -1; e = entryNext[e]) {
+                    int item = entryItem[e];
+                    if (itemStamp[item] == stamp) continue;
+                    itemStamp[item] = stamp;
+                    if (resultCount == results.length) {
+                        results = Arrays.copyOf(results, resultCount * 2);
+                    }
+                    results[resultCount++] = item;
+                }
+            }
+        }
+        return resultCount;
+    }
+
+    public int getResult(int index) {
+        return results[index];
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    private int column(double x) {
+        int c = (int) Math.floor(x / cellSize);
+        return c < 0 ? 0 : (c >= columns ? columns - 1 : c);
+    }
+
+    private int row(double y) {
+        int r = (int) Math.floor(y / cellSize);
+        return r < 0 ? 0 : (r >= rows ? rows - 1 : r);
+    }
+}
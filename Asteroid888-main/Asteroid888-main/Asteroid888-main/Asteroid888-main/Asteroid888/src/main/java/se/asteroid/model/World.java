@@ -0,0 +1,1140 @@
+package se.asteroid.model;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import se.asteroid.util.SplitMix64;
+import se.asteroid.util.TickProfiler;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.apache.logging.log4j.util.Unbox.box;
+
+// Headless game simulation. Owns every entity and the game rules, and advances
+// one tick per step() call so it can be driven by the Swing view or run flat out.
+public class World {
+    public static final int WIDTH = 800;
+    public static final int HEIGHT = 600;
+
+    private static final int EXPLOSION_DURATION = 60;
+    // Missile key fires a burst of 4 missiles, one every ~300 ms at 60 ticks/s
+    private static final int MISSILE_BURST_SIZE = 4;
+    private static final int MISSILE_BURST_INTERVAL = 18;
+    private static final int MAX_MISSILE_BURSTS = 8;
+    private static final int BROADPHASE_CELL_SIZE = 64;
+    private static final int FLOW_FIELD_CELL_SIZE = 20;
+    // Wave enemies spawn this far in from the walls they bounce off
+    private static final int WAVE_MARGIN = 35;
+    // Start of a saved state, so restoring from the wrong buffer fails fast
+    private static final int STATE_MAGIC = 0x41385354;
+    // Missile targets are saved as list kind * TARGET_STRIDE + index
+    private static final int TARGET_STRIDE = 1 << 20;
+    private static final int TARGET_ASTEROID = 1;
+    private static final int TARGET_REGULAR = 2;
+    private static final int TARGET_SECOND_TIER = 3;
+    private static final int TARGET_BOSS = 4;
+
+    // How checkCollisions finds candidate pairs, brute force is kept for comparison
+    public enum CollisionMode {
+        BRUTE_FORCE,
+        SPATIAL_HASH
+    }
+
+    // How regular and second tier enemies move: bouncing off the walls while
+    // turning to the nearest ship, or as a swarm chasing along a flow field
+    public enum Steering {
+        BOUNCE,
+        FLOW_FIELD
+    }
+
+    // The first pilot is the single player, more join for shared matches
+    private final List<Pilot> pilots = new ArrayList<>();
+    private List<Asteroid> asteroids;
+    private List<RegularEnemy> regularEnemies;
+    private List<SecondTier> secondTierEnemies;
+    private Boss boss;
+    private List<Explosion> explosions;
+
+    // Game state variables
+    private int score = 0;
+    private int lives = 3;
+    private boolean gameStarted = false;
+    private boolean gameOver = false;
+    private boolean gameSucceeded = false;
+    private long tick = 0;
+
+    // Boss phase variables
+    private boolean bossPhaseStarted = false;
+    private boolean bossDefeated = false;
+
+    // Broadphase over asteroids, enemies and the boss, rebuilt every collision pass
+    private CollisionMode collisionMode = CollisionMode.SPATIAL_HASH;
+    // Per phase timings, cheap enough to stay on
+    private final TickProfiler profiler = new TickProfiler();
+    // Cumulative over every shooter this world has stepped, see sampleProjectilePool()
+    private final ProjectilePoolStats projectilePool = new ProjectilePoolStats();
+    private final SpatialHash broadphase = new SpatialHash(WIDTH, HEIGHT, BROADPHASE_CELL_SIZE);
+    private boolean broadphaseValid = false;
+    private Steering steering = Steering.BOUNCE;
+    // Only kept up to date while steering is FLOW_FIELD
+    private final FlowField flowField = new FlowField(WIDTH, HEIGHT, FLOW_FIELD_CELL_SIZE);
+    private double[] targetMinX = new double[64];
+    private double[] targetMinY = new double[64];
+    private double[] targetMaxX = new double[64];
+    private double[] targetMaxY = new double[64];
+    // Reused for the projectile being tested so collision checks never allocate
+    private final Hitbox bulletBox = new Hitbox();
+
+    private static final Logger logger = LogManager.getLogger(World.class);
+
+    // Every random draw in the world comes from this one generator, so a seed
+    // replays the same game. Not shared with other worlds, so no contention.
+    // Same sequence as SplittableRandom, but its state can be saved.
+    private final long seed;
+    private final SplitMix64 random;
+
+    public World() {
+        this(new SplittableRandom().nextLong());
+    }
+
+    public World(long seed) {
+        this.seed = seed;
+        this.random = new SplitMix64(seed);
+        asteroids = new ArrayList<>();
+        regularEnemies = new ArrayList<>();
+        secondTierEnemies = new ArrayList<>();
+        explosions = new ArrayList<>();
+        pilots.add(new Pilot(0, MAX_MISSILE_BURSTS));
+    }
+
+    public void start() {
+        score = 0;
+        logger.info("Game started. Score : 0");
+        for (Pilot pilot : pilots) {
+            pilot.spawn();
+            pilot.clearBursts();
+        }
+        asteroids = new ArrayList<>();
+        regularEnemies = new ArrayList<>();
+        secondTierEnemies = new ArrayList<>();
+        explosions = new ArrayList<>();
+        boss = null;
+        lives = 3;
+        gameOver = false;
+        gameSucceeded = false;
+        bossPhaseStarted = false;
+        bossDefeated = false;
+        gameStarted = true;
+        tick = 0;
+
+        // Spawn initial enemies
+        spawnAsteroids();
+        spawnRegularEnemies();
+        spawnSecondTierEnemies();
+    }
+
+    // Leave the finished game so start() can be called again
+    public void reset() {
+        gameStarted = false;
+        gameOver = false;
+        gameSucceeded = false;
+    }
+
+    // Adds a ship on the lowest free slot, flying straight away when the
+    // game is on, otherwise from the next start()
+    public Pilot addPilot() {
+        int slot = 0;
+        while (slotTaken(slot)) {
+            slot++;
+        }
+        Pilot pilot = new Pilot(slot, MAX_MISSILE_BURSTS);
+        pilots.add(pilot);
+        if (gameStarted && !gameOver) {
+            pilot.spawn();
+        }
+        logger.info("Pilot joined on slot {}, {} ships", box(slot), box(pilots.size()));
+        return pilot;
+    }
+
+    // Takes a ship out with its projectiles, the last one has to stay
+    public void removePilot(Pilot pilot) {
+        if (pilots.size() == 1 && pilots.get(0) == pilot) {
+            throw new IllegalStateException("A world needs at least one pilot");
+        }
+        if (pilots.remove(pilot)) {
+            logger.info("Pilot left slot {}, {} ships", box(pilot.getSlot()), box(pilots.size()));
+        }
+    }
+
+    private boolean slotTaken(int slot) {
+        for (Pilot pilot : pilots) {
+            if (pilot.getSlot() == slot) return true;
+        }
+        return false;
+    }
+
+    // One tick with input for the first pilot, the others use their own
+    public void step(PlayerInput input) {
+        step(input, true);
+    }
+
+    // One tick with every pilot on its own input, for shared matches
+    public void step() {
+        step(null, false);
+    }
+
+    private void step(PlayerInput firstInput, boolean useFirst) {
+        if (gameOver || !gameStarted) return;
+        long tickStart = profiler.start();
+        tick++;
+        savePreviousPositions();
+
+        for (int i = 0; i < pilots.size(); i++) {
+            applyPresses(pilots.get(i), inputFor(i, firstInput, useFirst));
+        }
+        for (Pilot pilot : pilots) {
+            updateMissileBursts(pilot);
+        }
+
+        // The world holds still while every ship is exploding, which is
+        // always the case for a single player
+        boolean frozen = allExploding();
+        for (Pilot pilot : pilots) {
+            if (pilot.exploding) handleExplosion(pilot);
+        }
+        if (frozen || gameOver) {
+            sampleProjectilePool();
+            profiler.stop(TickProfiler.Phase.TICK, tickStart);
+            return;
+        }
+
+        long start = profiler.start();
+        for (int i = 0; i < pilots.size(); i++) {
+            Pilot pilot = pilots.get(i);
+            if (!pilot.exploding) {
+                handlePlayerMovement(pilot.ship, inputFor(i, firstInput, useFirst));
+            }
+        }
+        profiler.stop(TickProfiler.Phase.PLAYER_MOVEMENT, start);
+
+        start = profiler.start();
+        updateGameObjects();
+        profiler.stop(TickProfiler.Phase.UPDATE_OBJECTS, start);
+
+        start = profiler.start();
+        checkCollisions();
+        profiler.stop(TickProfiler.Phase.COLLISIONS, start);
+
+        start = profiler.start();
+        checkBossSpawning();
+        profiler.stop(TickProfiler.Phase.BOSS_SPAWNING, start);
+
+        sampleProjectilePool();
+        profiler.stop(TickProfiler.Phase.TICK, tickStart);
+    }
+
+    // Hands new shooters' buffers the world's counters, which keeps their
+    // counts after they die, and records the live total for the peak
+    private void sampleProjectilePool() {
+        int live = 0;
+        for (Pilot pilot : pilots) {
+            if (pilot.ship != null) live += samplePool(pilot.ship.getBulletBuffer());
+        }
+        for (int i = 0; i < regularEnemies.size(); i++) {
+            live += samplePool(regularEnemies.get(i).getBulletBuffer());
+        }
+        for (int i = 0; i < secondTierEnemies.size(); i++) {
+            live += samplePool(secondTierEnemies.get(i).getBulletBuffer());
+        }
+        if (boss != null) live += samplePool(boss.getBulletBuffer());
+        projectilePool.sample(live);
+    }
+
+    private int samplePool(ProjectileBuffer buffer) {
+        buffer.setPoolStats(projectilePool);
+        return buffer.size();
+    }
+
+    private PlayerInput inputFor(int index, PlayerInput firstInput, boolean useFirst) {
+        return index == 0 && useFirst ? firstInput : pilots.get(index).getInput();
+    }
+
+    private boolean allExploding() {
+        for (Pilot pilot : pilots) {
+            if (!pilot.exploding) return false;
+        }
+        return true;
+    }
+
+    // Remembered so a renderer can draw between this tick and the next
+    private void savePreviousPositions() {
+        for (Pilot pilot : pilots) {
+            pilot.ship.savePreviousPosition();
+        }
+        for (Asteroid asteroid : asteroids) {
+            asteroid.savePreviousPosition();
+        }
+        for (RegularEnemy enemy : regularEnemies) {
+            enemy.savePreviousPosition();
+        }
+        for (SecondTier enemy : secondTierEnemies) {
+            enemy.savePreviousPosition();
+        }
+        if (boss != null) {
+            boss.savePreviousPosition();
+        }
+    }
+
+    private void applyPresses(Pilot pilot, PlayerInput input) {
+        if (input == null) return;
+
+        Ship ship = pilot.ship;
+        for (int i = 0; i < input.getRotateLeft(); i++) {
+            ship.rotateLeft();
+        }
+        for (int i = 0; i < input.getRotateRight(); i++) {
+            ship.rotateRight();
+        }
+        for (int i = 0; i < input.getShots(); i++) {
+            ship.setShooting(true);
+        }
+        for (int i = 0; i < input.getMissileBursts(); i++) {
+            queueMissileBurst(pilot);
+        }
+    }
+
+    private void queueMissileBurst(Pilot pilot) {
+        for (int i = 0; i < MAX_MISSILE_BURSTS; i++) {
+            if (pilot.burstMissilesLeft[i] == 0) {
+                pilot.burstMissilesLeft[i] = MISSILE_BURST_SIZE;
+                pilot.burstCountdown[i] = MISSILE_BURST_INTERVAL;
+                return;
+            }
+        }
+    }
+
+    private void updateMissileBursts(Pilot pilot) {
+        int[] missilesLeft = pilot.burstMissilesLeft;
+        int[] countdown = pilot.burstCountdown;
+        for (int i = 0; i < MAX_MISSILE_BURSTS; i++) {
+            if (missilesLeft[i] == 0) continue;
+            if (--countdown[i] > 0) continue;
+
+            pilot.ship.fireMissile(asteroids, regularEnemies, secondTierEnemies, boss);
+            missilesLeft[i]--;
+            countdown[i] = MISSILE_BURST_INTERVAL;
+        }
+    }
+
+    private void handlePlayerMovement(Ship ship, PlayerInput input) {
+        if (input == null) return;
+        if (input.isUp()) ship.moveUp();
+        if (input.isDown()) ship.moveDown();
+        if (input.isLeft()) ship.moveLeft();
+        if (input.isRight()) ship.moveRight();
+    }
+
+    // The ship an enemy at (x, y) goes after: the closest one still flying.
+    // Always the player's ship in a single player game.
+    private Ship nearestShip(double x, double y) {
+        if (pilots.size() == 1) return pilots.get(0).ship;
+        Ship nearest = null;
+        double best = Double.MAX_VALUE;
+        for (Pilot pilot : pilots) {
+            if (pilot.exploding || pilot.ship == null) continue;
+            double dx = pilot.ship.getX() - x;
+            double dy = pilot.ship.getY() - y;
+            double distance = dx * dx + dy * dy;
+            if (distance < best) {
+                best = distance;
+                nearest = pilot.ship;
+            }
+        }
+        return nearest != null ? nearest : pilots.get(0).ship;
+    }
+
+    private void updateGameObjects() {
+        try {
+            for (Pilot pilot : pilots) {
+                if (pilot.ship == null) {
+                    throw new NullPointerException("Player object is null.");
+                }
+                if (!pilot.exploding) {
+                    pilot.ship.update();
+                }
+            }
+
+            explosions.removeIf(explosion -> {
+                if (explosion != null) {
+                    explosion.update();
+                    return explosion.isFinished();
+                } else {
+                    return true; // Remove null entries
+                }
+            });
+
+            boolean swarm = steering == Steering.FLOW_FIELD;
+            if (swarm) {
+                flowField.update(pilots);
+            }
+
+            // Update regular enemies and their bullets
+            for (RegularEnemy enemy : regularEnemies) {
+                if (enemy != null) {
+                    if (swarm) {
+                        enemy.steer(flowField);
+                    } else {
+                        enemy.setTarget(nearestShip(enemy.getX(), enemy.getY()));
+                    }
+                    enemy.update();
+                    updateEnemyBullets(enemy.getBulletBuffer());
+                }
+            }
+
+            // Update second tier enemies
+            for (SecondTier enemy : secondTierEnemies) {
+                if (enemy != null) {
+                    if (swarm) {
+                        enemy.steer(flowField);
+                    } else {
+                        enemy.setTarget(nearestShip(enemy.getX(), enemy.getY()));
+                    }
+                    enemy.update();
+                    updateEnemyBullets(enemy.getBulletBuffer());
+                }
+            }
+
+            // Update asteroids
+            for (Asteroid asteroid : asteroids) {
+                if (asteroid != null) {
+                    asteroid.update();
+                }
+            }
+
+            // Update boss if present
+            if (boss != null && boss.isAlive()) {
+                Ship target = nearestShip(boss.getX(), boss.getY());
+                if (boss.getTarget() != target) {
+                    boss.setTarget(target);
+                }
+                boss.update();
+            }
+
+        } catch (NullPointerException e) {
+            logger.error("A required game object is missing", e);
+        } catch (ConcurrentModificationException e) {
+            logger.error("List was modified during iteration", e);
+        } catch (Exception e) {
+            logger.error("An unexpected error occurred", e);
+        }
+    }
+
+    private void updateEnemyBullets(ProjectileBuffer projectiles) {
+        projectiles.removeOffScreen(WIDTH, HEIGHT);
+        projectiles.update();
+    }
+
+    private void checkBossSpawning() {
+        if (!bossPhaseStarted && asteroids.isEmpty() && regularEnemies.isEmpty() &&
+                secondTierEnemies.isEmpty()) {
+            startBossPhase();
+        }
+    }
+
+    private void startBossPhase() {
+        try {
+            Ship target = nearestShip(400, 300);
+            if (target == null) {
+                throw new NullPointerException("Player is null. Boss cannot be created without a player.");
+            }
+
+            bossPhaseStarted = true;
+            boss = new Boss(400, 300, target);
+
+        } catch (NullPointerException e) {
+            logger.error("Failed to start boss phase", e);
+        } catch (Exception e) {
+            logger.error("An unexpected error occurred in startBossPhase", e);
+        }
+    }
+
+    private void checkCollisions() {
+        if (allExploding()) return;
+
+        if (collisionMode == CollisionMode.SPATIAL_HASH) {
+            rebuildBroadphase();
+        }
+
+        // Check player bullets with enemies and boss
+        for (Pilot pilot : pilots) {
+            if (pilot.exploding) continue;
+            ProjectileBuffer bullets = pilot.ship.getBulletBuffer();
+            for (int i = bullets.size() - 1; i >= 0; i--) {
+                boolean bulletHit = checkBulletCollisions(bullets.getX(i), bullets.getY(i));
+                if (bulletHit) {
+                    bullets.remove(i);
+                }
+            }
+        }
+
+        for (Pilot pilot : pilots) {
+            if (pilot.exploding || pilot.ship.isInvincible()) continue;
+            Hitbox playerBounds = pilot.ship.getHitbox();
+
+            // Check enemy bullets with player
+            boolean hit = collisionMode == CollisionMode.SPATIAL_HASH
+                    ? checkEnemyCollisionsWithPlayerSpatial(playerBounds)
+                    : checkEnemyCollisionsWithPlayer(playerBounds);
+
+            // Check boss bullets with player
+            if (!hit && boss != null && boss.isAlive()) {
+                hit = checkEnemyBulletsWithPlayer(boss.getBulletBuffer(), playerBounds);
+            }
+            if (hit) {
+                startExplosion(pilot);
+            }
+        }
+        broadphaseValid = false;
+    }
+
+    // Target ids are laid out so that a lower id is the target the brute force
+    // scan would reach first: asteroids, regular enemies and second tier enemies
+    // from the back of their lists, then the boss
+    private void rebuildBroadphase() {
+        broadphase.clear();
+        int total = asteroids.size() + regularEnemies.size() + secondTierEnemies.size() + 1;
+        if (total > targetMinX.length) {
+            int capacity = Math.max(total, targetMinX.length * 2);
+            targetMinX = Arrays.copyOf(targetMinX, capacity);
+            targetMinY = Arrays.copyOf(targetMinY, capacity);
+            targetMaxX = Arrays.copyOf(targetMaxX, capacity);
+            targetMaxY = Arrays.copyOf(targetMaxY, capacity);
+        }
+
+        int id = 0;
+        for (int j = asteroids.size() - 1; j >= 0; j--) {
+            addTarget(id++, asteroids.get(j).getHitbox());
+        }
+        for (int j = regularEnemies.size() - 1; j >= 0; j--) {
+            addTarget(id++, regularEnemies.get(j).getHitbox());
+        }
+        for (int j = secondTierEnemies.size() - 1; j >= 0; j--) {
+            addTarget(id++, secondTierEnemies.get(j).getHitbox());
+        }
+        if (boss != null && boss.isAlive()) {
+            addTarget(id, boss.getHitbox());
+        }
+        broadphaseValid = true;
+    }
+
+    private void addTarget(int id, Hitbox bounds) {
+        targetMinX[id] = bounds.getMinX();
+        targetMinY[id] = bounds.getMinY();
+        targetMaxX[id] = bounds.getMaxX();
+        targetMaxY[id] = bounds.getMaxY();
+        broadphase.insert(id, bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY());
+    }
+
+    private boolean targetIntersects(int id, Hitbox bounds) {
+        return bounds.intersects(targetMinX[id], targetMinY[id], targetMaxX[id], targetMaxY[id]);
+    }
+
+    private boolean checkBulletCollisions(double bulletX, double bulletY) {
+        if (collisionMode == CollisionMode.SPATIAL_HASH && broadphaseValid) {
+            return checkBulletCollisionsSpatial(bulletX, bulletY);
+        }
+        Hitbox bounds = bulletBox;
+        Projectile.hitbox(bulletX, bulletY, bounds);
+
+        // Check asteroid collisions
+        for (int j = asteroids.size() - 1; j >= 0; j--) {
+            if (bounds.intersects(asteroids.get(j).getHitbox())) {
+                return hitAsteroid(j, bulletX, bulletY);
+            }
+        }
+
+        // Check regular enemy collisions
+        for (int j = regularEnemies.size() - 1; j >= 0; j--) {
+            if (bounds.intersects(regularEnemies.get(j).getHitbox())) {
+                return hitRegularEnemy(j, bulletX, bulletY);
+            }
+        }
+
+        // Check second tier enemy collisions
+        for (int j = secondTierEnemies.size() - 1; j >= 0; j--) {
+            if (bounds.intersects(secondTierEnemies.get(j).getHitbox())) {
+                return hitSecondTierEnemy(j, bulletX, bulletY);
+            }
+        }
+
+        // Check boss collision
+        if (boss != null && boss.isAlive() && bounds.intersects(boss.getHitbox())) {
+            return hitBoss(bulletX, bulletY);
+        }
+
+        return false;
+    }
+
+    private boolean checkBulletCollisionsSpatial(double bulletX, double bulletY) {
+        Hitbox bounds = bulletBox;
+        Projectile.hitbox(bulletX, bulletY, bounds);
+        int candidates = broadphase.query(bounds.getMinX(), bounds.getMinY(),
+                bounds.getMaxX(), bounds.getMaxY());
+
+        // Narrowphase, keep the hit the brute force order would have picked
+        int hit = -1;
+        for (int i = 0; i < candidates; i++) {
+            int id = broadphase.getResult(i);
+            if ((hit == -1 || id < hit) && targetIntersects(id, bounds)) {
+                hit = id;
+            }
+        }
+        if (hit == -1) return false;
+
+        boolean removed;
+        int asteroidCount = asteroids.size();
+        int regularCount = regularEnemies.size();
+        int secondTierCount = secondTierEnemies.size();
+        if (hit < asteroidCount) {
+            hitAsteroid(asteroidCount - 1 - hit, bulletX, bulletY);
+            removed = asteroids.size() != asteroidCount;
+        } else if (hit < asteroidCount + regularCount) {
+            hitRegularEnemy(asteroidCount + regularCount - 1 - hit, bulletX, bulletY);
+            removed = regularEnemies.size() != regularCount;
+        } else if (hit < asteroidCount + regularCount + secondTierCount) {
+            hitSecondTierEnemy(asteroidCount + regularCount + secondTierCount - 1 - hit, bulletX, bulletY);
+            removed = secondTierEnemies.size() != secondTierCount;
+        } else {
+            hitBoss(bulletX, bulletY);
+            removed = !boss.isAlive();
+        }
+
+        // Ids shift when a target leaves its list
+        if (removed) {
+            rebuildBroadphase();
+        }
+        return true;
+    }
+
+    private boolean hitAsteroid(int j, double bulletX, double bulletY) {
+        Asteroid asteroid = asteroids.get(j);
+        explosions.add(new Explosion(bulletX, bulletY));
+        asteroid.hit();
+        if (asteroid.isDestroyed()) {
+            int points = asteroid.isLarge() ? 2 : 1;
+            score += asteroid.isLarge() ? 2 : 1;
+            logger.info("Score increased by {} points - Asteroid destroyed. Current score: {}",
+                    box(points), box(score));
+            asteroids.remove(j);
+        }
+        return true;
+    }
+
+    private boolean hitRegularEnemy(int j, double bulletX, double bulletY) {
+        RegularEnemy enemy = regularEnemies.get(j);
+        explosions.add(new Explosion(bulletX, bulletY));
+        enemy.hit();
+        if (enemy.isDestroyed()) {
+            score += 1;
+            logger.info("Score increased by 1 point - Regular enemy destroyed. Current score: {}",
+                    box(score));
+            regularEnemies.remove(j);
+        }
+        return true;
+    }
+
+    private boolean hitSecondTierEnemy(int j, double bulletX, double bulletY) {
+        SecondTier enemy = secondTierEnemies.get(j);
+        explosions.add(new Explosion(bulletX, bulletY));
+        enemy.hit();
+        if (enemy.isDestroyed()) {
+            score += 2;
+            logger.info("Score increased by 2 points - Second tier enemy destroyed. Current score: {}",
+                    box(score));
+            secondTierEnemies.remove(j);
+        }
+        return true;
+    }
+
+    private boolean hitBoss(double bulletX, double bulletY) {
+        explosions.add(new Explosion(bulletX, bulletY));
+        boss.hit(10);
+        if (!boss.isAlive()) {
+            score += 50;
+            logger.info("Score increased by 50 points - Boss defeated! Final score: {}",
+                    box(score));
+            bossDefeated = true;
+            gameSucceeded = true;
+            gameOver = true;
+        }
+        return true;
+    }
+
+    private boolean checkEnemyCollisionsWithPlayer(Hitbox playerBounds) {
+        // Check regular enemy bullets
+        for (RegularEnemy enemy : regularEnemies) {
+            if (checkEnemyBulletsWithPlayer(enemy.getBulletBuffer(), playerBounds) ||
+                    playerBounds.intersects(enemy.getHitbox())) {
+                return true;
+            }
+        }
+
+        // Check second tier enemy bullets
+        for (SecondTier enemy : secondTierEnemies) {
+            if (checkEnemyBulletsWithPlayer(enemy.getBulletBuffer(), playerBounds) ||
+                    playerBounds.intersects(enemy.getHitbox())) {
+                return true;
+            }
+        }
+
+        // Check asteroid collisions
+        for (Asteroid asteroid : asteroids) {
+            if (playerBounds.intersects(asteroid.getHitbox())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean checkEnemyCollisionsWithPlayerSpatial(Hitbox playerBounds) {
+        // Bodies: only targets sharing a cell with the player can touch it
+        int bossId = asteroids.size() + regularEnemies.size() + secondTierEnemies.size();
+        int candidates = broadphase.query(playerBounds.getMinX(), playerBounds.getMinY(),
+                playerBounds.getMaxX(), playerBounds.getMaxY());
+        for (int i = 0; i < candidates; i++) {
+            int id = broadphase.getResult(i);
+            if (id != bossId && targetIntersects(id, playerBounds)) {
+                return true;
+            }
+        }
+
+        // Bullets: one AABB test each is already as cheap as a cell lookup
+        for (RegularEnemy enemy : regularEnemies) {
+            if (checkEnemyBulletsWithPlayer(enemy.getBulletBuffer(), playerBounds)) {
+                return true;
+            }
+        }
+        for (SecondTier enemy : secondTierEnemies) {
+            if (checkEnemyBulletsWithPlayer(enemy.getBulletBuffer(), playerBounds)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean checkEnemyBulletsWithPlayer(ProjectileBuffer projectiles, Hitbox playerBounds) {
+        return projectiles.findIntersecting(playerBounds) != -1;
+    }
+
+    private void startExplosion(Pilot pilot) {
+        pilot.exploding = true;
+        pilot.explosionTicks = 0;
+    }
+
+    private void handleExplosion(Pilot pilot) {
+        pilot.explosionTicks++;
+        if (pilot.explosionTicks >= EXPLOSION_DURATION) {
+            pilot.exploding = false;
+            pilot.explosionTicks = 0;
+            lives--;
+
+            if (lives <= 0) {
+                gameOver = true;
+                logger.info("Game Over. Final score: {}", box(score));
+            } else {
+                logger.info("Player lost a life. Lives remaining: {}", box(lives));
+                pilot.spawn();
+            }
+        }
+    }
+
+    private void spawnAsteroids() {
+        for (int i = 0; i < 3; i++) {
+            double x = random.nextDouble() * WIDTH;
+            double y = random.nextDouble() * HEIGHT;
+            asteroids.add(new Asteroid(x, y, true, random));
+        }
+        for (int i = 0; i < 5; i++) {
+            double x = random.nextDouble() * WIDTH;
+            double y = random.nextDouble() * HEIGHT;
+            asteroids.add(new Asteroid(x, y, false, random));
+        }
+    }
+
+    private void spawnRegularEnemies() {
+        for (int i = 0; i < 4; i++) {
+            double x = random.nextDouble() * WIDTH;
+            double y = random.nextDouble() * HEIGHT;
+            double velocityX = random.nextDouble() * 2 - 1;
+            double velocityY = random.nextDouble() * 2 - 1;
+            RegularEnemy enemy = new RegularEnemy(x, y, velocityX, velocityY, 0, 50, random);
+            enemy.setTarget(nearestShip(x, y));
+            regularEnemies.add(enemy);
+        }
+    }
+
+    private void spawnSecondTierEnemies() {
+        for (int i = 0; i < 3; i++) {
+            double x = random.nextDouble() * WIDTH;
+            double y = random.nextDouble() * HEIGHT;
+            double velocityX = random.nextDouble() * 2 - 1;
+            double velocityY = random.nextDouble() * 2 - 1;
+            SecondTier enemy = new SecondTier(x, y, velocityX, velocityY, 0, 75, random);
+            enemy.setTarget(nearestShip(x, y));
+            secondTierEnemies.add(enemy);
+        }
+    }
+
+    // Adds a wave of enemies spread along the walls, on top of whatever is
+    // flying. Meant for FLOW_FIELD steering, which keeps big swarms cheap.
+    public void spawnWave(int regularCount, int secondTierCount) {
+        for (int i = 0; i < regularCount + secondTierCount; i++) {
+            // A point on the walls, walked clockwise from the top left
+            double along = random.nextDouble() * 2 * (WIDTH + HEIGHT);
+            double x;
+            double y;
+            if (along < WIDTH) {
+                x = along;
+                y = WAVE_MARGIN;
+            } else if (along < WIDTH + HEIGHT) {
+                x = WIDTH - WAVE_MARGIN;
+                y = along - WIDTH;
+            } else if (along < 2 * WIDTH + HEIGHT) {
+                x = 2 * WIDTH + HEIGHT - along;
+                y = HEIGHT - WAVE_MARGIN;
+            } else {
+                x = WAVE_MARGIN;
+                y = 2 * (WIDTH + HEIGHT) - along;
+            }
+            double velocityX = random.nextDouble() * 2 - 1;
+            double velocityY = random.nextDouble() * 2 - 1;
+            if (i < regularCount) {
+                RegularEnemy enemy = new RegularEnemy(x, y, velocityX, velocityY, 0, 50, random);
+                enemy.setTarget(nearestShip(x, y));
+                regularEnemies.add(enemy);
+            } else {
+                SecondTier enemy = new SecondTier(x, y, velocityX, velocityY, 0, 75, random);
+                enemy.setTarget(nearestShip(x, y));
+                secondTierEnemies.add(enemy);
+            }
+        }
+        logger.info("Wave of {} regular and {} second tier enemies", box(regularCount), box(secondTierCount));
+    }
+
+    // Copies what a renderer needs so it can draw while the next tick runs
+    public FrameSnapshot snapshot() {
+        List<FrameSnapshot.Sprite> sprites = new ArrayList<>();
+        if (gameStarted && !gameOver) {
+            for (Pilot pilot : pilots) {
+                if (!pilot.exploding) {
+                    sprites.add(pilot.ship.snapshot());
+                    sprites.add(pilot.ship.snapshotBullets());
+                }
+            }
+            for (Asteroid asteroid : asteroids) {
+                sprites.add(asteroid.snapshot());
+            }
+            for (RegularEnemy enemy : regularEnemies) {
+                sprites.add(enemy.snapshot());
+                sprites.add(enemy.snapshotBullets());
+            }
+            for (SecondTier enemy : secondTierEnemies) {
+                sprites.add(enemy.snapshot());
+                sprites.add(enemy.snapshotBullets());
+            }
+            if (boss != null && boss.isAlive()) {
+                sprites.add(boss.snapshot());
+                sprites.add(boss.snapshotBullets());
+            }
+            for (Explosion explosion : explosions) {
+                FrameSnapshot.Sprite sprite = explosion.snapshot();
+                if (sprite != null) {
+                    sprites.add(sprite);
+                }
+            }
+        }
+
+        boolean bossBattle = bossPhaseStarted && boss != null && boss.isAlive();
+        Ship player = getPlayer();
+        double playerX = player != null ? player.getX() : 0;
+        double playerY = player != null ? player.getY() : 0;
+        return new FrameSnapshot(tick, sprites, score, lives, gameStarted, gameOver, gameSucceeded,
+                bossBattle, bossDefeated, isExploding(), getExplosionTicks(), playerX, playerY);
+    }
+
+    // Writes the complete game state from the buffer's position: flags and
+    // counters, the random generator, every entity and every projectile.
+    // Throws BufferOverflowException when the buffer is too small, see
+    // SnapshotRing for a caller that grows it. Sprites and the seed are not
+    // saved, they never change.
+    public void save(ByteBuffer buffer) {
+        buffer.putInt(STATE_MAGIC)
+                .putLong(random.getState())
+                .putLong(tick)
+                .putInt(score)
+                .putInt(lives)
+                .put((byte) ((gameStarted ? 1 : 0) | (gameOver ? 2 : 0) | (gameSucceeded ? 4 : 0)
+                        | (bossPhaseStarted ? 8 : 0) | (bossDefeated ? 16 : 0) | (boss != null ? 32 : 0)));
+        buffer.putInt(pilots.size());
+        for (Pilot pilot : pilots) {
+            pilot.saveState(buffer);
+        }
+        buffer.putInt(asteroids.size());
+        for (Asteroid asteroid : asteroids) {
+            asteroid.saveState(buffer);
+        }
+        buffer.putInt(regularEnemies.size());
+        for (RegularEnemy enemy : regularEnemies) {
+            enemy.saveState(buffer);
+        }
+        buffer.putInt(secondTierEnemies.size());
+        for (SecondTier enemy : secondTierEnemies) {
+            enemy.saveState(buffer);
+        }
+        if (boss != null) boss.saveState(buffer);
+        buffer.putInt(explosions.size());
+        for (Explosion explosion : explosions) {
+            explosion.saveState(buffer);
+        }
+
+        // Projectiles last, so every missile target exists when they load
+        for (Pilot pilot : pilots) {
+            if (pilot.ship != null) pilot.ship.getBulletBuffer().saveState(buffer, this);
+        }
+        for (RegularEnemy enemy : regularEnemies) {
+            enemy.getBulletBuffer().saveState(buffer, this);
+        }
+        for (SecondTier enemy : secondTierEnemies) {
+            enemy.getBulletBuffer().saveState(buffer, this);
+        }
+        if (boss != null) boss.getBulletBuffer().saveState(buffer, this);
+    }
+
+    // Puts the world back to a state written by save(), reading from the
+    // buffer's position. Entities are overwritten in place, new ones are only
+    // created when the saved state has more of a kind than the world has now.
+    public void restore(ByteBuffer buffer) {
+        if (buffer.getInt() != STATE_MAGIC) {
+            throw new IllegalArgumentException("Not a saved world state");
+        }
+        long randomState = buffer.getLong();
+        tick = buffer.getLong();
+        score = buffer.getInt();
+        lives = buffer.getInt();
+        int flags = buffer.get();
+        gameStarted = (flags & 1) != 0;
+        gameOver = (flags & 2) != 0;
+        gameSucceeded = (flags & 4) != 0;
+        bossPhaseStarted = (flags & 8) != 0;
+        bossDefeated = (flags & 16) != 0;
+
+        int count = buffer.getInt();
+        trim(pilots, count);
+        for (int i = 0; i < count; i++) {
+            if (i == pilots.size()) pilots.add(new Pilot(i, MAX_MISSILE_BURSTS));
+            pilots.get(i).loadState(buffer);
+        }
+
+        count = buffer.getInt();
+        trim(asteroids, count);
+        for (int i = 0; i < count; i++) {
+            if (i == asteroids.size()) asteroids.add(new Asteroid(0, 0, false, random));
+            asteroids.get(i).loadState(buffer);
+        }
+        count = buffer.getInt();
+        trim(regularEnemies, count);
+        for (int i = 0; i < count; i++) {
+            if (i == regularEnemies.size()) regularEnemies.add(new RegularEnemy(0, 0, 0, 0, 0, 50, random));
+            RegularEnemy enemy = regularEnemies.get(i);
+            enemy.loadState(buffer);
+            enemy.setTarget(nearestShip(enemy.getX(), enemy.getY()));
+        }
+        count = buffer.getInt();
+        trim(secondTierEnemies, count);
+        for (int i = 0; i < count; i++) {
+            if (i == secondTierEnemies.size()) secondTierEnemies.add(new SecondTier(0, 0, 0, 0, 0, 75, random));
+            SecondTier enemy = secondTierEnemies.get(i);
+            enemy.loadState(buffer);
+            enemy.setTarget(nearestShip(enemy.getX(), enemy.getY()));
+        }
+        if ((flags & 32) != 0) {
+            Ship target = nearestShip(400, 300);
+            if (boss == null) boss = new Boss(400, 300, target);
+            boss.loadState(buffer);
+            target = nearestShip(boss.getX(), boss.getY());
+            if (boss.getTarget() != target) boss.setTarget(target);
+        } else {
+            boss = null;
+        }
+        count = buffer.getInt();
+        trim(explosions, count);
+        for (int i = 0; i < count; i++) {
+            if (i == explosions.size()) explosions.add(new Explosion(0, 0));
+            explosions.get(i).loadState(buffer);
+        }
+
+        for (Pilot pilot : pilots) {
+            if (pilot.ship != null) pilot.ship.getBulletBuffer().loadState(buffer, this);
+        }
+        for (RegularEnemy enemy : regularEnemies) {
+            enemy.getBulletBuffer().loadState(buffer, this);
+        }
+        for (SecondTier enemy : secondTierEnemies) {
+            enemy.getBulletBuffer().loadState(buffer, this);
+        }
+        if (boss != null) boss.getBulletBuffer().loadState(buffer, this);
+
+        // Last, creating entities above draws from the generator
+        random.setState(randomState);
+        broadphaseValid = false;
+        flowField.invalidate();
+    }
+
+    private static void trim(List<?> list, int count) {
+        for (int i = list.size() - 1; i >= count; i--) {
+            list.remove(i);
+        }
+    }
+
+    // A missile's target as an index into the world's lists, -1 for none.
+    // Targets already removed from the world are dead, and missiles ignore
+    // dead targets, so those are saved as none too.
+    int targetRef(Character target) {
+        if (target == null) return -1;
+        if (target == boss) return TARGET_BOSS * TARGET_STRIDE;
+        int index;
+        if (target instanceof Asteroid && (index = asteroids.indexOf(target)) >= 0) {
+            return TARGET_ASTEROID * TARGET_STRIDE + index;
+        }
+        if (target instanceof RegularEnemy && (index = regularEnemies.indexOf(target)) >= 0) {
+            return TARGET_REGULAR * TARGET_STRIDE + index;
+        }
+        if (target instanceof SecondTier && (index = secondTierEnemies.indexOf(target)) >= 0) {
+            return TARGET_SECOND_TIER * TARGET_STRIDE + index;
+        }
+        return -1;
+    }
+
+    Character resolveTarget(int ref) {
+        if (ref < 0) return null;
+        int index = ref % TARGET_STRIDE;
+        return switch (ref / TARGET_STRIDE) {
+            case TARGET_ASTEROID -> asteroids.get(index);
+            case TARGET_REGULAR -> regularEnemies.get(index);
+            case TARGET_SECOND_TIER -> secondTierEnemies.get(index);
+            default -> boss;
+        };
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public TickProfiler getProfiler() {
+        return profiler;
+    }
+
+    public String projectilePoolReport() {
+        return projectilePool.toString();
+    }
+
+    public ProjectilePoolStats getProjectilePool() {
+        return projectilePool;
+    }
+
+    public CollisionMode getCollisionMode() {
+        return collisionMode;
+    }
+
+    public void setCollisionMode(CollisionMode collisionMode) {
+        this.collisionMode = collisionMode;
+        broadphaseValid = false;
+    }
+
+    public Steering getSteering() {
+        return steering;
+    }
+
+    public void setSteering(Steering steering) {
+        this.steering = steering;
+        flowField.invalidate();
+    }
+
+    // Where FLOW_FIELD steering leads, as of the last tick
+    public FlowField getFlowField() {
+        return flowField;
+    }
+
+    // The first pilot's ship, the one a single player flies
+    public Ship getPlayer() {
+        return pilots.get(0).ship;
+    }
+
+    public List<Pilot> getPilots() {
+        return pilots;
+    }
+
+    public List<Asteroid> getAsteroids() {
+        return asteroids;
+    }
+
+    public List<RegularEnemy> getRegularEnemies() {
+        return regularEnemies;
+    }
+
+    public List<SecondTier> getSecondTierEnemies() {
+        return secondTierEnemies;
+    }
+
+    public Boss getBoss() {
+        return boss;
+    }
+
+    public List<Explosion> getExplosions() {
+        return explosions;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getLives() {
+        return lives;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public boolean isGameStarted() {
+        return gameStarted;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public boolean isGameSucceeded() {
+        return gameSucceeded;
+    }
+
+    public boolean isBossPhaseStarted() {
+        return bossPhaseStarted;
+    }
+
+    public boolean isBossDefeated() {
+        return bossDefeated;
+    }
+
+    public boolean isExploding() {
+        return pilots.get(0).exploding;
+    }
+
+    public int getExplosionTicks() {
+        return pilots.get(0).explosionTicks;
+    }
+}
@@ -0,0 +1,622 @@
+package se.asteroid.net;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import se.asteroid.model.Pilot;
+import se.asteroid.model.PlayerInput;
+import se.asteroid.model.World;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.apache.logging.log4j.util.Unbox.box;
+
+// Headless authoritative server. Clients only send input, the server steps
+// a World per match with every client's ship in it and sends back what
+// happened. Everything runs on one thread around a Selector: it accepts and
+// reads between ticks, then steps each match at the tick rate and every few
+// ticks sends each session a snapshot delta compressed against the newest
+// snapshot that session acked. Worlds are single threaded, so nothing here
+// needs a lock, and a session costs two buffers rather than a thread.
+// A client that falls behind on reading skips snapshots instead of
+// queueing them, its next one is a delta against what it did ack.
+public class MatchServer implements Closeable {
+    public static final int DEFAULT_PORT = 7888;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final int MAX_CATCH_UP_TICKS = 5;
+    // Snapshots kept per match as baselines, a client acking older gets a full one
+    private static final int HISTORY = 32;
+    private static final int MAX_STATE_BYTES = Protocol.MAX_FRAME_BYTES - Protocol.SNAPSHOT_HEADER_BYTES - 8;
+    // Ticks a finished match shows its result before starting over
+    private static final int RESTART_TICKS = 180;
+    private static final int READ_BUFFER_BYTES = 4096;
+    private static final int WRITE_BUFFER_BYTES = 16 * 1024;
+    // Unsent bytes past which a session skips snapshots until it catches up
+    private static final int MAX_PENDING_BYTES = 64 * 1024;
+    // Inputs a session may run ahead of the server by
+    private static final int INPUT_QUEUE = 64;
+    // Time a new connection has to send HELLO
+    private static final long HANDSHAKE_TIMEOUT_NANOS = 5 * NANOS_PER_SECOND;
+
+    private static final Logger logger = LogManager.getLogger(MatchServer.class);
+
+    private final int port;
+    private final int tickRate;
+    private final int snapshotRate;
+    private final int shipsPerMatch;
+    private final int maxSessions;
+    private final SplittableRandom seeds;
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private volatile Thread thread;
+    private volatile boolean running;
+    private volatile int boundPort;
+
+    private final List<Match> matches = new ArrayList<>();
+    private final List<Session> sessions = new ArrayList<>();
+    private final ByteBuffer scratch = ByteBuffer.allocate(Protocol.MAX_FRAME_BYTES);
+    private int nextSessionId = 1;
+    private int nextMatchId = 1;
+
+    // Written by the server thread only, read by anyone
+    private volatile int sessionCount;
+    private volatile int matchCount;
+    private volatile long ticks;
+    private volatile long snapshotsSent;
+    private volatile long fullSnapshotsSent;
+    private volatile long snapshotsSkipped;
+    private volatile long bytesSent;
+
+    public MatchServer(int port, int tickRate, int snapshotRate, int shipsPerMatch, int maxSessions) {
+        if (tickRate <= 0 || snapshotRate <= 0 || snapshotRate > tickRate) {
+            throw new IllegalArgumentException("Snapshot rate " + snapshotRate + " must be within tick rate " + tickRate);
+        }
+        if (shipsPerMatch <= 0 || shipsPerMatch > 255) {
+            throw new IllegalArgumentException("Ships per match must be 1 to 255: " + shipsPerMatch);
+        }
+        this.port = port;
+        this.tickRate = tickRate;
+        this.snapshotRate = snapshotRate;
+        this.shipsPerMatch = shipsPerMatch;
+        this.maxSessions = maxSessions;
+        this.seeds = new SplittableRandom();
+    }
+
+    // Binds and starts serving, port 0 picks a free one, see getPort()
+    public void start() throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), 256);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        boundPort = ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+        running = true;
+        thread = new Thread(this::run, "match-server");
+        thread.start();
+        logger.info("Match server on port {}: {} ticks/s, {} snapshots/s, {} ships per match",
+                box(boundPort), box(tickRate), box(snapshotRate), box(shipsPerMatch));
+    }
+
+    private void run() {
+        long stepNanos = NANOS_PER_SECOND / tickRate;
+        long nextTick = System.nanoTime();
+        try {
+            while (running) {
+                long wait = nextTick - System.nanoTime();
+                if (wait > 0) {
+                    selector.select(Math.max(1, (wait + 999_999) / 1_000_000));
+                } else {
+                    selector.selectNow();
+                }
+                handleKeys();
+
+                int steps = 0;
+                long now = System.nanoTime();
+                while (now - nextTick >= 0 && steps < MAX_CATCH_UP_TICKS) {
+                    tick();
+                    nextTick += stepNanos;
+                    steps++;
+                }
+                if (now - nextTick >= 0) {
+                    // Too far behind to catch up, drop the missed ticks
+                    nextTick = now + stepNanos;
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) logger.error("Match server stopped", e);
+        } finally {
+            for (Session session : new ArrayList<>(sessions)) {
+                closeSession(session);
+            }
+        }
+    }
+
+    private void handleKeys() throws IOException {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            if (!key.isValid()) continue;
+            if (key.isAcceptable()) {
+                accept();
+                continue;
+            }
+            Session session = (Session) key.attachment();
+            try {
+                if (key.isReadable()) read(session);
+                if (key.isValid() && key.isWritable()) flush(session);
+            } catch (IOException | RuntimeException e) {
+                // A broken or misbehaving client only costs its own session
+                logger.debug("Session {} dropped: {}", box(session.id), e.toString());
+                closeSession(session);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            if (sessions.size() >= maxSessions) {
+                refuse(channel);
+                continue;
+            }
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Session session = new Session(nextSessionId++, channel, System.nanoTime());
+            session.key = channel.register(selector, SelectionKey.OP_READ, session);
+            sessions.add(session);
+            sessionCount = sessions.size();
+        }
+    }
+
+    // Full: answers the HELLO before it comes, without a session or buffers
+    private void refuse(SocketChannel channel) {
+        ByteBuffer frame = scratch.clear();
+        int start = Protocol.beginFrame(frame, Protocol.REJECT);
+        frame.put(Protocol.REJECT_FULL);
+        Protocol.endFrame(frame, start);
+        frame.flip();
+        try {
+            channel.write(frame);
+            channel.close();
+        } catch (IOException e) {
+            logger.debug("Refusing connection: {}", e.toString());
+        }
+    }
+
+    // Connections that never said HELLO hold a session slot, drop them
+    private void dropSilentSessions() {
+        long now = System.nanoTime();
+        for (int s = sessions.size() - 1; s >= 0; s--) {
+            Session session = sessions.get(s);
+            if (session.pilot == null && now - session.acceptedAt > HANDSHAKE_TIMEOUT_NANOS) {
+                logger.debug("Session {} dropped: no HELLO", box(session.id));
+                closeSession(session);
+            }
+        }
+    }
+
+    private void read(Session session) throws IOException {
+        int read = session.channel.read(session.in);
+        if (read < 0) {
+            closeSession(session);
+            return;
+        }
+        ByteBuffer in = session.in;
+        in.flip();
+        int size;
+        while ((size = Protocol.frameSize(in)) >= 0 && in.remaining() >= size) {
+            int end = in.position() + size;
+            int limit = in.limit();
+            in.position(in.position() + 2).limit(end);
+            handleFrame(session, in.get(), in);
+            in.limit(limit).position(end);
+            if (!session.channel.isOpen()) return;
+        }
+        in.compact();
+        if (!in.hasRemaining()) {
+            throw new IOException("Frame larger than the read buffer");
+        }
+    }
+
+    private void handleFrame(Session session, byte type, ByteBuffer body) throws IOException {
+        switch (type) {
+            case Protocol.HELLO -> hello(session, body.get());
+            case Protocol.INPUT -> {
+                if (session.pilot == null) throw new IOException("Input before HELLO");
+                session.queueInput(body.getInt(), body);
+            }
+            case Protocol.ACK -> session.acked = Math.max(session.acked, body.getInt());
+            case Protocol.BYE -> closeSession(session);
+            default -> throw new IOException("Unknown frame type " + type);
+        }
+    }
+
+    private void hello(Session session, int version) throws IOException {
+        if (session.pilot != null) return;
+        if (version != Protocol.VERSION) {
+            // A full server refuses at accept, see refuse()
+            int start = Protocol.beginFrame(session.out, Protocol.REJECT);
+            session.out.put(Protocol.REJECT_VERSION);
+            Protocol.endFrame(session.out, start);
+            flush(session);
+            closeSession(session);
+            return;
+        }
+
+        Match match = null;
+        for (Match candidate : matches) {
+            if (candidate.sessions.size() < shipsPerMatch) {
+                match = candidate;
+                break;
+            }
+        }
+        if (match == null) {
+            match = new Match(nextMatchId++, seeds.nextLong());
+            matches.add(match);
+            matchCount = matches.size();
+            // A new world comes with its first pilot
+            session.pilot = match.world.getPilots().get(0);
+        } else {
+            session.pilot = match.world.addPilot();
+        }
+        session.match = match;
+        match.sessions.add(session);
+
+        ByteBuffer out = session.out;
+        int start = Protocol.beginFrame(out, Protocol.WELCOME);
+        out.put((byte) Protocol.VERSION)
+                .putInt(session.id)
+                .putInt(match.id)
+                .putShort((short) session.pilot.getSlot())
+                .putShort((short) tickRate)
+                .putShort((short) snapshotRate)
+                .putLong(match.world.getSeed());
+        Protocol.endFrame(out, start);
+        flush(session);
+        logger.info("Session {} joined match {} on slot {}", box(session.id), box(match.id),
+                box(session.pilot.getSlot()));
+    }
+
+    private void tick() throws IOException {
+        ticks++;
+        if (ticks % tickRate == 0) {
+            dropSilentSessions();
+        }
+        for (int m = 0; m < matches.size(); m++) {
+            Match match = matches.get(m);
+            for (Session session : match.sessions) {
+                session.applyNextInput();
+            }
+            match.step();
+            // Spreads snapshotRate snapshots over every tickRate ticks,
+            // also when one does not divide the other
+            match.snapshotCredit += snapshotRate;
+            if (match.snapshotCredit >= tickRate) {
+                match.snapshotCredit -= tickRate;
+                sendSnapshots(match);
+            }
+            if (match.sessions.isEmpty()) {
+                // Its last session dropped while sending, the match is gone
+                m--;
+            }
+        }
+    }
+
+    private void sendSnapshots(Match match) throws IOException {
+        int slot = match.capture();
+        if (slot < 0) return;
+        byte[] state = match.states[slot];
+        int length = match.lengths[slot];
+        int seq = match.seqs[slot];
+
+        for (int s = 0; s < match.sessions.size(); s++) {
+            Session session = match.sessions.get(s);
+            if (session.pending() > MAX_PENDING_BYTES) {
+                snapshotsSkipped++;
+                continue;
+            }
+            int base = match.find(session.acked);
+            // A delta against a very different baseline can outgrow the
+            // frame, the full state always fits
+            boolean delta = base >= 0 && writeSnapshot(seq, session.acked, session.lastInput,
+                    match.states[base], match.lengths[base], state, length);
+            if (!delta) {
+                writeSnapshot(seq, -1, session.lastInput, state, 0, state, length);
+                fullSnapshotsSent++;
+            }
+            session.ensureWritable(scratch.remaining());
+            session.out.put(scratch);
+            snapshotsSent++;
+            flush(session);
+            if (!session.channel.isOpen()) s--;
+        }
+    }
+
+    // Leaves the frame in scratch ready to copy, false if it did not fit
+    private boolean writeSnapshot(int seq, int baseSeq, int lastInput, byte[] base, int baseLength,
+                                  byte[] state, int length) {
+        ByteBuffer frame = scratch.clear();
+        int start = Protocol.beginFrame(frame, Protocol.SNAPSHOT);
+        frame.putInt(seq).putInt(baseSeq).putInt(lastInput);
+        try {
+            StateDelta.encode(base, baseLength, state, length, frame);
+        } catch (BufferOverflowException e) {
+            return false;
+        }
+        Protocol.endFrame(frame, start);
+        frame.flip();
+        return true;
+    }
+
+    private void flush(Session session) throws IOException {
+        ByteBuffer out = session.out;
+        out.flip();
+        try {
+            bytesSent += session.channel.write(out);
+        } catch (IOException e) {
+            out.compact();
+            closeSession(session);
+            return;
+        }
+        boolean pending = out.hasRemaining();
+        out.compact();
+        if (session.key.isValid()) {
+            session.key.interestOps(pending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+    }
+
+    private void closeSession(Session session) {
+        if (!sessions.remove(session)) return;
+        sessionCount = sessions.size();
+        session.key.cancel();
+        try {
+            session.channel.close();
+        } catch (IOException e) {
+            logger.debug("Closing session {}: {}", box(session.id), e.toString());
+        }
+        Match match = session.match;
+        if (match == null) return;
+        match.sessions.remove(session);
+        if (match.sessions.isEmpty()) {
+            matches.remove(match);
+            matchCount = matches.size();
+            logger.info("Match {} closed after {} ticks", box(match.id), box(match.ticks));
+        } else {
+            match.world.removePilot(session.pilot);
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        Thread current = thread;
+        if (selector != null) selector.wakeup();
+        if (current != null) {
+            try {
+                current.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            if (serverChannel != null) serverChannel.close();
+            if (selector != null) selector.close();
+        } catch (IOException e) {
+            logger.warn("Closing match server: {}", e.toString());
+        }
+    }
+
+    public int getPort() {
+        return boundPort;
+    }
+
+    public int getSessionCount() {
+        return sessionCount;
+    }
+
+    public int getMatchCount() {
+        return matchCount;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public long getSnapshotsSent() {
+        return snapshotsSent;
+    }
+
+    // Snapshots sent with no baseline the client had acked
+    public long getFullSnapshotsSent() {
+        return fullSnapshotsSent;
+    }
+
+    // Snapshots not sent because the session had not read the previous ones
+    public long getSnapshotsSkipped() {
+        return snapshotsSkipped;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    // One shared world and the sessions flying in it
+    private static final class Match {
+        final int id;
+        final World world;
+        final List<Session> sessions = new ArrayList<>();
+        // Snapshot history, slot seq % HISTORY
+        final byte[][] states = new byte[HISTORY][];
+        final int[] lengths = new int[HISTORY];
+        final int[] seqs = new int[HISTORY];
+        int nextSeq;
+        long ticks;
+        int snapshotCredit;
+        int restartCountdown;
+
+        Match(int id, long seed) {
+            this.id = id;
+            this.world = new World(seed);
+            // Hundreds of worlds in one process, skip the per phase clock reads
+            world.getProfiler().setEnabled(false);
+            world.start();
+            for (int i = 0; i < HISTORY; i++) {
+                states[i] = new byte[4096];
+                seqs[i] = -1;
+            }
+        }
+
+        void step() {
+            ticks++;
+            if (world.isGameOver()) {
+                if (++restartCountdown >= RESTART_TICKS) {
+                    restartCountdown = 0;
+                    world.reset();
+                    world.start();
+                }
+                return;
+            }
+            world.step();
+        }
+
+        // Encodes the world as the next snapshot, returns its history slot
+        int capture() {
+            int seq = nextSeq++;
+            int slot = seq % HISTORY;
+            while (true) {
+                ByteBuffer buffer = ByteBuffer.wrap(states[slot]);
+                try {
+                    NetState.write(world, buffer);
+                    lengths[slot] = buffer.position();
+                    seqs[slot] = seq;
+                    return slot;
+                } catch (BufferOverflowException e) {
+                    if (states[slot].length >= MAX_STATE_BYTES) {
+                        logger.warn("Match {} state does not fit in a frame, snapshot dropped", box(id));
+                        seqs[slot] = -1;
+                        return -1;
+                    }
+                    states[slot] = new byte[Math.min(states[slot].length * 2, MAX_STATE_BYTES)];
+                }
+            }
+        }
+
+        // History slot of a snapshot, -1 when it is gone or never existed
+        int find(int seq) {
+            if (seq < 0) return -1;
+            int slot = seq % HISTORY;
+            return seqs[slot] == seq ? slot : -1;
+        }
+    }
+
+    private static final class Session {
+        final int id;
+        final SocketChannel channel;
+        final long acceptedAt;
+        final ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_BYTES);
+        ByteBuffer out = ByteBuffer.allocate(WRITE_BUFFER_BYTES);
+        SelectionKey key;
+        Match match;
+        Pilot pilot;
+        // Newest snapshot the client decoded, and newest input applied
+        int acked = -1;
+        int lastInput = -1;
+
+        // Inputs waiting for their tick, a ring of reused PlayerInputs
+        final PlayerInput[] queue = new PlayerInput[INPUT_QUEUE];
+        final PlayerInput merged = new PlayerInput();
+        final int[] queueSeqs = new int[INPUT_QUEUE];
+        int queueHead;
+        int queueSize;
+
+        Session(int id, SocketChannel channel, long acceptedAt) {
+            this.id = id;
+            this.channel = channel;
+            this.acceptedAt = acceptedAt;
+            for (int i = 0; i < INPUT_QUEUE; i++) {
+                queue[i] = new PlayerInput();
+            }
+        }
+
+        void queueInput(int seq, ByteBuffer body) {
+            if (queueSize == INPUT_QUEUE) {
+                // Too far ahead: fold the newest input into the last queued
+                // one so the ack still covers it. Presses are capped like a
+                // single input's, a flooding client only loses its own.
+                PlayerInput last = queue[(queueHead + queueSize - 1) % INPUT_QUEUE];
+                Protocol.getInput(body, merged);
+                int max = Protocol.MAX_PRESSES;
+                for (int i = 0; i < last.getShots() && merged.getShots() < max; i++) merged.addShot();
+                for (int i = 0; i < last.getMissileBursts() && merged.getMissileBursts() < max; i++) {
+                    merged.addMissileBurst();
+                }
+                for (int i = 0; i < last.getRotateLeft() && merged.getRotateLeft() < max; i++) merged.addRotateLeft();
+                for (int i = 0; i < last.getRotateRight() && merged.getRotateRight() < max; i++) {
+                    merged.addRotateRight();
+                }
+                last.copyFrom(merged);
+                queueSeqs[(queueHead + queueSize - 1) % INPUT_QUEUE] = seq;
+                return;
+            }
+            int slot = (queueHead + queueSize) % INPUT_QUEUE;
+            Protocol.getInput(body, queue[slot]);
+            queueSeqs[slot] = seq;
+            queueSize++;
+        }
+
+        // One queued input per tick. With none queued the keys stay held
+        // and there are no presses, like a client that just did nothing.
+        void applyNextInput() {
+            PlayerInput input = pilot.getInput();
+            if (queueSize == 0) {
+                input.clearPresses();
+                return;
+            }
+            input.copyFrom(queue[queueHead]);
+            lastInput = queueSeqs[queueHead];
+            queueHead = (queueHead + 1) % INPUT_QUEUE;
+            queueSize--;
+        }
+
+        int pending() {
+            return out.position();
+        }
+
+        void ensureWritable(int bytes) {
+            if (out.remaining() >= bytes) return;
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes));
+            out.flip();
+            grown.put(out);
+            out = grown;
+        }
+    }
+
+    // Runs a server until killed:
+    // MatchServer [port] [tick rate] [snapshot rate] [ships per match]
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int tickRate = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        int snapshotRate = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int shipsPerMatch = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+        MatchServer server = new MatchServer(port, tickRate, snapshotRate, shipsPerMatch,
+                Integer.getInteger("asteroid.server.maxSessions", 1024));
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close, "match-server-shutdown"));
+    }
+}
@@ -0,0 +1,267 @@
+package se.asteroid.net;
+
+import se.asteroid.model.PlayerInput;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// A MatchServer client on a non-blocking channel, driven by whoever owns
+// it: sendInput() once per tick, poll() to take in snapshots. Each snapshot
+// is a delta against one this client acked, so the last few decoded states
+// are kept as baselines and every decoded one is acked straight away.
+// Not thread safe, one thread drives a client.
+public class NetClient implements Closeable {
+    // Same depth as the server's history
+    private static final int HISTORY = 32;
+    private static final int INITIAL_STATE_BYTES = 4096;
+    private static final long HANDSHAKE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final SocketChannel channel;
+    private final ByteBuffer in = ByteBuffer.allocate(Protocol.MAX_FRAME_BYTES * 2);
+    private final ByteBuffer out = ByteBuffer.allocate(8192);
+    private final NetState state = new NetState();
+    private final byte[][] states = new byte[HISTORY][];
+    private final int[] lengths = new int[HISTORY];
+    private final int[] seqs = new int[HISTORY];
+
+    private boolean welcomed;
+    private int sessionId;
+    private int matchId;
+    private int slot;
+    private int tickRate;
+    private int snapshotRate;
+    private long seed;
+
+    private int nextInput;
+    private int lastSnapshot = -1;
+    private int lastInputApplied = -1;
+    private long snapshotsReceived;
+    private long bytesReceived;
+
+    private NetClient(SocketChannel channel) {
+        this.channel = channel;
+        for (int i = 0; i < HISTORY; i++) {
+            states[i] = new byte[INITIAL_STATE_BYTES];
+            seqs[i] = -1;
+        }
+    }
+
+    // Connects and joins a match, blocking until the server welcomes us
+    public static NetClient connect(String host, int port) throws IOException {
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+        NetClient client = new NetClient(channel);
+        try {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.configureBlocking(false);
+            int start = Protocol.beginFrame(client.out, Protocol.HELLO);
+            client.out.put((byte) Protocol.VERSION);
+            Protocol.endFrame(client.out, start);
+            client.flush();
+
+            long deadline = System.nanoTime() + HANDSHAKE_TIMEOUT_NANOS;
+            while (!client.welcomed) {
+                client.poll();
+                if (System.nanoTime() - deadline > 0) {
+                    throw new IOException("No welcome from " + host + ":" + port);
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return client;
+    }
+
+    // Sends one tick of input and returns its sequence number, the server
+    // reports the newest one it applied with each snapshot
+    public int sendInput(PlayerInput input) throws IOException {
+        int seq = nextInput++;
+        ensureRoom();
+        int start = Protocol.beginFrame(out, Protocol.INPUT);
+        out.putInt(seq);
+        Protocol.putInput(out, input);
+        Protocol.endFrame(out, start);
+        flush();
+        return seq;
+    }
+
+    // Reads whatever has arrived, returns how many snapshots were decoded
+    public int poll() throws IOException {
+        int decoded = 0;
+        int read;
+        while ((read = channel.read(in)) > 0) {
+            bytesReceived += read;
+            in.flip();
+            int size;
+            while ((size = Protocol.frameSize(in)) >= 0 && in.remaining() >= size) {
+                int end = in.position() + size;
+                int limit = in.limit();
+                in.position(in.position() + 2).limit(end);
+                if (handleFrame(in.get(), in)) decoded++;
+                in.limit(limit).position(end);
+            }
+            in.compact();
+        }
+        if (read < 0) {
+            throw new IOException("Server closed the connection");
+        }
+        flush();
+        return decoded;
+    }
+
+    private boolean handleFrame(byte type, ByteBuffer body) throws IOException {
+        switch (type) {
+            case Protocol.WELCOME -> {
+                int version = body.get();
+                if (version != Protocol.VERSION) {
+                    throw new IOException("Server speaks version " + version);
+                }
+                sessionId = body.getInt();
+                matchId = body.getInt();
+                slot = body.getShort();
+                tickRate = body.getShort();
+                snapshotRate = body.getShort();
+                seed = body.getLong();
+                welcomed = true;
+                return false;
+            }
+            case Protocol.SNAPSHOT -> {
+                return snapshot(body);
+            }
+            case Protocol.REJECT -> throw new IOException(body.get() == Protocol.REJECT_FULL
+                    ? "Server is full" : "Server rejected our version");
+            default -> throw new IOException("Unknown frame type " + type);
+        }
+    }
+
+    private boolean snapshot(ByteBuffer body) throws IOException {
+        int seq = body.getInt();
+        int baseSeq = body.getInt();
+        int inputApplied = body.getInt();
+        if (seq <= lastSnapshot) return false;
+
+        byte[] base = null;
+        int baseLength = 0;
+        if (baseSeq >= 0) {
+            int baseSlot = baseSeq % HISTORY;
+            if (seqs[baseSlot] != baseSeq) {
+                // Cannot happen with a well behaved server, skip it and the
+                // next one comes against what we did ack
+                return false;
+            }
+            base = states[baseSlot];
+            baseLength = lengths[baseSlot];
+        }
+
+        int into = seq % HISTORY;
+        int length = StateDelta.decodedLength(body);
+        if (length > states[into].length) {
+            states[into] = new byte[Math.max(length, states[into].length * 2)];
+        }
+        lengths[into] = StateDelta.decode(base, baseLength, body, states[into]);
+        seqs[into] = seq;
+        state.read(states[into], lengths[into]);
+        lastSnapshot = seq;
+        lastInputApplied = inputApplied;
+        snapshotsReceived++;
+
+        ensureRoom();
+        int start = Protocol.beginFrame(out, Protocol.ACK);
+        out.putInt(seq);
+        Protocol.endFrame(out, start);
+        return true;
+    }
+
+    private void ensureRoom() throws IOException {
+        if (out.remaining() >= 64) return;
+        flush();
+        if (out.remaining() < 64) {
+            throw new IOException("Server is not reading");
+        }
+    }
+
+    private void flush() throws IOException {
+        out.flip();
+        channel.write(out);
+        out.compact();
+    }
+
+    // Leaves the match, the server drops our ship
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen()) return;
+        try {
+            if (out.remaining() >= Protocol.FRAME_HEADER_BYTES) {
+                Protocol.endFrame(out, Protocol.beginFrame(out, Protocol.BYE));
+                flush();
+            }
+        } catch (IOException e) {
+            // Closing anyway
+        } finally {
+            channel.close();
+        }
+    }
+
+    // The newest decoded state, overwritten by the next snapshot
+    public NetState getState() {
+        return state;
+    }
+
+    public boolean hasState() {
+        return lastSnapshot >= 0;
+    }
+
+    public int getSessionId() {
+        return sessionId;
+    }
+
+    public int getMatchId() {
+        return matchId;
+    }
+
+    // The slot of our ship, see NetState.findShip()
+    public int getSlot() {
+        return slot;
+    }
+
+    public int getTickRate() {
+        return tickRate;
+    }
+
+    public int getSnapshotRate() {
+        return snapshotRate;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getLastSnapshot() {
+        return lastSnapshot;
+    }
+
+    // Newest input sequence the server had applied in the newest snapshot, -1 for none
+    public int getLastInputApplied() {
+        return lastInputApplied;
+    }
+
+    // Inputs sent so far, also the sequence number of the next one
+    public int getInputsSent() {
+        return nextInput;
+    }
+
+    public long getSnapshotsReceived() {
+        return snapshotsReceived;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+}
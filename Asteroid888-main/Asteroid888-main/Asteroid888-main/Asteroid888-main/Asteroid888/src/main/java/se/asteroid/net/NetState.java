@@ -0,0 +1,377 @@
+package se.asteroid.net;
+
+import se.asteroid.model.Asteroid;
+import se.asteroid.model.Boss;
+import se.asteroid.model.Pilot;
+import se.asteroid.model.ProjectileBuffer;
+import se.asteroid.model.RegularEnemy;
+import se.asteroid.model.SecondTier;
+import se.asteroid.model.Ship;
+import se.asteroid.model.World;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+// What a client sees of a World. write() encodes it compactly: ships keep
+// full precision so a client can predict its own, everything else is
+// quantized to a quarter pixel and a tenth of a degree in shorts. read()
+// decodes it into flat arrays, reused from one snapshot to the next.
+// Explosions are left out, a client draws those where things get hit.
+public class NetState {
+    public static final int BODY_SMALL_ASTEROID = 0;
+    public static final int BODY_LARGE_ASTEROID = 1;
+    public static final int BODY_REGULAR_ENEMY = 2;
+    public static final int BODY_SECOND_TIER = 3;
+    public static final int BODY_BOSS = 4;
+
+    private static final double POSITION_SCALE = 4;
+    private static final double ANGLE_SCALE = 10;
+    private static final int FULL_TURN = 3600;
+
+    private static final int FLAG_STARTED = 1;
+    private static final int FLAG_GAME_OVER = 2;
+    private static final int FLAG_SUCCEEDED = 4;
+    private static final int FLAG_BOSS_PHASE = 8;
+    private static final int FLAG_BOSS_DEFEATED = 16;
+
+    // A pilot before the game starts has no ship, and no ship fields
+    private static final int SHIP_PRESENT = 1;
+    private static final int SHIP_EXPLODING = 2;
+    private static final int SHIP_INVINCIBLE = 4;
+
+    private long tick;
+    private int score;
+    private int lives;
+    private int flags;
+
+    private int shipCount;
+    private int[] shipSlot = new int[4];
+    private int[] shipFlags = new int[4];
+    private double[] shipX = new double[4];
+    private double[] shipY = new double[4];
+    private double[] shipVelocityX = new double[4];
+    private double[] shipVelocityY = new double[4];
+    private double[] shipAngle = new double[4];
+
+    private int bodyCount;
+    private byte[] bodyKind = new byte[32];
+    private float[] bodyX = new float[32];
+    private float[] bodyY = new float[32];
+    private float[] bodyAngle = new float[32];
+    private int[] bodyHealth = new int[32];
+
+    private int projectileCount;
+    private byte[] projectileOwner = new byte[128];
+    private byte[] projectileKind = new byte[128];
+    private float[] projectileX = new float[128];
+    private float[] projectileY = new float[128];
+    private float[] projectileAngle = new float[128];
+
+    public static void write(World world, ByteBuffer out) {
+        Boss boss = world.getBoss();
+        boolean bossAlive = boss != null && boss.isAlive();
+        int worldFlags = (world.isGameStarted() ? FLAG_STARTED : 0) | (world.isGameOver() ? FLAG_GAME_OVER : 0)
+                | (world.isGameSucceeded() ? FLAG_SUCCEEDED : 0) | (world.isBossPhaseStarted() ? FLAG_BOSS_PHASE : 0)
+                | (world.isBossDefeated() ? FLAG_BOSS_DEFEATED : 0);
+        out.putInt((int) world.getTick())
+                .putInt(world.getScore())
+                .put((byte) world.getLives())
+                .put((byte) worldFlags);
+
+        List<Pilot> pilots = world.getPilots();
+        out.put((byte) pilots.size());
+        for (Pilot pilot : pilots) {
+            Ship ship = pilot.getShip();
+            out.put((byte) pilot.getSlot());
+            out.put((byte) ((ship != null ? SHIP_PRESENT : 0) | (pilot.isExploding() ? SHIP_EXPLODING : 0)
+                    | (ship != null && ship.isInvincible() ? SHIP_INVINCIBLE : 0)));
+            if (ship != null) {
+                out.putDouble(ship.getX()).putDouble(ship.getY())
+                        .putDouble(ship.getVelocityX()).putDouble(ship.getVelocityY())
+                        .putDouble(ship.getAngle());
+            }
+        }
+
+        List<Asteroid> asteroids = world.getAsteroids();
+        out.putShort((short) asteroids.size());
+        for (Asteroid asteroid : asteroids) {
+            putBody(out, asteroid.isLarge() ? BODY_LARGE_ASTEROID : BODY_SMALL_ASTEROID,
+                    asteroid.getX(), asteroid.getY(), asteroid.rotationAngle, asteroid.getHealth());
+        }
+        List<RegularEnemy> regularEnemies = world.getRegularEnemies();
+        out.putShort((short) regularEnemies.size());
+        for (RegularEnemy enemy : regularEnemies) {
+            putBody(out, BODY_REGULAR_ENEMY, enemy.getX(), enemy.getY(), enemy.getAngle(), enemy.getHealth());
+        }
+        List<SecondTier> secondTierEnemies = world.getSecondTierEnemies();
+        out.putShort((short) secondTierEnemies.size());
+        for (SecondTier enemy : secondTierEnemies) {
+            putBody(out, BODY_SECOND_TIER, enemy.getX(), enemy.getY(), enemy.getAngle(), enemy.getHealth());
+        }
+        out.put((byte) (bossAlive ? 1 : 0));
+        if (bossAlive) {
+            putBody(out, BODY_BOSS, boss.getX(), boss.getY(), boss.getAngle(), boss.getHealth());
+        }
+
+        for (Pilot pilot : pilots) {
+            if (pilot.getShip() != null) putProjectiles(out, pilot.getShip().getBulletBuffer());
+        }
+        for (RegularEnemy enemy : regularEnemies) {
+            putProjectiles(out, enemy.getBulletBuffer());
+        }
+        for (SecondTier enemy : secondTierEnemies) {
+            putProjectiles(out, enemy.getBulletBuffer());
+        }
+        if (bossAlive) putProjectiles(out, boss.getBulletBuffer());
+        out.putShort((short) -1);
+    }
+
+    private static void putBody(ByteBuffer out, int kind, double x, double y, double angle, int health) {
+        out.put((byte) kind)
+                .putShort(position(x))
+                .putShort(position(y))
+                .putShort(angle(angle))
+                .putShort((short) health);
+    }
+
+    // Each buffer: its owner and count, then kind, position and angle per
+    // projectile. A count of -1 ends the list.
+    private static void putProjectiles(ByteBuffer out, ProjectileBuffer projectiles) {
+        int count = projectiles.size();
+        out.putShort((short) count).put(projectiles.getOwner());
+        for (int i = 0; i < count; i++) {
+            out.put(projectiles.getKind(i))
+                    .putShort(position(projectiles.getX(i)))
+                    .putShort(position(projectiles.getY(i)))
+                    .putShort(angle(projectiles.getAngle(i)));
+        }
+    }
+
+    private static short position(double value) {
+        long scaled = Math.round(value * POSITION_SCALE);
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, scaled));
+    }
+
+    private static short angle(double degrees) {
+        return (short) Math.floorMod(Math.round(degrees * ANGLE_SCALE), FULL_TURN);
+    }
+
+    // Decodes a state written by write()
+    public void read(byte[] data, int length) {
+        ByteBuffer in = ByteBuffer.wrap(data, 0, length);
+        tick = in.getInt() & 0xFFFFFFFFL;
+        score = in.getInt();
+        lives = in.get();
+        flags = in.get();
+
+        shipCount = in.get() & 0xFF;
+        if (shipCount > shipSlot.length) growShips(shipCount);
+        for (int i = 0; i < shipCount; i++) {
+            shipSlot[i] = in.get() & 0xFF;
+            shipFlags[i] = in.get();
+            if ((shipFlags[i] & SHIP_PRESENT) != 0) {
+                shipX[i] = in.getDouble();
+                shipY[i] = in.getDouble();
+                shipVelocityX[i] = in.getDouble();
+                shipVelocityY[i] = in.getDouble();
+                shipAngle[i] = in.getDouble();
+            } else {
+                shipX[i] = shipY[i] = shipVelocityX[i] = shipVelocityY[i] = shipAngle[i] = 0;
+            }
+        }
+
+        bodyCount = 0;
+        readBodies(in, in.getShort());
+        readBodies(in, in.getShort());
+        readBodies(in, in.getShort());
+        readBodies(in, in.get());
+
+        projectileCount = 0;
+        int count;
+        while ((count = in.getShort()) >= 0) {
+            byte owner = in.get();
+            ensureProjectiles(projectileCount + count);
+            for (int i = 0; i < count; i++) {
+                int p = projectileCount++;
+                projectileOwner[p] = owner;
+                projectileKind[p] = in.get();
+                projectileX[p] = (float) (in.getShort() / POSITION_SCALE);
+                projectileY[p] = (float) (in.getShort() / POSITION_SCALE);
+                projectileAngle[p] = (float) (in.getShort() / ANGLE_SCALE);
+            }
+        }
+    }
+
+    private void readBodies(ByteBuffer in, int count) {
+        if (bodyCount + count > bodyKind.length) {
+            int capacity = Math.max(bodyCount + count, bodyKind.length * 2);
+            bodyKind = Arrays.copyOf(bodyKind, capacity);
+            bodyX = Arrays.copyOf(bodyX, capacity);
+            bodyY = Arrays.copyOf(bodyY, capacity);
+            bodyAngle = Arrays.copyOf(bodyAngle, capacity);
+            bodyHealth = Arrays.copyOf(bodyHealth, capacity);
+        }
+        for (int i = 0; i < count; i++) {
+            int b = bodyCount++;
+            bodyKind[b] = in.get();
+            bodyX[b] = (float) (in.getShort() / POSITION_SCALE);
+            bodyY[b] = (float) (in.getShort() / POSITION_SCALE);
+            bodyAngle[b] = (float) (in.getShort() / ANGLE_SCALE);
+            bodyHealth[b] = in.getShort();
+        }
+    }
+
+    private void growShips(int count) {
+        int capacity = Math.max(count, shipSlot.length * 2);
+        shipSlot = Arrays.copyOf(shipSlot, capacity);
+        shipFlags = Arrays.copyOf(shipFlags, capacity);
+        shipX = Arrays.copyOf(shipX, capacity);
+        shipY = Arrays.copyOf(shipY, capacity);
+        shipVelocityX = Arrays.copyOf(shipVelocityX, capacity);
+        shipVelocityY = Arrays.copyOf(shipVelocityY, capacity);
+        shipAngle = Arrays.copyOf(shipAngle, capacity);
+    }
+
+    private void ensureProjectiles(int count) {
+        if (count <= projectileOwner.length) return;
+        int capacity = Math.max(count, projectileOwner.length * 2);
+        projectileOwner = Arrays.copyOf(projectileOwner, capacity);
+        projectileKind = Arrays.copyOf(projectileKind, capacity);
+        projectileX = Arrays.copyOf(projectileX, capacity);
+        projectileY = Arrays.copyOf(projectileY, capacity);
+        projectileAngle = Arrays.copyOf(projectileAngle, capacity);
+    }
+
+    // World tick the state was taken on
+    public long getTick() {
+        return tick;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getLives() {
+        return lives;
+    }
+
+    public boolean isGameStarted() {
+        return (flags & FLAG_STARTED) != 0;
+    }
+
+    public boolean isGameOver() {
+        return (flags & FLAG_GAME_OVER) != 0;
+    }
+
+    public boolean isGameSucceeded() {
+        return (flags & FLAG_SUCCEEDED) != 0;
+    }
+
+    public boolean isBossPhaseStarted() {
+        return (flags & FLAG_BOSS_PHASE) != 0;
+    }
+
+    public boolean isBossDefeated() {
+        return (flags & FLAG_BOSS_DEFEATED) != 0;
+    }
+
+    public int getShipCount() {
+        return shipCount;
+    }
+
+    // Index of the ship on the given slot, -1 when nobody flies it
+    public int findShip(int slot) {
+        for (int i = 0; i < shipCount; i++) {
+            if (shipSlot[i] == slot) return i;
+        }
+        return -1;
+    }
+
+    public int getShipSlot(int i) {
+        return shipSlot[i];
+    }
+
+    public boolean hasShip(int i) {
+        return (shipFlags[i] & SHIP_PRESENT) != 0;
+    }
+
+    public boolean isShipExploding(int i) {
+        return (shipFlags[i] & SHIP_EXPLODING) != 0;
+    }
+
+    public boolean isShipInvincible(int i) {
+        return (shipFlags[i] & SHIP_INVINCIBLE) != 0;
+    }
+
+    public double getShipX(int i) {
+        return shipX[i];
+    }
+
+    public double getShipY(int i) {
+        return shipY[i];
+    }
+
+    public double getShipVelocityX(int i) {
+        return shipVelocityX[i];
+    }
+
+    public double getShipVelocityY(int i) {
+        return shipVelocityY[i];
+    }
+
+    public double getShipAngle(int i) {
+        return shipAngle[i];
+    }
+
+    // Asteroids, regular enemies, second tier enemies and the boss, in that order
+    public int getBodyCount() {
+        return bodyCount;
+    }
+
+    public int getBodyKind(int i) {
+        return bodyKind[i];
+    }
+
+    public float getBodyX(int i) {
+        return bodyX[i];
+    }
+
+    public float getBodyY(int i) {
+        return bodyY[i];
+    }
+
+    public float getBodyAngle(int i) {
+        return bodyAngle[i];
+    }
+
+    public int getBodyHealth(int i) {
+        return bodyHealth[i];
+    }
+
+    public int getProjectileCount() {
+        return projectileCount;
+    }
+
+    // One of the ProjectileBuffer OWNER_ constants
+    public byte getProjectileOwner(int i) {
+        return projectileOwner[i];
+    }
+
+    // One of the ProjectileBuffer KIND_ constants
+    public byte getProjectileKind(int i) {
+        return projectileKind[i];
+    }
+
+    public float getProjectileX(int i) {
+        return projectileX[i];
+    }
+
+    public float getProjectileY(int i) {
+        return projectileY[i];
+    }
+
+    public float getProjectileAngle(int i) {
+        return projectileAngle[i];
+    }
+}
@@ -0,0 +1,108 @@
+package se.asteroid.net;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import se.asteroid.model.PlayerInput;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.apache.logging.log4j.util.Unbox.box;
+
+// Client/server play mode. A frontend calls tick() at the server's tick
+// rate with the input it gathered, draws our ship from getPredictor() and
+// everything else from getState(). Our ship answers the keys on the same
+// tick while the server round trip happens behind it, so the server can
+// keep its snapshot rate. Not thread safe, one thread drives it.
+public class PredictedClient implements Closeable {
+    private static final Logger logger = LogManager.getLogger(PredictedClient.class);
+
+    private final NetClient client;
+    private final ShipPredictor predictor = new ShipPredictor();
+
+    private PredictedClient(NetClient client) {
+        this.client = client;
+    }
+
+    public static PredictedClient connect(String host, int port) throws IOException {
+        return new PredictedClient(NetClient.connect(host, port));
+    }
+
+    // One client tick: takes in snapshots, sends and predicts the input
+    public void tick(PlayerInput input) throws IOException {
+        if (client.poll() > 0) {
+            predictor.reconcile(client.getState(), client.getSlot(), client.getLastInputApplied());
+        }
+        int seq = client.sendInput(input);
+        predictor.predict(seq, input);
+        predictor.smooth();
+    }
+
+    @Override
+    public void close() throws IOException {
+        client.close();
+    }
+
+    public NetClient getClient() {
+        return client;
+    }
+
+    public ShipPredictor getPredictor() {
+        return predictor;
+    }
+
+    // The newest authoritative state, our own ship in it lags the predictor
+    public NetState getState() {
+        return client.getState();
+    }
+
+    public int getTickRate() {
+        return client.getTickRate();
+    }
+
+    // Flies a ship in circles and logs how far off the prediction was:
+    // PredictedClient [host] [port] [seconds]
+    // Without a host it starts a server on the loopback interface
+    public static void main(String[] args) throws IOException {
+        MatchServer server = null;
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : MatchServer.DEFAULT_PORT;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        if (args.length == 0) {
+            server = new MatchServer(0, 60, 20, 4, 16);
+            server.start();
+            port = server.getPort();
+        }
+
+        try (PredictedClient client = connect(host, port)) {
+            int tickRate = client.getTickRate();
+            long stepNanos = 1_000_000_000L / tickRate;
+            long nextTick = System.nanoTime();
+            PlayerInput input = new PlayerInput();
+            double worstCorrection = 0;
+            for (int tick = 0; tick < seconds * tickRate; tick++) {
+                // A quarter turn of each key in turn
+                int phase = tick / (tickRate / 4) % 4;
+                input.setRight(phase == 0);
+                input.setDown(phase == 1);
+                input.setLeft(phase == 2);
+                input.setUp(phase == 3);
+                client.tick(input);
+                worstCorrection = Math.max(worstCorrection, client.getPredictor().getLastCorrection());
+
+                if ((tick + 1) % tickRate == 0) {
+                    ShipPredictor predictor = client.getPredictor();
+                    logger.info("Ship at ({}, {}), {} inputs in flight, worst correction {} px",
+                            box(Math.round(predictor.getX())), box(Math.round(predictor.getY())),
+                            box(predictor.getPendingCount()), box(Math.round(worstCorrection * 100) / 100.0));
+                    worstCorrection = 0;
+                }
+                nextTick += stepNanos;
+                LockSupport.parkNanos(nextTick - System.nanoTime());
+            }
+        } finally {
+            if (server != null) server.close();
+        }
+    }
+}
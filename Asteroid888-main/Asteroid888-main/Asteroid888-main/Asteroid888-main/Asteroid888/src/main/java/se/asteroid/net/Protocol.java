@@ -0,0 +1,126 @@
+package se.asteroid.net;
+
+import se.asteroid.env.Action;
+import se.asteroid.model.PlayerInput;
+
+import java.nio.ByteBuffer;
+
+// Wire format between MatchServer and NetClient over TCP. Every message is
+// a frame: an unsigned short length covering the type byte and the body,
+// then the type byte, then the body. Multi-byte fields are big-endian, the
+// ByteBuffer default; counts that are usually small are varints.
+//
+// Client to server:
+//   HELLO    version byte
+//   INPUT    input sequence int, one tick of input (see putInput)
+//   ACK      snapshot sequence int, the newest snapshot the client decoded
+//   BYE
+// Server to client:
+//   WELCOME  version byte, session int, match int, slot short, tick rate
+//            short, snapshot rate short, world seed long
+//   SNAPSHOT sequence int, baseline sequence int (-1 for none), last input
+//            sequence applied int, then a StateDelta of a NetState against
+//            the baseline
+//   REJECT   reason byte
+final class Protocol {
+    static final int VERSION = 1;
+
+    static final int FRAME_HEADER_BYTES = 3;
+    static final int MAX_FRAME_BYTES = 0xFFFF + 2;
+    // Bytes before the delta in a SNAPSHOT frame
+    static final int SNAPSHOT_HEADER_BYTES = FRAME_HEADER_BYTES + 12;
+    // Most presses of a kind one input carries
+    static final int MAX_PRESSES = 16;
+
+    static final byte HELLO = 1;
+    static final byte WELCOME = 2;
+    static final byte INPUT = 3;
+    static final byte ACK = 4;
+    static final byte SNAPSHOT = 5;
+    static final byte REJECT = 6;
+    static final byte BYE = 7;
+
+    static final byte REJECT_VERSION = 1;
+    static final byte REJECT_FULL = 2;
+
+    private Protocol() {
+    }
+
+    // Starts a frame, endFrame() fills in its length once the body is written
+    static int beginFrame(ByteBuffer out, byte type) {
+        int start = out.position();
+        out.putShort((short) 0).put(type);
+        return start;
+    }
+
+    static void endFrame(ByteBuffer out, int start) {
+        out.putShort(start, (short) (out.position() - start - 2));
+    }
+
+    // Size of the frame starting at the buffer's position, -1 until its
+    // length has arrived
+    static int frameSize(ByteBuffer in) {
+        if (in.remaining() < 2) return -1;
+        return (in.getShort(in.position()) & 0xFFFF) + 2;
+    }
+
+    // Same layout as a replay tick entry: one byte of Action bits with the
+    // held keys and a flag per press kind, then a varint per flagged count
+    static void putInput(ByteBuffer out, PlayerInput input) {
+        int bits = 0;
+        if (input.isUp()) bits |= Action.UP;
+        if (input.isDown()) bits |= Action.DOWN;
+        if (input.isLeft()) bits |= Action.LEFT;
+        if (input.isRight()) bits |= Action.RIGHT;
+        if (input.getShots() > 0) bits |= Action.SHOOT;
+        if (input.getMissileBursts() > 0) bits |= Action.MISSILE;
+        if (input.getRotateLeft() > 0) bits |= Action.ROTATE_LEFT;
+        if (input.getRotateRight() > 0) bits |= Action.ROTATE_RIGHT;
+        out.put((byte) bits);
+        if (input.getShots() > 0) putVarint(out, input.getShots());
+        if (input.getMissileBursts() > 0) putVarint(out, input.getMissileBursts());
+        if (input.getRotateLeft() > 0) putVarint(out, input.getRotateLeft());
+        if (input.getRotateRight() > 0) putVarint(out, input.getRotateRight());
+    }
+
+    // Overwrites input with one read by putInput(). Counts are capped, a
+    // tick never has more than a handful of presses.
+    static void getInput(ByteBuffer in, PlayerInput input) {
+        int bits = in.get();
+        input.clear();
+        input.setUp((bits & Action.UP) != 0);
+        input.setDown((bits & Action.DOWN) != 0);
+        input.setLeft((bits & Action.LEFT) != 0);
+        input.setRight((bits & Action.RIGHT) != 0);
+        int shots = (bits & Action.SHOOT) != 0 ? getCount(in) : 0;
+        int missiles = (bits & Action.MISSILE) != 0 ? getCount(in) : 0;
+        int rotateLeft = (bits & Action.ROTATE_LEFT) != 0 ? getCount(in) : 0;
+        int rotateRight = (bits & Action.ROTATE_RIGHT) != 0 ? getCount(in) : 0;
+        for (int i = 0; i < shots; i++) input.addShot();
+        for (int i = 0; i < missiles; i++) input.addMissileBurst();
+        for (int i = 0; i < rotateLeft; i++) input.addRotateLeft();
+        for (int i = 0; i < rotateRight; i++) input.addRotateRight();
+    }
+
+    private static int getCount(ByteBuffer in) {
+        return (int) Math.min(getVarint(in), MAX_PRESSES);
+    }
+
+    static void putVarint(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static long getVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            int b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
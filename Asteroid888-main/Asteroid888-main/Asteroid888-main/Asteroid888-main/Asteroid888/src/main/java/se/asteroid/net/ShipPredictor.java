@@ -0,0 +1,177 @@
+package se.asteroid.net;
+
+import se.asteroid.model.PlayerInput;
+import se.asteroid.model.Ship;
+
+// Client side prediction for our own ship. Every input is applied to a local
+// Ship the moment it is sent, with the same calls World makes, and kept until
+// a snapshot says the server has applied it. A snapshot puts the ship back
+// where the server has it and replays the inputs still in flight, so with
+// no packet loss and no late input the result is what we predicted already.
+// When it is not, the shown position keeps where it was and the difference
+// bleeds off over a few ticks instead of jumping.
+public class ShipPredictor {
+    // Two seconds of input at 60 ticks a second
+    private static final int MAX_PENDING = 128;
+    // Share of the correction left after each tick, about a quarter second
+    // to bring it under a tenth
+    private static final double CORRECTION_DECAY = 0.85;
+    // Below this the correction is dropped
+    private static final double CORRECTION_EPSILON = 0.01;
+    // Further off than this is a wrap or a respawn, shown as is
+    private static final double SNAP_DISTANCE = 100;
+
+    private final Ship ship = new Ship(0, 0);
+    private final PlayerInput[] pending = new PlayerInput[MAX_PENDING];
+    private final int[] pendingSeqs = new int[MAX_PENDING];
+    private int pendingStart;
+    private int pendingCount;
+
+    // Set while the server flies our ship, the ship is only simulated then
+    private boolean active;
+    private double correctionX;
+    private double correctionY;
+    private double lastCorrection;
+    private long reconciliations;
+
+    public ShipPredictor() {
+        for (int i = 0; i < MAX_PENDING; i++) {
+            pending[i] = new PlayerInput();
+        }
+    }
+
+    // Applies one tick of input sent with the given sequence number
+    public void predict(int seq, PlayerInput input) {
+        if (pendingCount == MAX_PENDING) {
+            // The server is far behind, forget the oldest
+            pendingStart = (pendingStart + 1) % MAX_PENDING;
+            pendingCount--;
+        }
+        int index = (pendingStart + pendingCount) % MAX_PENDING;
+        pending[index].copyFrom(input);
+        pendingSeqs[index] = seq;
+        pendingCount++;
+        if (active) apply(input);
+    }
+
+    // Takes in an authoritative state, inputs up to lastInputApplied are in it
+    public void reconcile(NetState state, int slot, int lastInputApplied) {
+        while (pendingCount > 0 && pendingSeqs[pendingStart] <= lastInputApplied) {
+            pendingStart = (pendingStart + 1) % MAX_PENDING;
+            pendingCount--;
+        }
+
+        int i = state.findShip(slot);
+        if (i < 0 || !state.hasShip(i)) {
+            active = false;
+            clearCorrection();
+            return;
+        }
+        boolean flying = !state.isShipExploding(i) && state.isGameStarted() && !state.isGameOver();
+
+        double shownX = getX();
+        double shownY = getY();
+        double predictedX = ship.getX();
+        double predictedY = ship.getY();
+        ship.setMotion(state.getShipX(i), state.getShipY(i), state.getShipVelocityX(i),
+                state.getShipVelocityY(i), state.getShipAngle(i));
+        if (flying) {
+            for (int j = 0; j < pendingCount; j++) {
+                apply(pending[(pendingStart + j) % MAX_PENDING]);
+            }
+        }
+
+        reconciliations++;
+        if (!active || !flying) {
+            // Nothing was predicted, or the server holds the ship still
+            lastCorrection = 0;
+            clearCorrection();
+        } else {
+            lastCorrection = Math.hypot(ship.getX() - predictedX, ship.getY() - predictedY);
+            correctionX = shownX - ship.getX();
+            correctionY = shownY - ship.getY();
+            if (Math.hypot(correctionX, correctionY) > SNAP_DISTANCE) {
+                clearCorrection();
+            }
+        }
+        active = flying;
+    }
+
+    // Once per tick after predict(), eases the shown position onto the predicted one
+    public void smooth() {
+        correctionX *= CORRECTION_DECAY;
+        correctionY *= CORRECTION_DECAY;
+        if (Math.abs(correctionX) < CORRECTION_EPSILON && Math.abs(correctionY) < CORRECTION_EPSILON) {
+            clearCorrection();
+        }
+    }
+
+    private void clearCorrection() {
+        correctionX = 0;
+        correctionY = 0;
+    }
+
+    // The same calls World.step makes for a flying ship, shots and missiles
+    // do not move it and are left to the server
+    private void apply(PlayerInput input) {
+        for (int i = 0; i < input.getRotateLeft(); i++) {
+            ship.rotateLeft();
+        }
+        for (int i = 0; i < input.getRotateRight(); i++) {
+            ship.rotateRight();
+        }
+        if (input.isUp()) ship.moveUp();
+        if (input.isDown()) ship.moveDown();
+        if (input.isLeft()) ship.moveLeft();
+        if (input.isRight()) ship.moveRight();
+        ship.update();
+    }
+
+    // True once a snapshot has our ship flying, until one has it exploding or gone
+    public boolean isActive() {
+        return active;
+    }
+
+    // Where to draw the ship: the prediction plus what is left of the correction
+    public double getX() {
+        return ship.getX() + correctionX;
+    }
+
+    public double getY() {
+        return ship.getY() + correctionY;
+    }
+
+    public double getAngle() {
+        return ship.getAngle();
+    }
+
+    public double getPredictedX() {
+        return ship.getX();
+    }
+
+    public double getPredictedY() {
+        return ship.getY();
+    }
+
+    public double getVelocityX() {
+        return ship.getVelocityX();
+    }
+
+    public double getVelocityY() {
+        return ship.getVelocityY();
+    }
+
+    // Inputs sent that no snapshot has confirmed yet
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    // How far the last snapshot moved the prediction, 0 when it was right
+    public double getLastCorrection() {
+        return lastCorrection;
+    }
+
+    public long getReconciliations() {
+        return reconciliations;
+    }
+}
@@ -0,0 +1,88 @@
+package se.asteroid.net;
+
+import java.nio.ByteBuffer;
+
+// Delta compression for encoded states. The new state is XORed byte for
+// byte against a baseline the receiver already has, so everything that did
+// not change becomes zero, and the result is written as runs: a varint
+// count of zero bytes to skip, a varint count of literal bytes and those
+// XORed bytes, repeated. A quiet tick is a few bytes; with no baseline
+// (length 0) it is the whole state as one literal run.
+public final class StateDelta {
+    // A zero run shorter than this costs more to break out of a literal run
+    // than it saves
+    private static final int MIN_ZERO_RUN = 3;
+
+    private StateDelta() {
+    }
+
+    // Writes current[0, length) as a delta against base[0, baseLength)
+    public static void encode(byte[] base, int baseLength, byte[] current, int length, ByteBuffer out) {
+        Protocol.putVarint(out, length);
+        int i = 0;
+        while (i < length) {
+            int zeroStart = i;
+            while (i < length && xor(base, baseLength, current, i) == 0) {
+                i++;
+            }
+            int zeros = i - zeroStart;
+            if (i == length) {
+                // Trailing zeros are implied by the length
+                break;
+            }
+
+            int literalStart = i;
+            int run = 0;
+            while (i < length && run < MIN_ZERO_RUN) {
+                run = xor(base, baseLength, current, i) == 0 ? run + 1 : 0;
+                i++;
+            }
+            if (run == MIN_ZERO_RUN) {
+                // Leave the zeros for the next run
+                i -= run;
+            }
+            Protocol.putVarint(out, zeros);
+            Protocol.putVarint(out, i - literalStart);
+            for (int j = literalStart; j < i; j++) {
+                out.put(xor(base, baseLength, current, j));
+            }
+        }
+    }
+
+    // Reads a delta written by encode() against the same baseline, up to the
+    // buffer's limit, into into[] and returns the state's length. Throws if
+    // into[] is too small, see decodedLength().
+    public static int decode(byte[] base, int baseLength, ByteBuffer in, byte[] into) {
+        int length = (int) Protocol.getVarint(in);
+        if (length > into.length) {
+            throw new IllegalArgumentException("State of " + length + " bytes does not fit in " + into.length);
+        }
+        int i = 0;
+        while (in.hasRemaining()) {
+            int zeros = (int) Protocol.getVarint(in);
+            int literals = (int) Protocol.getVarint(in);
+            if (i + zeros + literals > length) {
+                throw new IllegalArgumentException("Delta runs past the end of the state");
+            }
+            for (int end = i + zeros; i < end; i++) {
+                into[i] = i < baseLength ? base[i] : 0;
+            }
+            for (int end = i + literals; i < end; i++) {
+                into[i] = (byte) (in.get() ^ (i < baseLength ? base[i] : 0));
+            }
+        }
+        for (; i < length; i++) {
+            into[i] = i < baseLength ? base[i] : 0;
+        }
+        return length;
+    }
+
+    // Length of the state a delta decodes to, without consuming anything
+    public static int decodedLength(ByteBuffer in) {
+        return (int) Protocol.getVarint(in.duplicate());
+    }
+
+    private static byte xor(byte[] base, int baseLength, byte[] current, int i) {
+        return (byte) (current[i] ^ (i < baseLength ? base[i] : 0));
+    }
+}
@@ -0,0 +1,63 @@
+package se.asteroid.util;
+
+// Table based sin/cos and a polynomial atan2 for the per tick simulation
+// paths (bullet velocities, boss patterns, homing and facing). Rendering
+// still goes through Graphics2D and keeps using java.lang.Math. The table
+// resolution comes from -Dasteroid.trig.bits, 12 by default.
+public final class FastMath {
+    public static final String BITS_PROPERTY = "asteroid.trig.bits";
+    public static final int DEFAULT_BITS = 12;
+
+    private static final SinTable TABLE = new SinTable(Integer.getInteger(BITS_PROPERTY, DEFAULT_BITS));
+
+    private static final double HALF_PI = Math.PI / 2;
+
+    private FastMath() {
+    }
+
+    public static double sinDeg(double degrees) {
+        return TABLE.sinDeg(degrees);
+    }
+
+    public static double cosDeg(double degrees) {
+        return TABLE.cosDeg(degrees);
+    }
+
+    public static double sin(double radians) {
+        return TABLE.sin(radians);
+    }
+
+    public static double cos(double radians) {
+        return TABLE.cos(radians);
+    }
+
+    // Within 1e-5 radians of Math.atan2, 0 for the origin
+    public static double atan2(double y, double x) {
+        double absX = Math.abs(x);
+        double absY = Math.abs(y);
+        if (absX == 0 && absY == 0) return 0;
+
+        // Fold onto [0, 1] so the polynomial only covers the first octant
+        boolean steep = absY > absX;
+        double z = steep ? absX / absY : absY / absX;
+        double angle = atan01(z);
+        if (steep) angle = HALF_PI - angle;
+        if (x < 0) angle = Math.PI - angle;
+        return y < 0 ? -angle : angle;
+    }
+
+    public static double atan2Deg(double y, double x) {
+        return Math.toDegrees(atan2(y, x));
+    }
+
+    // Minimax odd polynomial for atan on [0, 1]
+    private static double atan01(double z) {
+        double z2 = z * z;
+        return z * (0.99997726 + z2 * (-0.33262347 + z2 * (0.19354346
+                + z2 * (-0.11643287 + z2 * (0.05265332 + z2 * -0.01172120)))));
+    }
+
+    public static int getTableSize() {
+        return TABLE.size();
+    }
+}
@@ -0,0 +1,141 @@
+package se.asteroid.util;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Software drawing straight into the int pixels of an opaque TYPE_INT_RGB
+// frame, clipped to a band of rows so several threads can draw one frame
+// without touching each other's pixels. Sprites are blended source-over from
+// a premultiplied copy of their pixels, made once per image and shared.
+public final class IntRaster {
+    // Premultiplied ARGB per sprite, read with getRGB so the sprite itself
+    // keeps its managed (accelerated) status for the Graphics2D path
+    private static final Map<BufferedImage, int[]> spritePixels = new ConcurrentHashMap<>();
+
+    private final int[] pixels;
+    private final int width;
+    private final int height;
+    private final int minY;
+    private final int maxY;
+
+    private IntRaster(int[] pixels, int width, int height, int minY, int maxY) {
+        this.pixels = pixels;
+        this.width = width;
+        this.height = height;
+        this.minY = minY;
+        this.maxY = maxY;
+    }
+
+    // The whole frame, which must be a TYPE_INT_RGB image
+    public static IntRaster of(BufferedImage frame) {
+        if (frame.getType() != BufferedImage.TYPE_INT_RGB) {
+            throw new IllegalArgumentException("Frame must be TYPE_INT_RGB, was type " + frame.getType());
+        }
+        int[] pixels = ((DataBufferInt) frame.getRaster().getDataBuffer()).getData();
+        return new IntRaster(pixels, frame.getWidth(), frame.getHeight(), 0, frame.getHeight());
+    }
+
+    // Same pixels, drawing limited to rows minY (inclusive) to maxY (exclusive)
+    public IntRaster band(int minY, int maxY) {
+        return new IntRaster(pixels, width, height, Math.max(0, minY), Math.min(height, maxY));
+    }
+
+    // Blends a non-premultiplied ARGB colour over the rectangle
+    public void fillRect(int x, int y, int w, int h, int argb) {
+        int alpha = argb >>> 24;
+        if (alpha == 0) return;
+        int x0 = Math.max(x, 0);
+        int x1 = Math.min(x + w, width);
+        int y0 = Math.max(y, minY);
+        int y1 = Math.min(y + h, maxY);
+        if (x0 >= x1 || y0 >= y1) return;
+
+        int red = mul((argb >> 16) & 0xFF, alpha);
+        int green = mul((argb >> 8) & 0xFF, alpha);
+        int blue = mul(argb & 0xFF, alpha);
+        int premultiplied = (alpha << 24) | (red << 16) | (green << 8) | blue;
+        for (int row = y0; row < y1; row++) {
+            int offset = row * width;
+            for (int col = x0; col < x1; col++) {
+                pixels[offset + col] = over(premultiplied, pixels[offset + col]);
+            }
+        }
+    }
+
+    // Draws the sprite unscaled with its top left corner at x, y
+    public void blit(BufferedImage sprite, int x, int y) {
+        blit(pixelsOf(sprite), sprite.getWidth(), sprite.getHeight(), x, y);
+    }
+
+    // Blends premultiplied ARGB source pixels with their top left corner at x, y
+    public void blit(int[] source, int sourceWidth, int sourceHeight, int x, int y) {
+        int x0 = Math.max(x, 0);
+        int x1 = Math.min(x + sourceWidth, width);
+        int y0 = Math.max(y, minY);
+        int y1 = Math.min(y + sourceHeight, maxY);
+        if (x0 >= x1 || y0 >= y1) return;
+
+        for (int row = y0; row < y1; row++) {
+            int target = row * width;
+            int from = (row - y) * sourceWidth - x;
+            for (int col = x0; col < x1; col++) {
+                int s = source[from + col];
+                int sa = s >>> 24;
+                if (sa == 0) continue;
+                pixels[target + col] = sa == 0xFF ? s : over(s, pixels[target + col]);
+            }
+        }
+    }
+
+    // Premultiplied source over an opaque destination
+    static int over(int source, int destination) {
+        int inverse = 0xFF - (source >>> 24);
+        int red = ((source >> 16) & 0xFF) + mul((destination >> 16) & 0xFF, inverse);
+        int green = ((source >> 8) & 0xFF) + mul((destination >> 8) & 0xFF, inverse);
+        int blue = (source & 0xFF) + mul(destination & 0xFF, inverse);
+        return 0xFF000000 | (red << 16) | (green << 8) | blue;
+    }
+
+    // a * b / 255, rounded
+    private static int mul(int a, int b) {
+        int t = a * b + 0x80;
+        return (t + (t >> 8)) >> 8;
+    }
+
+    public static int[] pixelsOf(BufferedImage sprite) {
+        return spritePixels.computeIfAbsent(sprite, image -> {
+            int w = image.getWidth();
+            int h = image.getHeight();
+            int[] argb = image.getRGB(0, 0, w, h, null, 0, w);
+            for (int i = 0; i < argb.length; i++) {
+                int a = argb[i] >>> 24;
+                if (a == 0xFF) continue;
+                argb[i] = a == 0 ? 0 : (a << 24) | (mul((argb[i] >> 16) & 0xFF, a) << 16)
+                        | (mul((argb[i] >> 8) & 0xFF, a) << 8) | mul(argb[i] & 0xFF, a);
+            }
+            return argb;
+        });
+    }
+
+    public static void clearCache() {
+        spritePixels.clear();
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getMinY() {
+        return minY;
+    }
+
+    public int getMaxY() {
+        return maxY;
+    }
+}
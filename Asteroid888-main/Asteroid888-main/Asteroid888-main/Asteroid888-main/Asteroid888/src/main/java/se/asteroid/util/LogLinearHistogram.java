@@ -0,0 +1,107 @@
+package se.asteroid.util;
+
+import java.util.Arrays;
+
+// Fixed size histogram of non-negative longs (nanoseconds here). Values below
+// 16 get their own bucket, above that every power of two is split into 16
+// linear buckets, so a reported percentile is within 1/16 of the real value.
+// record() never allocates. Meant for one writer thread; a snapshot taken from
+// another thread may miss the values being recorded at that moment.
+public class LogLinearHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long max;
+
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts[bucketOf(value)]++;
+        count++;
+        sum += value;
+        if (value > max) max = value;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    // Upper bound of the bucket holding the given percentile, 0..100
+    public long getPercentile(double percentile) {
+        return percentile(counts, count, max, percentile);
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = counts.clone();
+        long total = 0;
+        for (long c : copy) {
+            total += c;
+        }
+        long snapshotMax = max;
+        return new Snapshot(total,
+                percentile(copy, total, snapshotMax, 50),
+                percentile(copy, total, snapshotMax, 99),
+                percentile(copy, total, snapshotMax, 99.9),
+                snapshotMax,
+                total == 0 ? 0 : (double) sum / count);
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int shift = msb - SUB_BUCKET_BITS;
+        int mantissa = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + mantissa;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long mantissa = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + mantissa) << shift) + (1L << shift) - 1;
+    }
+
+    private static long percentile(long[] counts, long total, long max, double percentile) {
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(percentile / 100.0 * total);
+        if (rank < 1) rank = 1;
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    public record Snapshot(long count, long p50, long p99, long p999, long max, double mean) {
+        @Override
+        public String toString() {
+            return "count=" + count + " p50=" + micros(p50) + " p99=" + micros(p99)
+                    + " p99.9=" + micros(p999) + " max=" + micros(max) + " (us)";
+        }
+
+        private static String micros(long nanos) {
+            return Long.toString(nanos / 1000) + "." + (nanos % 1000) / 100;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package se.asteroid.util;
+
+// Lets one in every N calls through, for log statements on per tick paths
+// such as ship movement. The rate for a category is read from
+// -Dasteroid.log.sample.<category>: 1 logs every call, 0 or less logs none.
+// A plain counter with no locking, so each sampler belongs to one thread.
+public final class LogSampler {
+    public static final String PROPERTY_PREFIX = "asteroid.log.sample.";
+
+    private final int every;
+    private int count;
+
+    public LogSampler(int every) {
+        this.every = every;
+    }
+
+    public static LogSampler forCategory(String category, int defaultEvery) {
+        return new LogSampler(Integer.getInteger(PROPERTY_PREFIX + category, defaultEvery));
+    }
+
+    public boolean sample() {
+        if (every <= 0) return false;
+        if (++count < every) return false;
+        count = 0;
+        return true;
+    }
+
+    public int getEvery() {
+        return every;
+    }
+}
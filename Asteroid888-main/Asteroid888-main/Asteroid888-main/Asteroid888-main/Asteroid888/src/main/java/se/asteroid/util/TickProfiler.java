@@ -0,0 +1,75 @@
+package se.asteroid.util;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+// Times each phase of a tick and of a frame into its own histogram. Wrap a
+// phase with start() / stop(); when disabled start() skips the clock read and
+// stop() returns straight away. Simulation phases are written by the tick
+// thread and RENDER by whichever thread draws, one writer per histogram.
+public class TickProfiler {
+    public enum Phase {
+        PLAYER_MOVEMENT,
+        UPDATE_OBJECTS,
+        COLLISIONS,
+        BOSS_SPAWNING,
+        TICK,
+        RENDER
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final LogLinearHistogram[] histograms = new LogLinearHistogram[PHASES.length];
+    private volatile boolean enabled = true;
+
+    public TickProfiler() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LogLinearHistogram();
+        }
+    }
+
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public void stop(Phase phase, long start) {
+        if (!enabled || start == 0) return;
+        histograms[phase.ordinal()].record(System.nanoTime() - start);
+    }
+
+    public LogLinearHistogram.Snapshot snapshot(Phase phase) {
+        return histograms[phase.ordinal()].snapshot();
+    }
+
+    public Map<Phase, LogLinearHistogram.Snapshot> snapshot() {
+        Map<Phase, LogLinearHistogram.Snapshot> snapshots = new EnumMap<>(Phase.class);
+        for (Phase phase : PHASES) {
+            snapshots.put(phase, snapshot(phase));
+        }
+        return snapshots;
+    }
+
+    // One line per phase, for logging
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        for (Phase phase : PHASES) {
+            report.append(phase).append(": ").append(snapshot(phase)).append('\n');
+        }
+        return report.toString();
+    }
+
+    // Only safe while no phase is being recorded
+    public void reset() {
+        for (LogLinearHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+}
@@ -0,0 +1,157 @@
+package se.asteroid.view;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import se.asteroid.model.FrameSnapshot;
+import se.asteroid.util.TickProfiler;
+
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+// Canvas that draws itself from its own thread through a page flipping
+// BufferStrategy instead of waiting for Swing to repaint. Each frame takes
+// the latest snapshot published by the simulation, so drawing overlaps with
+// the next tick. The blend factor comes from how long ago that snapshot was
+// made, which renders one tick behind but always smoothly. While the game
+// is idle it stops after a frame and waits for wake() or a resize.
+public class ActiveRenderer extends Canvas implements Runnable {
+    private static final Logger logger = LogManager.getLogger(ActiveRenderer.class);
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final Renderer renderer = Renderer.create();
+    private final Supplier<FrameSnapshot> snapshots;
+    private final BooleanSupplier showStartMenu;
+    private final BooleanSupplier idle;
+    private final long stepNanos;
+    private final long frameNanos;
+    private final TickProfiler profiler;
+
+    private volatile boolean running;
+    private volatile boolean parked;
+    private volatile Thread thread;
+    private long framesDrawn;
+
+    public ActiveRenderer(Supplier<FrameSnapshot> snapshots, BooleanSupplier showStartMenu, BooleanSupplier idle,
+                          int ticksPerSecond, int framesPerSecond, TickProfiler profiler) {
+        this.snapshots = snapshots;
+        this.profiler = profiler;
+        this.showStartMenu = showStartMenu;
+        this.idle = idle;
+        this.stepNanos = NANOS_PER_SECOND / ticksPerSecond;
+        this.frameNanos = NANOS_PER_SECOND / framesPerSecond;
+        setIgnoreRepaint(true);
+        setBackground(Color.BLACK);
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                wake();
+            }
+        });
+    }
+
+    // The buffer strategy needs a peer, so the thread starts once the canvas
+    // is added to a showing window
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        start();
+    }
+
+    @Override
+    public void removeNotify() {
+        stop();
+        super.removeNotify();
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        createBufferStrategy(2);
+        running = true;
+        thread = new Thread(this, "render");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    // Draws a frame now if the thread is waiting on an idle screen
+    public void wake() {
+        Thread current = thread;
+        if (current != null && parked) {
+            LockSupport.unpark(current);
+        }
+    }
+
+    @Override
+    public void run() {
+        long nextFrame = System.nanoTime();
+        while (running) {
+            try {
+                renderFrame();
+            } catch (RuntimeException e) {
+                logger.error("Error rendering frame", e);
+            }
+
+            if (idle.getAsBoolean()) {
+                parked = true;
+                // Recheck after publishing the flag so a wake() is not lost
+                if (idle.getAsBoolean()) {
+                    LockSupport.park(this);
+                }
+                parked = false;
+                nextFrame = System.nanoTime();
+                continue;
+            }
+
+            nextFrame += frameNanos;
+            long wait = nextFrame - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            } else {
+                nextFrame = System.nanoTime();
+            }
+        }
+    }
+
+    private void renderFrame() {
+        BufferStrategy strategy = getBufferStrategy();
+        FrameSnapshot snapshot = snapshots.get();
+        if (strategy == null || snapshot == null) return;
+
+        double alpha = (System.nanoTime() - snapshot.getCreatedNanos()) / (double) stepNanos;
+        alpha = Math.max(0, Math.min(1, alpha));
+        boolean menu = showStartMenu.getAsBoolean();
+        long start = profiler.start();
+
+        // Redraw while the back buffer is restored or lost, as BufferStrategy asks
+        do {
+            do {
+                Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+                try {
+                    renderer.draw(g, snapshot, menu, alpha, getWidth(), getHeight());
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+        profiler.stop(TickProfiler.Phase.RENDER, start);
+        framesDrawn++;
+    }
+
+    public long getFramesDrawn() {
+        return framesDrawn;
+    }
+}
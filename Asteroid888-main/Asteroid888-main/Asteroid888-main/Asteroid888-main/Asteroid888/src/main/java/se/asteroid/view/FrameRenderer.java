@@ -0,0 +1,273 @@
+package se.asteroid.view;
+
+import se.asteroid.model.AssetCache;
+import se.asteroid.model.FrameSnapshot;
+import se.asteroid.model.World;
+import se.asteroid.util.IntRaster;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Draws a whole frame from a FrameSnapshot: background, menu, sprites, HUD
+// and the end screens. It never touches the live World, so it can run on the
+// EDT or on a separate render thread. One instance per thread. The start
+// menu and end screens never change while shown, so they are drawn once into
+// an image shared by all instances and blitted after that.
+public class FrameRenderer implements Renderer {
+    private static final int START_MENU = 0;
+    private static final int GAME_OVER = 1;
+    private static final int GAME_SUCCEEDED = 2;
+    // Enough for every screen at a couple of sizes and final scores
+    private static final int MAX_CACHED_SCREENS = 8;
+    private static final Map<Screen, BufferedImage> screens = new ConcurrentHashMap<>();
+
+    private record Screen(int kind, int score, int width, int height) {
+    }
+
+    private final BufferedImage backgroundImage;
+    private int width = World.WIDTH;
+    private int height = World.HEIGHT;
+
+    public FrameRenderer() {
+        backgroundImage = AssetCache.getScaled("/assets/background.gif", World.WIDTH, World.HEIGHT);
+        if (backgroundImage == null) {
+            System.out.println("Failed to load background image.");
+        }
+    }
+
+    @Override
+    public void draw(Graphics2D g2d, FrameSnapshot snapshot, boolean showStartMenu, double alpha,
+                     int width, int height) {
+        draw(g2d, null, snapshot, showStartMenu, alpha, width, height);
+    }
+
+    // raster is the band of the frame g2d is clipped to when the tiled
+    // compositor draws, null otherwise
+    public void draw(Graphics2D g2d, IntRaster raster, FrameSnapshot snapshot, boolean showStartMenu,
+                     double alpha, int width, int height) {
+        this.width = width;
+        this.height = height;
+
+        if (showStartMenu) {
+            drawScreen(g2d, START_MENU, 0);
+            return;
+        }
+
+        if (snapshot.isGameOver()) {
+            if (snapshot.isBossDefeated()) {
+                drawScreen(g2d, GAME_SUCCEEDED, snapshot.getScore());
+                // Draw sparkling stars with reduced frequency
+                drawSparklingStars(g2d, snapshot, 8);  // Adjusted star count for less clutter
+            } else {
+                drawScreen(g2d, GAME_OVER, snapshot.getScore());
+            }
+            return;
+        }
+
+        // Draw background only once per frame
+        g2d.drawImage(backgroundImage, 0, 0, getWidth(), getHeight(), null);
+
+        if (snapshot.isGameStarted()) {
+            if (snapshot.isExploding()) {
+                drawExplosion(g2d, snapshot);
+            }
+            if (raster != null) {
+                snapshot.drawSprites(g2d, raster, alpha);
+            } else {
+                snapshot.drawSprites(g2d, alpha);
+            }
+
+            drawHUD(g2d, snapshot);
+        }
+    }
+
+    private void drawScreen(Graphics2D g2d, int kind, int score) {
+        if (screens.size() > MAX_CACHED_SCREENS) {
+            screens.clear();
+        }
+        BufferedImage screen = screens.computeIfAbsent(new Screen(kind, score, getWidth(), getHeight()),
+                this::renderScreen);
+        g2d.drawImage(screen, 0, 0, null);
+    }
+
+    private BufferedImage renderScreen(Screen screen) {
+        BufferedImage image = new BufferedImage(screen.width(), screen.height(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        try {
+            g2d.drawImage(backgroundImage, 0, 0, getWidth(), getHeight(), null);
+            switch (screen.kind()) {
+                case START_MENU -> drawStartMenu(g2d);
+                case GAME_OVER -> drawGameOver(g2d, screen.score());
+                default -> drawGameSucceeded(g2d, screen.score());
+            }
+        } finally {
+            g2d.dispose();
+        }
+        return image;
+    }
+
+    public static void clearScreens() {
+        screens.clear();
+    }
+
+    private int getWidth() {
+        return width;
+    }
+
+    private int getHeight() {
+        return height;
+    }
+
+    private void drawStartMenu(Graphics2D g2d) {
+        // Draw the original background image
+        g2d.drawImage(backgroundImage, 0, 0, getWidth(), getHeight(), null);
+
+        // Title
+        g2d.setColor(Color.WHITE);
+        g2d.setFont(new Font("Arial", Font.BOLD, 60));
+        String title = "ASTEROID888";
+        FontMetrics titleMetrics = g2d.getFontMetrics();
+        int titleX = (getWidth() - titleMetrics.stringWidth(title)) / 2;
+        g2d.drawString(title, titleX, getHeight() / 4);
+
+        // "Press 'P' to Start" text
+        g2d.setFont(new Font("Arial", Font.BOLD, 28));
+        String startText = "Press 'P' to Start";
+        FontMetrics startMetrics = g2d.getFontMetrics();
+        int startX = (getWidth() - startMetrics.stringWidth(startText)) / 2;
+        g2d.drawString(startText, startX, getHeight() / 2);
+
+        // Adjusted box dimensions to fit all text comfortably
+        int boxWidth = 320;
+        int boxHeight = 200;
+        int boxX = (getWidth() - boxWidth) / 2;
+        int boxY = getHeight() / 2 + 40;
+
+        // Draw the semi-transparent box behind the controls text
+        g2d.setColor(new Color(0, 0, 0, 150));  // Semi-transparent black
+        g2d.fillRoundRect(boxX, boxY, boxWidth, boxHeight, 20, 20);
+
+        g2d.setColor(Color.YELLOW);
+        g2d.drawOval(getWidth() / 2 - 50, getHeight() / 3 - 80, 100, 100);
+        // Controls text
+        g2d.setFont(new Font("Arial", Font.PLAIN, 20));
+        g2d.setColor(Color.CYAN);
+        String[] controls = {
+                "Controls:",
+                "W,A,S,D : Move",
+                "Mouse : Rotate",
+                "SPACE : Shoot",
+                "E - Missile"
+
+        };
+
+        // Draw each line of control text within the box, centered horizontally
+        int yOffset = boxY + 35;  // Start drawing text slightly below the top of the box for padding
+        for (String control : controls) {
+            FontMetrics controlMetrics = g2d.getFontMetrics();
+            int controlX = boxX + (boxWidth - controlMetrics.stringWidth(control)) / 2;
+            g2d.drawString(control, controlX, yOffset);
+            yOffset += 30;  // Adjust line spacing to fit all text within the box comfortably
+        }
+    }
+
+
+    private void drawExplosion(Graphics2D g2d, FrameSnapshot snapshot) {
+        g2d.setColor(Color.ORANGE);
+        int size = 40 + (snapshot.getExplosionTicks() / 2);
+        g2d.fillOval((int)snapshot.getPlayerX() - size/2, (int)snapshot.getPlayerY() - size/2, size, size);
+    }
+
+    private void drawHUD(Graphics2D g2d, FrameSnapshot snapshot) {
+        g2d.setColor(Color.WHITE);
+        g2d.setFont(new Font("Arial", Font.BOLD, 20));
+        g2d.drawString("Score: " + snapshot.getScore(), 20, 30);
+        g2d.drawString("Lives: " + snapshot.getLives(), 20, 60);
+
+        if (snapshot.isBossBattle()) {
+            g2d.drawString("BOSS BATTLE", getWidth()/2 - 60, 30);
+        }
+    }
+
+    private void drawGameOver(Graphics2D g2d, int score) {
+        g2d.setColor(Color.WHITE);
+        g2d.setFont(new Font("Arial", Font.BOLD, 40));
+        String gameOverMessage = "GAME OVER - Final Score: " + score;
+        FontMetrics fm = g2d.getFontMetrics();
+        int textWidth = fm.stringWidth(gameOverMessage);
+        g2d.drawString(gameOverMessage, (getWidth() - textWidth) / 2, getHeight() / 2);
+    }
+
+
+    private void drawGameSucceeded(Graphics2D g2d, int score) {
+        // Gradient overlay for the background
+        GradientPaint gradientOverlay = new GradientPaint(
+                0, 0, new Color(0, 0, 50, 180),
+                0, getHeight(), new Color(0, 0, 0, 200)
+        );
+        g2d.setPaint(gradientOverlay);
+        g2d.fillRect(0, 0, getWidth(), getHeight());
+
+        // Title Text - Mission Completed with a smaller shadow effect
+        g2d.setFont(new Font("Arial", Font.BOLD, 60));
+        String victoryText = "MISSION COMPLETED";
+        FontMetrics victoryMetrics = g2d.getFontMetrics();
+        int victoryX = (getWidth() - victoryMetrics.stringWidth(victoryText)) / 2;
+        int victoryY = getHeight() / 3;
+
+        // Simple drop shadow effect for readability
+        g2d.setColor(new Color(0, 0, 0, 100));  // Dark shadow with lower opacity
+        g2d.drawString(victoryText, victoryX + 2, victoryY + 2);
+
+        // Draw main title text in bright white
+        g2d.setColor(Color.WHITE);
+        g2d.drawString(victoryText, victoryX, victoryY);
+
+        // Optional: Draw a subtle outline around the text for added clarity
+        g2d.setColor(new Color(200, 200, 255, 150));  // Light blue outline color
+        g2d.drawString(victoryText, victoryX - 1, victoryY - 1);
+        g2d.drawString(victoryText, victoryX + 1, victoryY + 1);
+
+        // Final Score Text with color gradient centered on the screen
+        g2d.setFont(new Font("Arial", Font.BOLD, 40));
+        String scoreText = "Final Score: " + score;
+        FontMetrics scoreMetrics = g2d.getFontMetrics();
+        int scoreX = (getWidth() - scoreMetrics.stringWidth(scoreText)) / 2;
+        int scoreY = getHeight() / 2;
+
+        // Set color gradient for score text
+        GradientPaint scoreGradient = new GradientPaint(
+                scoreX, scoreY, Color.CYAN,
+                scoreX + scoreMetrics.stringWidth(scoreText), scoreY, Color.MAGENTA
+        );
+        g2d.setPaint(scoreGradient);
+        g2d.drawString(scoreText, scoreX, scoreY);
+
+        // Restart Prompt below the Final Score
+        g2d.setFont(new Font("Arial", Font.PLAIN, 20));
+        g2d.setColor(Color.LIGHT_GRAY);
+        String continueText = "Press 'SPACE' to restart";
+        FontMetrics continueMetrics = g2d.getFontMetrics();
+        int continueX = (getWidth() - continueMetrics.stringWidth(continueText)) / 2;
+        int continueY = scoreY + 50;
+        g2d.drawString(continueText, continueX, continueY);
+    }
+
+    // Helper method to draw sparkling stars with reduced frequency. Seeded by
+    // the snapshot, so every band of a tiled frame places the same stars and
+    // they still sparkle once per tick.
+    private void drawSparklingStars(Graphics2D g2d, FrameSnapshot snapshot, int numStars) {
+        SplittableRandom random = new SplittableRandom(snapshot.getCreatedNanos());
+        for (int i = 0; i < numStars; i++) {
+            int x = (int) (random.nextDouble() * getWidth());
+            int y = (int) (random.nextDouble() * getHeight());
+            int size = 2 + (int) (random.nextDouble() * 3);  // Random star size
+
+            g2d.setColor(new Color(255, 255, 255, (int) (random.nextDouble() * 100 + 155)));  // Random opacity
+            g2d.fillOval(x, y, size, size);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package se.asteroid.view;
+
+import se.asteroid.model.FrameSnapshot;
+
+import java.awt.*;
+
+// Something that turns a snapshot into a frame on the given graphics.
+// -Dasteroid.compositor=tiled picks the multi-threaded TiledRenderer,
+// -Dasteroid.compositor.bands sets its band count (one per core by default).
+public interface Renderer {
+    String COMPOSITOR_PROPERTY = "asteroid.compositor";
+    String BANDS_PROPERTY = "asteroid.compositor.bands";
+
+    void draw(Graphics2D g2d, FrameSnapshot snapshot, boolean showStartMenu, double alpha, int width, int height);
+
+    static Renderer create() {
+        if ("tiled".equalsIgnoreCase(System.getProperty(COMPOSITOR_PROPERTY))) {
+            return new TiledRenderer(Integer.getInteger(BANDS_PROPERTY, Runtime.getRuntime().availableProcessors()));
+        }
+        return new FrameRenderer();
+    }
+}
@@ -0,0 +1,125 @@
+package se.asteroid.view;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import se.asteroid.model.FrameSnapshot;
+import se.asteroid.util.IntRaster;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// Software compositor for CPU-only machines. The frame is an opaque
+// TYPE_INT_RGB image split into horizontal bands. Each band is drawn in
+// parallel by its own FrameRenderer through a sub-image sharing the frame's
+// pixels, with sprites and health bars written straight into the int raster.
+// The finished frame goes to the screen in one blit. Bands cover disjoint
+// rows, so the workers never write the same pixel.
+public class TiledRenderer implements Renderer {
+    private static final Logger logger = LogManager.getLogger(TiledRenderer.class);
+
+    private final int bandCount;
+    private final ForkJoinPool pool;
+    private final FrameRenderer[] renderers;
+    private final List<Callable<Void>> tasks = new ArrayList<>();
+
+    private BufferedImage frame;
+    private BufferedImage[] bands;
+    private IntRaster[] rasters;
+    private int[] bandTops;
+
+    // What the band tasks draw, set before they are submitted
+    private FrameSnapshot snapshot;
+    private boolean showStartMenu;
+    private double alpha;
+
+    public TiledRenderer(int bandCount) {
+        if (bandCount <= 0) {
+            throw new IllegalArgumentException("Need at least one band: " + bandCount);
+        }
+        this.bandCount = bandCount;
+        this.pool = new ForkJoinPool(bandCount);
+        this.renderers = new FrameRenderer[bandCount];
+        for (int i = 0; i < bandCount; i++) {
+            renderers[i] = new FrameRenderer();
+            int band = i;
+            tasks.add(() -> {
+                drawBand(band);
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public void draw(Graphics2D g2d, FrameSnapshot snapshot, boolean showStartMenu, double alpha,
+                     int width, int height) {
+        render(snapshot, showStartMenu, alpha, width, height);
+        g2d.drawImage(frame, 0, 0, null);
+    }
+
+    // Draws the frame into the off-screen image without presenting it
+    public BufferedImage render(FrameSnapshot snapshot, boolean showStartMenu, double alpha, int width, int height) {
+        ensureFrame(Math.max(1, width), Math.max(1, height));
+        this.snapshot = snapshot;
+        this.showStartMenu = showStartMenu;
+        this.alpha = alpha;
+
+        for (Future<Void> band : pool.invokeAll(tasks)) {
+            try {
+                band.get();
+            } catch (ExecutionException e) {
+                logger.error("Error drawing band", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return frame;
+    }
+
+    private void drawBand(int band) {
+        if (bands[band] == null) return;
+        Graphics2D g = bands[band].createGraphics();
+        try {
+            // The sub-image starts at the band's top row, draw in frame coordinates
+            g.translate(0, -bandTops[band]);
+            renderers[band].draw(g, rasters[band], snapshot, showStartMenu, alpha,
+                    frame.getWidth(), frame.getHeight());
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private void ensureFrame(int width, int height) {
+        if (frame != null && frame.getWidth() == width && frame.getHeight() == height) return;
+
+        frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        IntRaster full = IntRaster.of(frame);
+        int count = Math.min(bandCount, height);
+        bands = new BufferedImage[bandCount];
+        rasters = new IntRaster[bandCount];
+        bandTops = new int[bandCount];
+        for (int i = 0; i < bandCount; i++) {
+            // Frames shorter than the band count leave the extra bands idle
+            if (i >= count) continue;
+            int top = i * height / count;
+            int bottom = (i + 1) * height / count;
+            bandTops[i] = top;
+            bands[i] = frame.getSubimage(0, top, width, bottom - top);
+            rasters[i] = full.band(top, bottom);
+        }
+    }
+
+    public int getBandCount() {
+        return bandCount;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
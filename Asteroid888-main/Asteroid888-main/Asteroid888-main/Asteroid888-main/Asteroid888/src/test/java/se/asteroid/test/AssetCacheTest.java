@@ -0,0 +1,45 @@
+package se.asteroid.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.asteroid.model.AssetCache;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AssetCacheTest {
+
+    @Test
+    @DisplayName("Test scaled sprites are decoded once and shared")
+    void testScaledShared() {
+        BufferedImage first = AssetCache.getScaled("/assets/asteroid.png", 100, 100);
+        BufferedImage second = AssetCache.getScaled("/assets/asteroid.png", 100, 100);
+        BufferedImage small = AssetCache.getScaled("/assets/asteroid.png", 70, 70);
+
+        assertNotNull(first);
+        assertSame(first, second, "Same sprite and size should return the cached image");
+        assertNotSame(first, small, "Different sizes are cached separately");
+        assertEquals(100, first.getWidth());
+        assertEquals(70, small.getHeight());
+        assertTrue(first.isAlphaPremultiplied(), "Cached sprites should be premultiplied");
+    }
+
+    @Test
+    @DisplayName("Test sheets are sliced into equal frames")
+    void testSheet() {
+        BufferedImage[][] frames = AssetCache.getSheet("/assets/ship.png", 4, 4);
+
+        assertNotNull(frames);
+        assertSame(frames, AssetCache.getSheet("/assets/ship.png", 4, 4));
+        assertEquals(4, frames.length);
+        assertEquals(80, frames[3][3].getWidth());
+        assertEquals(80, frames[3][3].getHeight());
+    }
+
+    @Test
+    @DisplayName("Test missing assets return null")
+    void testMissing() {
+        assertNull(AssetCache.getScaled("/assets/missing.png", 10, 10));
+    }
+}
@@ -0,0 +1,61 @@
+package se.asteroid.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.asteroid.util.FastMath;
+import se.asteroid.util.SinTable;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FastMathTest {
+
+    @Test
+    @DisplayName("Test table sin/cos stay close to StrictMath")
+    void testSinCos() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 100_000; i++) {
+            double degrees = random.nextDouble(-1080, 1080);
+            double radians = Math.toRadians(degrees);
+            assertEquals(StrictMath.sin(radians), FastMath.sinDeg(degrees), 1e-6);
+            assertEquals(StrictMath.cos(radians), FastMath.cosDeg(degrees), 1e-6);
+            assertEquals(StrictMath.sin(radians), FastMath.sin(radians), 1e-6);
+            assertEquals(StrictMath.cos(radians), FastMath.cos(radians), 1e-6);
+        }
+    }
+
+    @Test
+    @DisplayName("Test quarter turns are exact")
+    void testQuarterTurns() {
+        assertEquals(0.0, FastMath.sinDeg(0));
+        assertEquals(1.0, FastMath.sinDeg(90));
+        assertEquals(0.0, FastMath.cosDeg(90));
+        assertEquals(-1.0, FastMath.cosDeg(180));
+        assertEquals(-1.0, FastMath.sinDeg(-90));
+    }
+
+    @Test
+    @DisplayName("Test approximate atan2 in every quadrant")
+    void testAtan2() {
+        SplittableRandom random = new SplittableRandom(2);
+        for (int i = 0; i < 100_000; i++) {
+            double y = random.nextDouble(-500, 500);
+            double x = random.nextDouble(-500, 500);
+            assertEquals(StrictMath.atan2(y, x), FastMath.atan2(y, x), 2e-5);
+        }
+        assertEquals(0.0, FastMath.atan2(0, 0));
+        assertEquals(Math.PI / 2, FastMath.atan2(1, 0), 2e-5);
+        assertEquals(Math.PI, FastMath.atan2(0, -1), 2e-5);
+        assertEquals(-90.0, FastMath.atan2Deg(-3, 0), 1e-3);
+    }
+
+    @Test
+    @DisplayName("Test coarser tables trade accuracy for size")
+    void testResolution() {
+        SinTable coarse = new SinTable(6);
+        assertEquals(64, coarse.size());
+        assertEquals(StrictMath.sin(1.0), coarse.sin(1.0), 2e-3);
+        assertThrows(IllegalArgumentException.class, () -> new SinTable(SinTable.MAX_BITS + 1));
+    }
+}
@@ -0,0 +1,113 @@
+package se.asteroid.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.asteroid.model.FlowField;
+import se.asteroid.model.Pilot;
+import se.asteroid.model.RegularEnemy;
+import se.asteroid.model.Ship;
+import se.asteroid.model.World;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlowFieldTest {
+    private static double meanDistance(World world) {
+        Ship ship = world.getPlayer();
+        double total = 0;
+        for (RegularEnemy enemy : world.getRegularEnemies()) {
+            total += Math.hypot(enemy.getX() - ship.getX(), enemy.getY() - ship.getY());
+        }
+        return total / world.getRegularEnemies().size();
+    }
+
+    @Test
+    @DisplayName("Test every cell heads towards the ship")
+    void testDirectionsLeadToShip() {
+        World world = new World(3);
+        world.start();
+        FlowField field = new FlowField(World.WIDTH, World.HEIGHT, 20);
+        assertTrue(field.update(world.getPilots()));
+        Ship ship = world.getPlayer();
+        int shipCell = field.cellAt(ship.getX(), ship.getY());
+        assertEquals(0, field.getDistance(shipCell));
+        assertTrue(Float.isNaN(field.getAngle(shipCell)));
+
+        for (int row = 0; row < field.getRows(); row++) {
+            for (int column = 0; column < field.getColumns(); column++) {
+                int cell = row * field.getColumns() + column;
+                double toX = ship.getX() - (column + 0.5) * field.getCellSize();
+                double toY = ship.getY() - (row + 0.5) * field.getCellSize();
+                double length = Math.hypot(toX, toY);
+                if (length < 5 * field.getCellSize()) continue;
+                // Octile distances bend the way a little
+                double dot = (field.getDirectionX(cell) * toX + field.getDirectionY(cell) * toY) / length;
+                assertTrue(dot > 0.9, "Cell " + column + "," + row + " heads off by " + dot);
+                assertSame(ship, field.getTarget(cell));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test the field only rebuilds when a ship changes cell")
+    void testRebuildsOnCellChange() {
+        World world = new World(3);
+        world.start();
+        FlowField field = new FlowField(World.WIDTH, World.HEIGHT, 20);
+        Ship ship = world.getPlayer();
+        double x = Math.floor(ship.getX() / 20) * 20 + 2;
+        double y = Math.floor(ship.getY() / 20) * 20 + 2;
+        ship.setMotion(x, y, 0, 0, 0);
+        assertTrue(field.update(world.getPilots()));
+        assertFalse(field.update(world.getPilots()), "Nothing moved");
+        ship.setMotion(x + 10, y + 10, 0, 0, 0);
+        assertFalse(field.update(world.getPilots()), "Still in the same cell");
+        ship.setMotion(x + 20, y, 0, 0, 0);
+        assertTrue(field.update(world.getPilots()));
+        assertEquals(2, field.getRebuilds());
+
+        field.invalidate();
+        assertTrue(field.update(world.getPilots()));
+        world.addPilot();
+        assertTrue(field.update(world.getPilots()), "A new ship joined");
+    }
+
+    @Test
+    @DisplayName("Test each cell leads to the nearest of several ships")
+    void testNearestShipTargeted() {
+        World world = new World(3);
+        world.start();
+        world.getPlayer().setMotion(100, 300, 0, 0, 0);
+        Pilot second = world.addPilot();
+        second.getShip().setMotion(700, 300, 0, 0, 0);
+        FlowField field = new FlowField(World.WIDTH, World.HEIGHT, 20);
+        field.update(world.getPilots());
+
+        List<Pilot> pilots = world.getPilots();
+        assertSame(pilots.get(0).getShip(), field.getTarget(field.cellAt(50, 50)));
+        assertSame(second.getShip(), field.getTarget(field.cellAt(750, 550)));
+        assertTrue(field.getDirectionX(field.cellAt(300, 300)) < -0.9);
+        assertTrue(field.getDirectionX(field.cellAt(500, 300)) > 0.9);
+    }
+
+    @Test
+    @DisplayName("Test a wave closes in on the ship when steered by the field")
+    void testWaveClosesIn() {
+        World world = new World(3);
+        world.start();
+        world.getRegularEnemies().clear();
+        world.getSecondTierEnemies().clear();
+        world.setSteering(World.Steering.FLOW_FIELD);
+        world.spawnWave(200, 50);
+        assertEquals(200, world.getRegularEnemies().size());
+        assertEquals(50, world.getSecondTierEnemies().size());
+
+        double before = meanDistance(world);
+        for (int tick = 0; tick < 60; tick++) {
+            world.step();
+        }
+        assertTrue(meanDistance(world) < before - 50, "Mean distance " + before + " -> " + meanDistance(world));
+        assertTrue(world.getFlowField().getRebuilds() >= 1);
+    }
+}
@@ -0,0 +1,77 @@
+package se.asteroid.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.asteroid.model.FrameSnapshot;
+import se.asteroid.model.PlayerInput;
+import se.asteroid.model.World;
+import se.asteroid.view.FrameRenderer;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FrameSnapshotTest {
+
+    @Test
+    @DisplayName("Test snapshot does not change when the world moves on")
+    void testSnapshotImmutable() {
+        World world = new World();
+        world.start();
+        PlayerInput input = new PlayerInput();
+        input.addShot();
+        world.step(input);
+
+        FrameSnapshot snapshot = world.snapshot();
+        int sprites = snapshot.getSprites().size();
+        int score = snapshot.getScore();
+        long tick = snapshot.getTick();
+
+        input.clearPresses();
+        for (int i = 0; i < 50; i++) {
+            world.step(input);
+        }
+        world.getAsteroids().clear();
+
+        assertEquals(sprites, snapshot.getSprites().size());
+        assertEquals(score, snapshot.getScore());
+        assertEquals(tick, snapshot.getTick());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getSprites().clear());
+    }
+
+    @Test
+    @DisplayName("Test snapshot covers every live entity")
+    void testSnapshotContents() {
+        World world = new World();
+        assertTrue(world.snapshot().getSprites().isEmpty(), "Nothing to draw before start");
+
+        world.start();
+        FrameSnapshot snapshot = world.snapshot();
+        // Player and its bullets, asteroids, and each enemy with its bullets
+        int expected = 2 + world.getAsteroids().size()
+                + 2 * world.getRegularEnemies().size() + 2 * world.getSecondTierEnemies().size();
+        assertEquals(expected, snapshot.getSprites().size());
+        assertEquals(world.getLives(), snapshot.getLives());
+        assertTrue(snapshot.isGameStarted());
+    }
+
+    @Test
+    @DisplayName("Test renderer draws a snapshot without the live world")
+    void testRenderOffscreen() {
+        World world = new World();
+        world.start();
+        world.step(new PlayerInput());
+        FrameSnapshot snapshot = world.snapshot();
+
+        BufferedImage frame = new BufferedImage(World.WIDTH, World.HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = frame.createGraphics();
+        try {
+            FrameRenderer renderer = new FrameRenderer();
+            assertDoesNotThrow(() -> renderer.draw(g, snapshot, false, 0.5, World.WIDTH, World.HEIGHT));
+            assertDoesNotThrow(() -> renderer.draw(g, snapshot, true, 0.5, World.WIDTH, World.HEIGHT));
+        } finally {
+            g.dispose();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package se.asteroid.test;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.asteroid.controller.GameLoop;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameLoopTest {
+    private static final double DELTA = 0.0001;
+    private GameLoop loop;
+    private long step;
+
+    @BeforeEach
+    void setUp() {
+        loop = new GameLoop(60, 144, 5, new GameLoop.Listener() {
+            @Override
+            public void tick() {
+            }
+
+            @Override
+            public void render(double alpha) {
+            }
+        });
+        step = loop.getStepNanos();
+    }
+
+    @Test
+    @DisplayName("Test steps follow elapsed time, not frame count")
+    void testFixedSteps() {
+        assertEquals(0, loop.advance(0), "First call only sets the clock");
+        assertEquals(0, loop.advance(step / 2));
+        assertEquals(0.5, loop.getAlpha(), DELTA);
+        assertEquals(1, loop.advance(step));
+        assertEquals(0.0, loop.getAlpha(), DELTA);
+        assertEquals(3, loop.advance(4 * step + step / 4));
+        assertEquals(0.25, loop.getAlpha(), DELTA);
+    }
+
+    @Test
+    @DisplayName("Test catch-up is capped after a stall")
+    void testCatchUpCap() {
+        loop.advance(0);
+        assertEquals(5, loop.advance(100 * step + step / 2), "At most 5 steps per frame");
+        assertEquals(95, loop.getDroppedSteps());
+        assertEquals(0.5, loop.getAlpha(), DELTA, "Fractional step is kept for interpolation");
+        assertEquals(1, loop.advance(101 * step + step / 2));
+    }
+
+    private static void waitUntil(GameLoop loop, long wakeups) throws InterruptedException {
+        long deadline = System.nanoTime() + 2_000_000_000L;
+        while (!(loop.isIdle() && loop.getIdleWakeups() >= wakeups) && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertTrue(loop.isIdle(), "Loop should have gone idle");
+    }
+
+    @Test
+    @DisplayName("Test idle loop stops ticking and draws one frame per wake")
+    void testIdleUntilWoken() throws InterruptedException {
+        AtomicInteger ticks = new AtomicInteger();
+        AtomicInteger frames = new AtomicInteger();
+        AtomicBoolean idle = new AtomicBoolean(true);
+        GameLoop idleLoop = new GameLoop(60, 144, 5, false, new GameLoop.Listener() {
+            @Override
+            public void tick() {
+                ticks.incrementAndGet();
+            }
+
+            @Override
+            public void render(double alpha) {
+                frames.incrementAndGet();
+            }
+
+            @Override
+            public long idleNanos() {
+                return idle.get() ? GameLoop.UNTIL_WOKEN : 0;
+            }
+        });
+        idleLoop.start();
+        try {
+            waitUntil(idleLoop, 0);
+            Thread.sleep(50);
+            assertEquals(1, frames.get(), "Only the first frame is drawn before sleeping");
+            assertEquals(0, ticks.get());
+
+            idleLoop.wake();
+            waitUntil(idleLoop, 1);
+            assertEquals(2, frames.get(), "A wake draws exactly one frame");
+            assertEquals(0, ticks.get(), "Idle time is not simulated on wake");
+
+            idle.set(false);
+            idleLoop.wake();
+            Thread.sleep(100);
+            assertTrue(ticks.get() > 0, "Ticking resumes once no longer idle");
+        } finally {
+            idleLoop.stop();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package se.asteroid.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.asteroid.model.Asteroid;
+import se.asteroid.model.Hitbox;
+
+import java.awt.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HitboxTest {
+
+    @Test
+    @DisplayName("Test hitbox overlap matches Rectangle.intersects")
+    void testMatchesRectangle() {
+        int[][] cases = {
+                {0, 0, 10, 10, 5, 5, 10, 10},
+                {0, 0, 10, 10, 10, 0, 10, 10},
+                {0, 0, 10, 10, 20, 20, 5, 5},
+                {0, 0, 0, 10, 0, 0, 10, 10},
+                {-5, -5, 10, 10, 0, 0, 1, 1}
+        };
+        Hitbox a = new Hitbox();
+        Hitbox b = new Hitbox();
+        for (int[] c : cases) {
+            a.set(c[0], c[1], c[2], c[3]);
+            b.set(c[4], c[5], c[6], c[7]);
+            boolean expected = new Rectangle(c[0], c[1], c[2], c[3])
+                    .intersects(new Rectangle(c[4], c[5], c[6], c[7]));
+            assertEquals(expected, a.intersects(b));
+            assertEquals(expected, b.intersects(a));
+        }
+    }
+
+    @Test
+    @DisplayName("Test entity hitbox follows movement in place")
+    void testEntityHitboxUpdates() {
+        Asteroid asteroid = new Asteroid(100, 100, false);
+        Hitbox hitbox = asteroid.getHitbox();
+        assertEquals(asteroid.getBounds(), hitbox.toRectangle());
+
+        asteroid.update();
+
+        assertSame(hitbox, asteroid.getHitbox(), "Hitbox should be reused, not reallocated");
+        assertEquals(asteroid.getBounds(), hitbox.toRectangle());
+    }
+}
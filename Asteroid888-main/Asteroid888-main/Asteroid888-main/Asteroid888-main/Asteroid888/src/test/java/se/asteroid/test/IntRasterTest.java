@@ -0,0 +1,54 @@
+package se.asteroid.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.asteroid.util.IntRaster;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntRasterTest {
+
+    @Test
+    @DisplayName("Test fills blend source-over and stay inside the band")
+    void testFillRect() {
+        BufferedImage frame = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+        IntRaster band = IntRaster.of(frame).band(2, 5);
+
+        band.fillRect(0, 0, 10, 10, 0xFFFF0000);
+        band.fillRect(0, 0, 10, 10, new Color(0, 0, 255, 128).getRGB());
+
+        assertEquals(0, frame.getRGB(0, 1) & 0xFFFFFF, "Rows above the band stay untouched");
+        assertEquals(0, frame.getRGB(0, 5) & 0xFFFFFF, "Rows below the band stay untouched");
+        Color blended = new Color(frame.getRGB(3, 3));
+        assertEquals(127, blended.getRed(), 1);
+        assertEquals(128, blended.getBlue(), 1);
+    }
+
+    @Test
+    @DisplayName("Test sprite blits skip transparent pixels and clip at the edges")
+    void testBlit() {
+        BufferedImage sprite = new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB);
+        sprite.setRGB(1, 1, 0xFF00FF00);
+        sprite.setRGB(2, 2, 0x8000FF00);
+
+        BufferedImage frame = new BufferedImage(6, 6, BufferedImage.TYPE_INT_RGB);
+        IntRaster raster = IntRaster.of(frame);
+        raster.blit(sprite, -1, -1);
+        raster.blit(sprite, 4, 4);
+
+        assertEquals(0x00FF00, frame.getRGB(0, 0) & 0xFFFFFF);
+        assertEquals(128, new Color(frame.getRGB(1, 1)).getGreen(), 1);
+        assertEquals(0, frame.getRGB(2, 2) & 0xFFFFFF);
+        assertEquals(0x00FF00, frame.getRGB(5, 5) & 0xFFFFFF, "Partly off-frame sprites are clipped");
+    }
+
+    @Test
+    @DisplayName("Test only opaque RGB frames are accepted")
+    void testFrameType() {
+        assertThrows(IllegalArgumentException.class,
+                () -> IntRaster.of(new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB)));
+    }
+}
@@ -7,7 +7,15 @@ import org.junit.platform.suite.api.Suite;
 
 @Suite
 @SelectClasses({AsteroidTests.class, BossTest.class, ScoringTest.class, PlayerShipActionTests.class,
-        PlayerShipTest.class})
+        PlayerShipTest.class, WorldTest.class, SpatialHashTest.class,
+        ProjectileBufferTest.class,
+        HitboxTest.class, AssetCacheTest.class,
+        GameLoopTest.class, FrameSnapshotTest.class,
+        TickProfilerTest.class, MultiWorldRunnerTest.class, ObservationEncoderTest.class,
+        FastMathTest.class, RotationCacheTest.class, IntRasterTest.class, TiledRendererTest.class,
+        LogSamplerTest.class, ReplayTest.class, WorldStateTest.class,
+        MatchServerTest.class, PredictionTest.class, MatchHostTest.class,
+        FlowFieldTest.class})
 public class JUnitTestSuite {
     @BeforeAll
     public static void initJfxRuntime() {
@@ -0,0 +1,39 @@
+package se.asteroid.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.asteroid.util.LogSampler;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogSamplerTest {
+
+    private static int passed(LogSampler sampler, int calls) {
+        int passed = 0;
+        for (int i = 0; i < calls; i++) {
+            if (sampler.sample()) passed++;
+        }
+        return passed;
+    }
+
+    @Test
+    @DisplayName("Test one in every N calls is logged")
+    void testRate() {
+        assertEquals(10, passed(new LogSampler(60), 600));
+        assertEquals(600, passed(new LogSampler(1), 600), "1 logs every call");
+        assertEquals(0, passed(new LogSampler(0), 600), "0 turns the category off");
+    }
+
+    @Test
+    @DisplayName("Test rate comes from the category property")
+    void testCategoryProperty() {
+        String property = LogSampler.PROPERTY_PREFIX + "test";
+        System.setProperty(property, "5");
+        try {
+            assertEquals(5, LogSampler.forCategory("test", 60).getEvery());
+        } finally {
+            System.clearProperty(property);
+        }
+        assertEquals(60, LogSampler.forCategory("test", 60).getEvery(), "Default without the property");
+    }
+}
@@ -0,0 +1,100 @@
+package se.asteroid.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.asteroid.env.Action;
+import se.asteroid.env.MatchHost;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MatchHostTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long BUDGET = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // Waits until done holds, fails after ten seconds
+    private static void waitUntil(BooleanSupplier done) throws InterruptedException {
+        long deadline = System.nanoTime() + 10 * SECOND;
+        while (!done.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting on the host");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    @DisplayName("Test every match ticks on its own virtual thread")
+    void testMatchesTick() throws Exception {
+        AtomicBoolean platformThread = new AtomicBoolean();
+        List<MatchHost.Match> matches = new ArrayList<>();
+        try (MatchHost host = new MatchHost(100, BUDGET, 8, SECOND)) {
+            for (int i = 0; i < 4; i++) {
+                matches.add(host.admit(i, world -> {
+                    if (!Thread.currentThread().isVirtual()) platformThread.set(true);
+                    return world.getTick() % 2 == 0 ? Action.UP : Action.NONE;
+                }));
+            }
+            assertEquals(4, host.getActiveMatches());
+            waitUntil(() -> matches.stream().allMatch(match -> match.getTicks() >= 20));
+            assertFalse(platformThread.get(), "Controllers run on the match threads");
+            for (MatchHost.Match match : matches) {
+                assertTrue(match.getBusyNanos() > 0);
+                assertTrue(match.getMaxStepNanos() <= match.getBusyNanos());
+            }
+        }
+        for (MatchHost.Match match : matches) {
+            assertTrue(match.isFinished(), "Closing the host stops its matches");
+        }
+    }
+
+    @Test
+    @DisplayName("Test a full host rejects admission")
+    void testFullHost() {
+        try (MatchHost host = new MatchHost(60, BUDGET, 2, SECOND)) {
+            host.admit(1, world -> Action.NONE);
+            host.admit(2, world -> Action.NONE);
+            assertThrows(RejectedExecutionException.class, () -> host.admit(3, world -> Action.NONE));
+            assertEquals(2, host.getAdmitted());
+            assertEquals(1, host.getRejected());
+        }
+    }
+
+    @Test
+    @DisplayName("Test matches that would not fit on the cores are rejected")
+    void testSaturatedHost() {
+        // Until a tick is measured it costs its budget, here a whole core's tick
+        long budget = TimeUnit.MILLISECONDS.toNanos(10) * Runtime.getRuntime().availableProcessors();
+        try (MatchHost host = new MatchHost(100, budget, 100, SECOND)) {
+            host.admit(1, world -> Action.NONE);
+            RejectedExecutionException e = assertThrows(RejectedExecutionException.class,
+                    () -> host.admit(2, world -> Action.NONE));
+            assertTrue(e.getMessage().contains("saturated"), e.getMessage());
+        }
+    }
+
+    @Test
+    @DisplayName("Test admission is rejected while p99 tick latency is over the limit")
+    void testLatencyRejectsAdmission() throws Exception {
+        long limit = TimeUnit.MILLISECONDS.toNanos(2);
+        try (MatchHost host = new MatchHost(500, TimeUnit.MICROSECONDS.toNanos(100), 100, limit)) {
+            // Each tick takes ten of its slots, so the match falls behind
+            MatchHost.Match slow = host.admit(1, world -> {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(20));
+                return Action.NONE;
+            });
+            waitUntil(() -> host.getTickLatencyP99() > limit);
+            RejectedExecutionException e = assertThrows(RejectedExecutionException.class,
+                    () -> host.admit(2, world -> Action.NONE));
+            assertTrue(e.getMessage().contains("p99"), e.getMessage());
+            assertEquals(1, host.getActiveMatches());
+            assertTrue(slow.getOverBudgetTicks() > 0, "Every tick is over its budget");
+            assertTrue(slow.getDroppedTicks() > 0, "A match that fell behind skips ticks");
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package se.asteroid.test;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.asteroid.model.PlayerInput;
+import se.asteroid.net.MatchServer;
+import se.asteroid.net.NetClient;
+import se.asteroid.net.NetState;
+import se.asteroid.net.StateDelta;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MatchServerTest {
+    private MatchServer server;
+    private final List<NetClient> clients = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MatchServer(0, 60, 20, 4, 1024);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (NetClient client : clients) {
+            client.close();
+        }
+        server.close();
+    }
+
+    private NetClient connect() throws IOException {
+        NetClient client = NetClient.connect("localhost", server.getPort());
+        clients.add(client);
+        return client;
+    }
+
+    // Polls every client until done holds, fails after ten seconds
+    private void pollUntil(BooleanSupplier done) throws Exception {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!done.getAsBoolean()) {
+            for (NetClient client : clients) {
+                client.poll();
+            }
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting on the server");
+            Thread.sleep(2);
+        }
+    }
+
+    @Test
+    @DisplayName("Test delta round trip against a baseline")
+    void testDeltaRoundTrip() {
+        SplittableRandom random = new SplittableRandom(3);
+        byte[] base = new byte[1500];
+        random.nextBytes(base);
+        byte[] current = base.clone();
+        for (int i = 0; i < 40; i++) {
+            current[random.nextInt(current.length)] ^= (byte) (1 + random.nextInt(255));
+        }
+        byte[] longer = new byte[1700];
+        System.arraycopy(current, 0, longer, 0, current.length);
+
+        for (byte[] state : new byte[][] {current, longer, base}) {
+            ByteBuffer delta = ByteBuffer.allocate(4096);
+            StateDelta.encode(base, base.length, state, state.length, delta);
+            delta.flip();
+            byte[] decoded = new byte[2048];
+            assertEquals(state.length, StateDelta.decodedLength(delta));
+            int length = StateDelta.decode(base, base.length, delta, decoded);
+            assertEquals(state.length, length);
+            assertArrayEquals(state, Arrays.copyOf(decoded, length));
+        }
+
+        ByteBuffer same = ByteBuffer.allocate(64);
+        StateDelta.encode(base, base.length, base, base.length, same);
+        assertTrue(same.position() <= 3, "An unchanged state is just its length: " + same.position());
+    }
+
+    @Test
+    @DisplayName("Test clients share a match and the server applies their input")
+    void testSharedMatch() throws Exception {
+        NetClient first = connect();
+        NetClient second = connect();
+        assertEquals(first.getMatchId(), second.getMatchId(), "Both fit in one match");
+        assertNotEquals(first.getSlot(), second.getSlot());
+        assertEquals(60, first.getTickRate());
+        assertEquals(20, first.getSnapshotRate());
+
+        pollUntil(() -> first.hasState() && first.getState().getShipCount() == 2);
+        NetState state = first.getState();
+        int ship = state.findShip(first.getSlot());
+        double startX = state.getShipX(ship);
+
+        PlayerInput right = new PlayerInput();
+        right.setRight(true);
+        int last = -1;
+        for (int i = 0; i < 30; i++) {
+            last = first.sendInput(right);
+        }
+        int lastInput = last;
+        pollUntil(() -> first.getLastInputApplied() == lastInput);
+        pollUntil(() -> second.getLastSnapshot() > 0 && second.getState().findShip(first.getSlot()) >= 0
+                && second.getState().getShipX(second.getState().findShip(first.getSlot())) > startX + 20);
+        assertTrue(second.getState().getBodyCount() > 0, "Asteroids and enemies are in the state");
+        assertEquals(-1, second.getLastInputApplied(), "The second client sent nothing");
+
+        first.close();
+        clients.remove(first);
+        pollUntil(() -> second.getState().getShipCount() == 1);
+        assertEquals(second.getSlot(), second.getState().getShipSlot(0));
+    }
+
+    @Test
+    @DisplayName("Test hundreds of sessions get delta compressed snapshots")
+    void testManySessions() throws Exception {
+        int sessions = 200;
+        for (int i = 0; i < sessions; i++) {
+            connect();
+        }
+        assertEquals(sessions, server.getSessionCount());
+        assertEquals(sessions / 4, server.getMatchCount(), "Four ships per match");
+
+        // Until a client acks, it gets full snapshots, after that deltas
+        pollUntil(() -> clients.stream().allMatch(client -> client.getSnapshotsReceived() >= 2));
+        long sent = server.getSnapshotsSent();
+        long full = server.getFullSnapshotsSent();
+        long[] received = clients.stream().mapToLong(NetClient::getSnapshotsReceived).toArray();
+        pollUntil(() -> {
+            for (int i = 0; i < sessions; i++) {
+                if (clients.get(i).getSnapshotsReceived() < received[i] + 5) return false;
+            }
+            return true;
+        });
+        sent = server.getSnapshotsSent() - sent;
+        full = server.getFullSnapshotsSent() - full;
+        assertTrue(full < sent / 10, full + " of " + sent + " snapshots were full");
+        for (NetClient client : clients) {
+            assertEquals(4, client.getState().getShipCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Test a full server refuses connections before HELLO")
+    void testFullServerRefuses() throws Exception {
+        try (MatchServer small = new MatchServer(0, 60, 25, 4, 2)) {
+            small.start();
+            try (NetClient first = NetClient.connect("localhost", small.getPort());
+                 NetClient second = NetClient.connect("localhost", small.getPort())) {
+                assertEquals(25, first.getSnapshotRate());
+                assertThrows(IOException.class, () -> NetClient.connect("localhost", small.getPort()).close());
+                assertEquals(2, small.getSessionCount(), "The refused connection got no session");
+                assertEquals(first.getMatchId(), second.getMatchId());
+            }
+        }
+    }
+}
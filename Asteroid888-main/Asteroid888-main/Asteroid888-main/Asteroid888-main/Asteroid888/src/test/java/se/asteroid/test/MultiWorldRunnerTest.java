@@ -0,0 +1,76 @@
+package se.asteroid.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.asteroid.env.Action;
+import se.asteroid.env.MultiWorldRunner;
+import se.asteroid.env.StepBatch;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MultiWorldRunnerTest {
+
+    private static int[][] run(MultiWorldRunner runner, int steps) {
+        int[] actions = new int[runner.size()];
+        int[][] scores = new int[steps][];
+        for (int step = 0; step < steps; step++) {
+            for (int i = 0; i < actions.length; i++) {
+                actions[i] = (step + i) % 7 == 0 ? Action.SHOOT | Action.RIGHT : Action.UP;
+            }
+            scores[step] = runner.step(actions).score.clone();
+        }
+        return scores;
+    }
+
+    @Test
+    @DisplayName("Test every world steps once per batch")
+    void testStepsAllWorlds() {
+        MultiWorldRunner runner = new MultiWorldRunner(16, 7L);
+        StepBatch batch = null;
+        for (int step = 0; step < 30; step++) {
+            batch = runner.step(new int[16]);
+        }
+        assertEquals(16, batch.size());
+        for (int i = 0; i < runner.size(); i++) {
+            assertEquals(30, runner.getWorld(i).getTick(), "World " + i + " should run every step");
+            assertEquals(runner.getWorld(i).getLives(), batch.lives[i]);
+        }
+    }
+
+    @Test
+    @DisplayName("Test actions reach the right world")
+    void testActionsPerWorld() {
+        MultiWorldRunner runner = new MultiWorldRunner(2, 7L);
+        double startX = runner.getWorld(0).getPlayer().getX();
+        for (int step = 0; step < 10; step++) {
+            runner.step(new int[]{Action.RIGHT, Action.LEFT});
+        }
+        assertTrue(runner.getWorld(0).getPlayer().getX() > startX, "World 0 should move right");
+        assertTrue(runner.getWorld(1).getPlayer().getX() < startX, "World 1 should move left");
+    }
+
+    @Test
+    @DisplayName("Test same seed gives same batches regardless of pool size")
+    void testDeterministic() {
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool wide = new ForkJoinPool(4);
+        try {
+            int[][] first = run(new MultiWorldRunner(8, 42L, single), 300);
+            int[][] second = run(new MultiWorldRunner(8, 42L, wide), 300);
+            assertTrue(Arrays.deepEquals(first, second), "Worlds should not depend on scheduling");
+        } finally {
+            single.shutdown();
+            wide.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Test action batch must match world count")
+    void testBatchSize() {
+        MultiWorldRunner runner = new MultiWorldRunner(3, 1L);
+        assertThrows(IllegalArgumentException.class, () -> runner.step(new int[2]));
+    }
+}
@@ -0,0 +1,106 @@
+package se.asteroid.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.asteroid.env.Action;
+import se.asteroid.env.MultiWorldRunner;
+import se.asteroid.env.ObservationEncoder;
+import se.asteroid.model.Asteroid;
+import se.asteroid.model.PlayerInput;
+import se.asteroid.model.World;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ObservationEncoderTest {
+
+    @Test
+    @DisplayName("Test header and entities land at the documented offsets")
+    void testLayout() {
+        World world = new World(3L);
+        world.start();
+        PlayerInput input = new PlayerInput();
+        input.addShot();
+        world.step(input);
+
+        ObservationEncoder encoder = new ObservationEncoder(16, 64);
+        ByteBuffer out = encoder.allocate(1);
+        encoder.encode(world, out, 0);
+
+        assertTrue(out.isDirect());
+        assertEquals(ObservationEncoder.VERSION, out.getInt(ObservationEncoder.OFFSET_VERSION));
+        assertEquals(16, out.getInt(ObservationEncoder.OFFSET_MAX_ENTITIES));
+        assertEquals(1L, out.getLong(ObservationEncoder.OFFSET_TICK));
+        assertEquals(3, out.getInt(ObservationEncoder.OFFSET_LIVES));
+        assertEquals(-1, out.getInt(ObservationEncoder.OFFSET_BOSS_PATTERN));
+        assertNotEquals(0, out.getInt(ObservationEncoder.OFFSET_FLAGS) & ObservationEncoder.FLAG_STARTED);
+        assertEquals((float) world.getPlayer().getX(), out.getFloat(ObservationEncoder.OFFSET_SHIP));
+
+        assertEquals(world.getAsteroids().size(), out.getInt(ObservationEncoder.OFFSET_ASTEROID_COUNT));
+        Asteroid first = world.getAsteroids().get(0);
+        int at = encoder.getAsteroidOffset();
+        assertEquals((float) first.getX(), out.getFloat(at));
+        assertEquals((float) first.getY(), out.getFloat(at + 4));
+        assertEquals(first.getHealth(), out.getInt(at + 16));
+        assertEquals(world.getRegularEnemies().size(), out.getInt(ObservationEncoder.OFFSET_REGULAR_COUNT));
+        assertEquals(world.getPlayer().getBulletBuffer().size(), out.getInt(ObservationEncoder.OFFSET_PLAYER_BULLET_COUNT));
+        assertEquals(0, out.position(), "Encoding should not move the buffer position");
+    }
+
+    @Test
+    @DisplayName("Test sections are capped at their capacity")
+    void testCapacity() {
+        World world = new World(3L);
+        world.start();
+        ObservationEncoder encoder = new ObservationEncoder(2, 0);
+        ByteBuffer out = encoder.allocate(1);
+        encoder.encode(world, out, 0);
+        assertEquals(2, out.getInt(ObservationEncoder.OFFSET_ASTEROID_COUNT));
+        assertEquals(0, out.getInt(ObservationEncoder.OFFSET_PLAYER_BULLET_COUNT));
+    }
+
+    @Test
+    @DisplayName("Test occupancy grid marks the ship cell")
+    void testGrid() {
+        World world = new World(3L);
+        world.start();
+        ObservationEncoder encoder = new ObservationEncoder(16, 64, 40, 30);
+        ByteBuffer out = encoder.allocate(1);
+        encoder.encode(world, out, 0);
+
+        // Ship starts at 400, 300 on an 800x600 screen of 20 pixel cells
+        int cell = encoder.getGridOffset() + 15 * 40 + 20;
+        assertNotEquals(0, out.get(cell) & ObservationEncoder.GRID_SHIP);
+        assertEquals(0, out.get(encoder.getGridOffset()) & ObservationEncoder.GRID_SHIP);
+    }
+
+    @Test
+    @DisplayName("Test runner encodes every world each step")
+    void testRunnerObservations() {
+        MultiWorldRunner runner = new MultiWorldRunner(4, 9L);
+        ObservationEncoder encoder = new ObservationEncoder(16, 64);
+        ByteBuffer observations = runner.observeWith(encoder);
+        assertEquals(4 * encoder.size(), observations.capacity());
+
+        for (int step = 0; step < 5; step++) {
+            runner.step(new int[]{Action.RIGHT, Action.LEFT, Action.UP, Action.NONE});
+        }
+        for (int i = 0; i < 4; i++) {
+            int at = i * encoder.size();
+            assertEquals(5L, observations.getLong(at + ObservationEncoder.OFFSET_TICK));
+            assertEquals((float) runner.getWorld(i).getPlayer().getX(), observations.getFloat(at + ObservationEncoder.OFFSET_SHIP));
+        }
+    }
+
+    @Test
+    @DisplayName("Test big-endian buffers are rejected")
+    void testByteOrder() {
+        World world = new World(3L);
+        world.start();
+        ObservationEncoder encoder = new ObservationEncoder(4, 4);
+        ByteBuffer out = ByteBuffer.allocate(encoder.size()).order(ByteOrder.BIG_ENDIAN);
+        assertThrows(IllegalArgumentException.class, () -> encoder.encode(world, out, 0));
+    }
+}
@@ -0,0 +1,185 @@
+package se.asteroid.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.asteroid.model.Asteroid;
+import se.asteroid.model.PlayerInput;
+import se.asteroid.model.World;
+import se.asteroid.net.MatchServer;
+import se.asteroid.net.NetState;
+import se.asteroid.net.PredictedClient;
+import se.asteroid.net.ShipPredictor;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PredictionTest {
+    private final ByteBuffer buffer = ByteBuffer.allocate(16 * 1024);
+
+    private NetState stateOf(World world) {
+        buffer.clear();
+        NetState.write(world, buffer);
+        NetState state = new NetState();
+        state.read(buffer.array(), buffer.position());
+        return state;
+    }
+
+    // Sweeps right then up, turning now and then
+    private static PlayerInput inputFor(int tick) {
+        PlayerInput input = new PlayerInput();
+        input.setRight(tick < 10);
+        input.setUp(tick >= 6);
+        if (tick % 7 == 3) input.addRotateLeft();
+        return input;
+    }
+
+    @Test
+    @DisplayName("Test replaying pending input reproduces the server")
+    void testReplayMatchesServer() {
+        World world = new World(7);
+        world.start();
+        ShipPredictor predictor = new ShipPredictor();
+        predictor.reconcile(stateOf(world), 0, -1);
+        assertTrue(predictor.isActive());
+        assertEquals(world.getPlayer().getX(), predictor.getX());
+
+        for (int tick = 0; tick < 20; tick++) {
+            predictor.predict(tick, inputFor(tick));
+            predictor.smooth();
+        }
+        double predictedX = predictor.getPredictedX();
+        double predictedY = predictor.getPredictedY();
+        assertNotEquals(world.getPlayer().getX(), predictedX, "The ship moved before the server saw anything");
+
+        for (int tick = 0; tick < 12; tick++) {
+            world.step(inputFor(tick));
+        }
+        predictor.reconcile(stateOf(world), 0, 11);
+        assertEquals(8, predictor.getPendingCount());
+        assertEquals(0, predictor.getLastCorrection(), "The prediction was right");
+        assertEquals(predictedX, predictor.getX());
+        assertEquals(predictedY, predictor.getY());
+
+        for (int tick = 12; tick < 20; tick++) {
+            world.step(inputFor(tick));
+        }
+        predictor.reconcile(stateOf(world), 0, 19);
+        assertEquals(0, predictor.getPendingCount());
+        assertEquals(world.getPlayer().getX(), predictor.getPredictedX());
+        assertEquals(world.getPlayer().getY(), predictor.getPredictedY());
+        assertEquals(world.getPlayer().getAngle(), predictor.getAngle());
+    }
+
+    @Test
+    @DisplayName("Test a wrong prediction is corrected smoothly")
+    void testCorrectionIsSmoothed() {
+        World world = new World(7);
+        world.start();
+        ShipPredictor predictor = new ShipPredictor();
+        predictor.reconcile(stateOf(world), 0, -1);
+        for (int tick = 0; tick < 10; tick++) {
+            predictor.predict(tick, inputFor(tick));
+        }
+
+        // The server ran a tick without our input, holding the keys of the last one
+        for (int tick = 0; tick < 5; tick++) {
+            world.step(inputFor(tick));
+        }
+        PlayerInput held = inputFor(4);
+        held.clearPresses();
+        world.step(held);
+
+        double shownX = predictor.getX();
+        double shownY = predictor.getY();
+        predictor.reconcile(stateOf(world), 0, 4);
+        assertTrue(predictor.getLastCorrection() > 0.5, "Off by " + predictor.getLastCorrection());
+        assertEquals(shownX, predictor.getX(), 1e-9, "No jump when the snapshot lands");
+        assertEquals(shownY, predictor.getY(), 1e-9);
+
+        double lastGap = Math.abs(predictor.getX() - predictor.getPredictedX());
+        for (int tick = 0; tick < 40; tick++) {
+            predictor.smooth();
+            double gap = Math.abs(predictor.getX() - predictor.getPredictedX());
+            assertTrue(gap <= lastGap, "The correction only shrinks");
+            lastGap = gap;
+        }
+        assertEquals(predictor.getPredictedX(), predictor.getX());
+        assertEquals(predictor.getPredictedY(), predictor.getY());
+    }
+
+    @Test
+    @DisplayName("Test an exploding ship is not predicted")
+    void testExplodingShipHoldsStill() {
+        World world = new World(7);
+        world.start();
+        world.getPlayer().setInvincible(false);
+        ShipPredictor predictor = new ShipPredictor();
+        predictor.reconcile(stateOf(world), 0, -1);
+        assertTrue(predictor.isActive());
+
+        world.getAsteroids().clear();
+        world.getRegularEnemies().clear();
+        world.getSecondTierEnemies().clear();
+        world.getAsteroids().add(new Asteroid(world.getPlayer().getX(), world.getPlayer().getY(), false));
+        world.step(new PlayerInput());
+        assertTrue(world.isExploding());
+        predictor.reconcile(stateOf(world), 0, -1);
+        assertFalse(predictor.isActive());
+        double x = predictor.getX();
+        PlayerInput right = new PlayerInput();
+        right.setRight(true);
+        predictor.predict(0, right);
+        assertEquals(x, predictor.getX(), "Held still until the server flies it again");
+    }
+
+    @Test
+    @DisplayName("Test play against a loopback server")
+    void testLoopbackPlay() throws Exception {
+        try (MatchServer server = new MatchServer(0, 120, 40, 4, 16)) {
+            server.start();
+            try (PredictedClient client = PredictedClient.connect("localhost", server.getPort())) {
+                ShipPredictor predictor = client.getPredictor();
+                long stepNanos = 1_000_000_000L / client.getTickRate();
+                long nextTick = System.nanoTime();
+                long deadline = nextTick + 10_000_000_000L;
+                PlayerInput input = new PlayerInput();
+                while (!predictor.isActive()) {
+                    client.tick(input);
+                    assertTrue(System.nanoTime() < deadline, "Timed out waiting on the server");
+                    nextTick += stepNanos;
+                    LockSupport.parkNanos(nextTick - System.nanoTime());
+                }
+
+                double startX = predictor.getX();
+                input.setRight(true);
+                client.tick(input);
+                assertTrue(predictor.getX() > startX, "The ship answers on the tick the key goes down");
+                for (int tick = 0; tick < 30; tick++) {
+                    client.tick(input);
+                    nextTick += stepNanos;
+                    LockSupport.parkNanos(nextTick - System.nanoTime());
+                }
+
+                // Coast while the server catches up, still within the
+                // spawn invincibility so nothing can hit the ship
+                input.setRight(false);
+                for (int tick = 0; tick < 60; tick++) {
+                    client.tick(input);
+                    nextTick += stepNanos;
+                    LockSupport.parkNanos(nextTick - System.nanoTime());
+                }
+                NetState state = client.getState();
+                int ship = state.findShip(client.getClient().getSlot());
+                assertTrue(state.getShipX(ship) > startX + 20, "The server moved the ship too");
+                // The server is behind by the inputs still in flight, each
+                // moves the ship by at most its speed
+                double behind = (predictor.getPendingCount() + 2) * Math.abs(predictor.getVelocityX()) + 1;
+                assertEquals(state.getShipX(ship), predictor.getPredictedX(), behind);
+                assertEquals(state.getShipY(ship), predictor.getPredictedY(), 1.0);
+                assertTrue(predictor.getReconciliations() > 10);
+            }
+        }
+    }
+}
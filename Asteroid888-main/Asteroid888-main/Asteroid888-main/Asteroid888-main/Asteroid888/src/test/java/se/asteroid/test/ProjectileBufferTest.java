@@ -0,0 +1,166 @@
+package se.asteroid.test;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.asteroid.model.Hitbox;
+import se.asteroid.model.Projectile;
+import se.asteroid.model.PlayerInput;
+import se.asteroid.model.ProjectileBuffer;
+import se.asteroid.model.ProjectilePoolStats;
+import se.asteroid.model.RegularEnemy;
+import se.asteroid.model.World;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProjectileBufferTest {
+    private static final double DELTA = 0.0001;
+    private ProjectileBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        buffer = new ProjectileBuffer(ProjectileBuffer.OWNER_BOSS);
+    }
+
+    @Test
+    @DisplayName("Test default velocity matches Projectile")
+    void testDefaultVelocity() {
+        buffer.add(100, 100, 30);
+        Projectile reference = new Projectile(100, 100, 30);
+
+        assertEquals(reference.getVelocityX(), buffer.getVelocityX(0), DELTA);
+        assertEquals(reference.getVelocityY(), buffer.getVelocityY(0), DELTA);
+    }
+
+    @Test
+    @DisplayName("Test swap remove keeps the other projectiles")
+    void testSwapRemove() {
+        buffer.add(1, 1, 0, 0, 0);
+        buffer.add(2, 2, 0, 0, 0);
+        buffer.add(3, 3, 0, 0, 0);
+
+        buffer.remove(0);
+
+        assertEquals(2, buffer.size());
+        assertEquals(3, buffer.getX(0), DELTA, "Last slot should move into the hole");
+        assertEquals(2, buffer.getX(1), DELTA);
+    }
+
+    @Test
+    @DisplayName("Test off-screen projectiles are removed")
+    void testOffScreenRemoval() {
+        buffer.add(400, 300, 0, 1, 0);
+        buffer.add(799, 300, 0, 5, 0);
+
+        buffer.updateAndRemoveOffScreen(800, 600);
+
+        assertEquals(1, buffer.size());
+        assertEquals(401, buffer.getX(0), DELTA);
+    }
+
+    @Test
+    @DisplayName("Test buffer grows to bullet-hell sizes")
+    void testLargeBuffer() {
+        for (int i = 0; i < 100_000; i++) {
+            buffer.add(i % 800, i % 600, 0, 0, 1);
+        }
+        buffer.update();
+
+        assertEquals(100_000, buffer.size());
+        assertEquals(1, buffer.getY(0), DELTA);
+    }
+
+    @Test
+    @DisplayName("Test list view writes back to the buffer")
+    void testListView() {
+        buffer.add(400, 300, 0, 1, 0);
+
+        Projectile view = buffer.asList().get(0);
+        view.setVelocity(0, 2);
+        view.update();
+
+        assertEquals(302, buffer.getY(0), DELTA);
+        assertEquals(302, view.getY(), DELTA);
+
+        buffer.asList().remove(0);
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    @DisplayName("Test intersect search uses the projectile hitbox")
+    void testFindIntersecting() {
+        buffer.add(100, 100, 0, 0, 0);
+        buffer.add(500, 500, 0, 0, 0);
+
+        Hitbox box = new Hitbox();
+        box.set(490, 490, 20, 20);
+        assertEquals(1, buffer.findIntersecting(box));
+        box.set(300, 300, 20, 20);
+        assertEquals(-1, buffer.findIntersecting(box));
+    }
+
+    @Test
+    @DisplayName("Test despawned slots are reused before the buffer grows")
+    void testPoolCounters() {
+        for (int i = 0; i < 16; i++) {
+            buffer.add(100, 100, 0, 0, -100);
+        }
+        ProjectilePoolStats stats = buffer.getPoolStats();
+        assertEquals(16, stats.getHits());
+        assertEquals(0, stats.getMisses());
+
+        // Everything flies off the top and the next volley reuses the slots
+        buffer.updateAndRemoveOffScreen(800, 600);
+        buffer.updateAndRemoveOffScreen(800, 600);
+        assertEquals(0, buffer.size());
+        for (int i = 0; i < 17; i++) {
+            buffer.add(100, 100, 0, 0, 0);
+        }
+        assertEquals(32, stats.getHits());
+        assertEquals(1, stats.getMisses(), "Only the 17th live slot should grow the buffer");
+
+        stats.reset();
+        assertEquals(0, stats.getHits());
+        assertEquals(0, stats.getMisses());
+    }
+
+    @Test
+    @DisplayName("Test the world's pool counters outlive the shooters")
+    void testWorldPoolCounters() {
+        World world = new World(5);
+        world.start();
+        world.getAsteroids().clear();
+        world.getSecondTierEnemies().clear();
+        world.getRegularEnemies().clear();
+        RegularEnemy enemy = new RegularEnemy(400, 100, 0, 0, 0, 50);
+        world.getRegularEnemies().add(enemy);
+        enemy.getBulletBuffer().add(400, 100, 90, 0, 0);
+        enemy.getBulletBuffer().add(410, 100, 90, 0, 0);
+        world.getPlayer().getBulletBuffer().add(400, 300, -90, 0, 0);
+        world.step(new PlayerInput());
+
+        ProjectilePoolStats stats = world.getProjectilePool();
+        assertSame(stats, enemy.getBulletBuffer().getPoolStats(), "The world adopted the enemy's buffer");
+        assertTrue(stats.getHits() >= 3, "Shots before adoption carry over: " + stats);
+        // The enemy may have fired on its own as well
+        int peak = stats.getPeak();
+        assertTrue(peak >= 3);
+        assertEquals(peak, stats.getLive(), "Peak is the live total of one tick over all buffers");
+
+        long hits = stats.getHits();
+        world.getRegularEnemies().clear();
+        world.step(new PlayerInput());
+        assertTrue(stats.getHits() >= hits, "A dead enemy's shots still count");
+        assertEquals(1, stats.getLive());
+        assertEquals(peak, stats.getPeak());
+        world.start();
+        assertTrue(stats.getHits() >= hits, "Starting over keeps the counters");
+    }
+
+    @Test
+    @DisplayName("Test list view hands out one view per slot")
+    void testSlotViewsReused() {
+        buffer.add(100, 100, 0, 0, 0);
+        assertSame(buffer.asList().get(0), buffer.asList().get(0));
+    }
+}
@@ -0,0 +1,108 @@
+package se.asteroid.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.asteroid.env.ReplayPlayer;
+import se.asteroid.env.ReplayRecorder;
+import se.asteroid.model.PlayerInput;
+import se.asteroid.model.World;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplayTest {
+
+    // Plays a scripted session into world and recorder, returns the state after every tick
+    private static List<String> playSession(World world, ReplayRecorder recorder, int ticks) {
+        List<String> states = new ArrayList<>();
+        SplittableRandom script = new SplittableRandom(7);
+        PlayerInput input = new PlayerInput();
+        world.start();
+        recorder.recordStart();
+        for (int i = 0; i < ticks; i++) {
+            // Keys are held for a while, presses are occasional
+            if (i % 20 == 0) {
+                input.setUp(script.nextBoolean());
+                input.setLeft(script.nextBoolean());
+                input.setRight(!input.isLeft() && script.nextBoolean());
+            }
+            if (script.nextInt(8) == 0) input.addShot();
+            if (script.nextInt(60) == 0) input.addRotateLeft();
+            if (script.nextInt(300) == 0) input.addMissileBurst();
+            if (world.isGameOver()) {
+                world.reset();
+                recorder.recordReset();
+                world.start();
+                recorder.recordStart();
+            }
+            world.step(input);
+            recorder.record(input);
+            input.clearPresses();
+            states.add(state(world));
+        }
+        return states;
+    }
+
+    private static String state(World world) {
+        return world.getTick() + " " + world.getScore() + " " + world.getLives() + " "
+                + world.getPlayer().getX() + " " + world.getPlayer().getY();
+    }
+
+    @Test
+    @DisplayName("Test a replay drives the world through the recorded game")
+    void testDeterministicReplay() {
+        World world = new World(99L);
+        ReplayRecorder recorder = new ReplayRecorder(world.getSeed());
+        List<String> recorded = playSession(world, recorder, 3000);
+
+        ReplayPlayer player = new ReplayPlayer(recorder.toByteArray());
+        assertEquals(99L, player.getSeed());
+        List<String> replayed = new ArrayList<>();
+        while (player.step()) {
+            replayed.add(state(player.getWorld()));
+        }
+        assertTrue(player.isFinished());
+        assertEquals(recorded, replayed, "Every tick should match the recording");
+    }
+
+    @Test
+    @DisplayName("Test held keys cost nothing until they change")
+    void testCompact() {
+        World world = new World(3L);
+        ReplayRecorder recorder = new ReplayRecorder(world.getSeed());
+        PlayerInput input = new PlayerInput();
+        world.start();
+        recorder.recordStart();
+        input.setUp(true);
+        for (int i = 0; i < 10_000; i++) {
+            recorder.record(input);
+        }
+        assertEquals(10_000, recorder.getTicks());
+        assertTrue(recorder.toByteArray().length < 24, "Header, start, one key change and the end");
+
+        ReplayPlayer player = new ReplayPlayer(recorder.toByteArray());
+        assertEquals(10_000, player.runHeadless());
+    }
+
+    @Test
+    @DisplayName("Test a replay file round trips and bad files are refused")
+    void testFile(@TempDir Path dir) throws IOException {
+        World world = new World(5L);
+        ReplayRecorder recorder = new ReplayRecorder(world.getSeed());
+        List<String> recorded = playSession(world, recorder, 600);
+        Path file = dir.resolve("session.replay");
+        recorder.writeTo(file);
+
+        ReplayPlayer player = ReplayPlayer.read(file);
+        assertEquals(600, player.runHeadless());
+        assertEquals(recorded.get(recorded.size() - 1), state(player.getWorld()));
+
+        assertThrows(IllegalArgumentException.class, () -> new ReplayPlayer(new byte[]{1, 2, 3}));
+    }
+}
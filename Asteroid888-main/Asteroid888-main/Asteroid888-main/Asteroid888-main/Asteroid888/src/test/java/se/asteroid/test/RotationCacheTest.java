@@ -0,0 +1,74 @@
+package se.asteroid.test;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.asteroid.model.RotationCache;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RotationCacheTest {
+
+    @AfterEach
+    void tearDown() {
+        RotationCache.setBuckets(RotationCache.DEFAULT_BUCKETS);
+    }
+
+    // Left half red, right half blue
+    private static BufferedImage halves() {
+        BufferedImage image = new BufferedImage(40, 20, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.RED);
+        g.fillRect(0, 0, 20, 20);
+        g.setColor(Color.BLUE);
+        g.fillRect(20, 0, 20, 20);
+        g.dispose();
+        return image;
+    }
+
+    @Test
+    @DisplayName("Test nearby angles share a bucket")
+    void testBuckets() {
+        RotationCache.setBuckets(64);
+        BufferedImage image = halves();
+
+        // 360 / 64 = 5.625 degrees per bucket
+        assertSame(RotationCache.get(image, 0), RotationCache.get(image, 2));
+        assertSame(RotationCache.get(image, 0), RotationCache.get(image, 360));
+        assertSame(RotationCache.get(image, -5.625), RotationCache.get(image, 354.375));
+        assertNotSame(RotationCache.get(image, 0), RotationCache.get(image, 5.625));
+    }
+
+    @Test
+    @DisplayName("Test rotated copies are not clipped and turn the right way")
+    void testRotation() {
+        BufferedImage image = halves();
+        BufferedImage rotated = RotationCache.get(image, 180);
+
+        // Diagonal of 40x20 rounded up
+        assertEquals(45, rotated.getWidth());
+        assertEquals(45, rotated.getHeight());
+        int centre = rotated.getHeight() / 2;
+        assertEquals(Color.BLUE.getRGB(), rotated.getRGB(centre - 10, centre) | 0xFF000000,
+                "Half a turn should put the blue half on the left");
+        assertEquals(Color.RED.getRGB(), rotated.getRGB(centre + 10, centre) | 0xFF000000);
+        assertEquals(0, rotated.getRGB(centre, 1) >>> 24, "Corners outside the sprite stay transparent");
+    }
+
+    @Test
+    @DisplayName("Test zero buckets turns the cache off")
+    void testDisabled() {
+        RotationCache.setBuckets(0);
+        BufferedImage image = halves();
+        assertNull(RotationCache.get(image, 45));
+
+        BufferedImage target = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = target.createGraphics();
+        RotationCache.draw(g, image, 0, 50, 50);
+        g.dispose();
+        assertEquals(Color.RED.getRGB(), target.getRGB(35, 50), "Fallback should still draw the sprite");
+    }
+}
@@ -1,6 +1,5 @@
 package se.asteroid.test;
 
-import se.asteroid.controller.GameController;
 import org.junit.jupiter.api.*;
 import se.asteroid.model.*;
 
@@ -10,9 +9,9 @@ import java.util.List;
 
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 public class ScoringTest {
-    private GameController gamePanel;
+    private World world;
     private Field scoreField;
-    private Field playerField;
+    private Field pilotsField;
     private Field asteroidsField;
     private Field regularEnemiesField;
     private Field secondTierEnemiesField;
@@ -21,20 +20,20 @@ public class ScoringTest {
 
     @BeforeEach
     void setUp() throws Exception {
-        gamePanel = new GameController();
+        world = new World();
 
         // Access private fields
-        scoreField = GameController.class.getDeclaredField("score");
-        playerField = GameController.class.getDeclaredField("player");
-        asteroidsField = GameController.class.getDeclaredField("asteroids");
-        regularEnemiesField = GameController.class.getDeclaredField("regularEnemies");
-        secondTierEnemiesField = GameController.class.getDeclaredField("secondTierEnemies");
-        bossField = GameController.class.getDeclaredField("boss");
-        checkBulletCollisions = GameController.class.getDeclaredMethod("checkBulletCollisions", Projectile.class);
+        scoreField = World.class.getDeclaredField("score");
+        pilotsField = World.class.getDeclaredField("pilots");
+        asteroidsField = World.class.getDeclaredField("asteroids");
+        regularEnemiesField = World.class.getDeclaredField("regularEnemies");
+        secondTierEnemiesField = World.class.getDeclaredField("secondTierEnemies");
+        bossField = World.class.getDeclaredField("boss");
+        checkBulletCollisions = World.class.getDeclaredMethod("checkBulletCollisions", double.class, double.class);
 
         // Make them accessible
         scoreField.setAccessible(true);
-        playerField.setAccessible(true);
+        pilotsField.setAccessible(true);
         asteroidsField.setAccessible(true);
         regularEnemiesField.setAccessible(true);
         secondTierEnemiesField.setAccessible(true);
@@ -42,11 +41,11 @@ public class ScoringTest {
         checkBulletCollisions.setAccessible(true);
 
         // Reset score
-        scoreField.set(gamePanel, 0);
+        scoreField.set(world, 0);
     }
 
     private int getScore() throws Exception {
-        return (int) scoreField.get(gamePanel);
+        return (int) scoreField.get(world);
     }
 
     @Test
@@ -55,7 +54,7 @@ public class ScoringTest {
     void testSmallAsteroidScore() throws Exception {
         // Get the asteroids list
         @SuppressWarnings("unchecked")
-        List<Asteroid> asteroids = (List<Asteroid>) asteroidsField.get(gamePanel);
+        List<Asteroid> asteroids = (List<Asteroid>) asteroidsField.get(world);
 
         // Create a small asteroid at a specific position
         Asteroid smallAsteroid = new Asteroid(100, 100, false);
@@ -66,7 +65,7 @@ public class ScoringTest {
 
         // Simulate multiple hits until destroyed
         while (!smallAsteroid.isDestroyed()) {
-            checkBulletCollisions.invoke(gamePanel, bullet);
+            checkBulletCollisions.invoke(world, bullet.getX(), bullet.getY());
         }
 
         Assertions.assertEquals(1, getScore(), "Small asteroid should give 1 point");
@@ -78,7 +77,7 @@ public class ScoringTest {
     void testLargeAsteroidScore() throws Exception {
         // Get the asteroids list
         @SuppressWarnings("unchecked")
-        List<Asteroid> asteroids = (List<Asteroid>) asteroidsField.get(gamePanel);
+        List<Asteroid> asteroids = (List<Asteroid>) asteroidsField.get(world);
 
         // Create a large asteroid
         Asteroid largeAsteroid = new Asteroid(100, 100, true);
@@ -89,7 +88,7 @@ public class ScoringTest {
 
         // Simulate multiple hits until destroyed
         while (!largeAsteroid.isDestroyed()) {
-            checkBulletCollisions.invoke(gamePanel, bullet);
+            checkBulletCollisions.invoke(world, bullet.getX(), bullet.getY());
         }
 
         Assertions.assertEquals(2, getScore(), "Large asteroid should give 2 points");
@@ -101,7 +100,7 @@ public class ScoringTest {
     void testRegularEnemyScore() throws Exception {
         // Get the regular enemies list
         @SuppressWarnings("unchecked")
-        List<RegularEnemy> regularEnemies = (List<RegularEnemy>) regularEnemiesField.get(gamePanel);
+        List<RegularEnemy> regularEnemies = (List<RegularEnemy>) regularEnemiesField.get(world);
 
         // Create a regular enemy
         RegularEnemy enemy = new RegularEnemy(100, 100, 0, 0, 0, 50);
@@ -112,7 +111,7 @@ public class ScoringTest {
 
         // Simulate multiple hits until destroyed
         while (!enemy.isDestroyed()) {
-            checkBulletCollisions.invoke(gamePanel, bullet);
+            checkBulletCollisions.invoke(world, bullet.getX(), bullet.getY());
         }
 
         Assertions.assertEquals(1, getScore(), "Regular enemy should give 1 point");
@@ -124,7 +123,7 @@ public class ScoringTest {
     void testSecondTierEnemyScore() throws Exception {
         // Get the second tier enemies list
         @SuppressWarnings("unchecked")
-        List<SecondTier> secondTierEnemies = (List<SecondTier>) secondTierEnemiesField.get(gamePanel);
+        List<SecondTier> secondTierEnemies = (List<SecondTier>) secondTierEnemiesField.get(world);
 
         // Create a second tier enemy
         SecondTier enemy = new SecondTier(100, 100, 0, 0, 0, 75);
@@ -135,7 +134,7 @@ public class ScoringTest {
 
         // Simulate multiple hits until destroyed
         while (!enemy.isDestroyed()) {
-            checkBulletCollisions.invoke(gamePanel, bullet);
+            checkBulletCollisions.invoke(world, bullet.getX(), bullet.getY());
         }
 
         Assertions.assertEquals(2, getScore(), "Second tier enemy should give 2 points");
@@ -148,14 +147,14 @@ public class ScoringTest {
         // Create and set boss
         Ship player = new Ship(400, 300);
         Boss boss = new Boss(100, 100, player);
-        bossField.set(gamePanel, boss);
+        bossField.set(world, boss);
 
         // Create a bullet that will hit the boss
         Projectile bullet = new Projectile(100, 100, 0);
 
         // Simulate multiple hits until destroyed
         while (boss.isAlive()) {
-            checkBulletCollisions.invoke(gamePanel, bullet);
+            checkBulletCollisions.invoke(world, bullet.getX(), bullet.getY());
         }
 
         Assertions.assertEquals(50, getScore(), "Boss should give 50 points");
@@ -167,11 +166,11 @@ public class ScoringTest {
     void testMultipleEnemiesScore() throws Exception {
         // Get all enemy lists
         @SuppressWarnings("unchecked")
-        List<Asteroid> asteroids = (List<Asteroid>) asteroidsField.get(gamePanel);
+        List<Asteroid> asteroids = (List<Asteroid>) asteroidsField.get(world);
         @SuppressWarnings("unchecked")
-        List<RegularEnemy> regularEnemies = (List<RegularEnemy>) regularEnemiesField.get(gamePanel);
+        List<RegularEnemy> regularEnemies = (List<RegularEnemy>) regularEnemiesField.get(world);
         @SuppressWarnings("unchecked")
-        List<SecondTier> secondTierEnemies = (List<SecondTier>) secondTierEnemiesField.get(gamePanel);
+        List<SecondTier> secondTierEnemies = (List<SecondTier>) secondTierEnemiesField.get(world);
 
         // Add one of each type
         Asteroid smallAsteroid = new Asteroid(100, 100, false);
@@ -187,19 +186,19 @@ public class ScoringTest {
 
         // Destroy small asteroid
         while (!smallAsteroid.isDestroyed()) {
-            checkBulletCollisions.invoke(gamePanel, bullet);
+            checkBulletCollisions.invoke(world, bullet.getX(), bullet.getY());
         }
 
         // Destroy regular enemy
         bullet = new Projectile(200, 200, 0);
         while (!regularEnemy.isDestroyed()) {
-            checkBulletCollisions.invoke(gamePanel, bullet);
+            checkBulletCollisions.invoke(world, bullet.getX(), bullet.getY());
         }
 
         // Destroy second tier enemy
         bullet = new Projectile(300, 300, 0);
         while (!secondTierEnemy.isDestroyed()) {
-            checkBulletCollisions.invoke(gamePanel, bullet);
+            checkBulletCollisions.invoke(world, bullet.getX(), bullet.getY());
         }
 
         // Expected total: 1 + 1 + 2 = 4 points
@@ -0,0 +1,66 @@
+package se.asteroid.test;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.asteroid.model.SpatialHash;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpatialHashTest {
+    private SpatialHash hash;
+
+    @BeforeEach
+    void setUp() {
+        hash = new SpatialHash(800, 600, 64);
+    }
+
+    private Set<Integer> query(double minX, double minY, double maxX, double maxY) {
+        Set<Integer> found = new HashSet<>();
+        int count = hash.query(minX, minY, maxX, maxY);
+        for (int i = 0; i < count; i++) {
+            assertTrue(found.add(hash.getResult(i)), "Each item should be reported once");
+        }
+        return found;
+    }
+
+    @Test
+    @DisplayName("Test query only returns nearby items")
+    void testNearbyItems() {
+        hash.insert(0, 10, 10, 30, 30);
+        hash.insert(1, 700, 500, 740, 540);
+
+        Set<Integer> found = query(0, 0, 40, 40);
+        assertTrue(found.contains(0));
+        assertFalse(found.contains(1), "Far item should not be a candidate");
+    }
+
+    @Test
+    @DisplayName("Test items spanning several cells are reported once")
+    void testSpanningItem() {
+        hash.insert(5, 0, 0, 300, 300);
+        Set<Integer> found = query(0, 0, 800, 600);
+        assertEquals(Set.of(5), found);
+    }
+
+    @Test
+    @DisplayName("Test off-grid boxes are clamped to border cells")
+    void testClamping() {
+        hash.insert(2, -50, -50, -10, -10);
+        hash.insert(3, 900, 700, 950, 750);
+
+        assertTrue(query(0, 0, 10, 10).contains(2));
+        assertTrue(query(790, 590, 800, 600).contains(3));
+    }
+
+    @Test
+    @DisplayName("Test clear empties the grid")
+    void testClear() {
+        hash.insert(0, 10, 10, 30, 30);
+        hash.clear();
+        assertEquals(0, hash.query(0, 0, 800, 600));
+    }
+}
@@ -0,0 +1,65 @@
+package se.asteroid.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.asteroid.model.PlayerInput;
+import se.asteroid.model.World;
+import se.asteroid.util.LogLinearHistogram;
+import se.asteroid.util.TickProfiler;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TickProfilerTest {
+
+    @Test
+    @DisplayName("Test histogram percentiles stay within bucket precision")
+    void testPercentiles() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        for (long v = 1; v <= 10_000; v++) {
+            histogram.record(v * 1000);
+        }
+
+        LogLinearHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(10_000, snapshot.count());
+        assertEquals(10_000_000, snapshot.max());
+        assertEquals(5_000_000, snapshot.p50(), 5_000_000 / 16.0);
+        assertEquals(9_900_000, snapshot.p99(), 9_900_000 / 16.0);
+        assertEquals(9_990_000, snapshot.p999(), 9_990_000 / 16.0);
+        assertTrue(snapshot.p50() >= 5_000_000, "Percentiles report the bucket upper bound");
+    }
+
+    @Test
+    @DisplayName("Test small and empty histograms")
+    void testEdgeCases() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        assertEquals(0, histogram.getPercentile(99));
+
+        histogram.record(7);
+        histogram.record(-3);
+        assertEquals(7, histogram.getPercentile(100));
+        assertEquals(0, histogram.getPercentile(50));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+    }
+
+    @Test
+    @DisplayName("Test world records every tick phase")
+    void testWorldPhases() {
+        World world = new World();
+        world.start();
+        PlayerInput input = new PlayerInput();
+        for (int i = 0; i < 20; i++) {
+            world.step(input);
+        }
+
+        TickProfiler profiler = world.getProfiler();
+        assertEquals(20, profiler.snapshot(TickProfiler.Phase.TICK).count());
+        assertEquals(20, profiler.snapshot(TickProfiler.Phase.COLLISIONS).count());
+        assertTrue(profiler.report().contains("UPDATE_OBJECTS"));
+
+        profiler.setEnabled(false);
+        world.step(input);
+        assertEquals(20, profiler.snapshot(TickProfiler.Phase.TICK).count(), "Disabled profiler records nothing");
+    }
+}
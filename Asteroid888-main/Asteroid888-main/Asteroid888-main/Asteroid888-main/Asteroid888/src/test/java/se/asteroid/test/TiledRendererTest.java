@@ -0,0 +1,114 @@
+package se.asteroid.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.asteroid.model.FrameSnapshot;
+import se.asteroid.model.PlayerInput;
+import se.asteroid.model.World;
+import se.asteroid.util.IntRaster;
+import se.asteroid.view.FrameRenderer;
+import se.asteroid.view.TiledRenderer;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TiledRendererTest {
+
+    private static FrameSnapshot playing() {
+        World world = new World(5L);
+        world.start();
+        PlayerInput input = new PlayerInput();
+        for (int i = 0; i < 30; i++) {
+            input.addShot();
+            world.step(input);
+            input.clearPresses();
+        }
+        return world.snapshot();
+    }
+
+    private static BufferedImage reference(FrameSnapshot snapshot, boolean menu) {
+        BufferedImage image = new BufferedImage(World.WIDTH, World.HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        new FrameRenderer().draw(g, snapshot, menu, 1.0, World.WIDTH, World.HEIGHT);
+        g.dispose();
+        return image;
+    }
+
+    // Fraction of pixels where some channel differs by more than a rounding step
+    private static double mismatch(BufferedImage expected, BufferedImage actual) {
+        int different = 0;
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                int a = expected.getRGB(x, y);
+                int b = actual.getRGB(x, y);
+                for (int shift = 0; shift < 24; shift += 8) {
+                    if (Math.abs(((a >> shift) & 0xFF) - ((b >> shift) & 0xFF)) > 2) {
+                        different++;
+                        break;
+                    }
+                }
+            }
+        }
+        return different / (double) (expected.getWidth() * expected.getHeight());
+    }
+
+    @Test
+    @DisplayName("Test banded frame matches the single threaded renderer")
+    void testMatchesFrameRenderer() {
+        FrameSnapshot snapshot = playing();
+        TiledRenderer tiled = new TiledRenderer(4);
+        try {
+            BufferedImage frame = tiled.render(snapshot, false, 1.0, World.WIDTH, World.HEIGHT);
+            assertTrue(mismatch(reference(snapshot, false), frame) < 0.001,
+                    "Tiled frame should match the Graphics2D frame up to rounding");
+
+            frame = tiled.render(snapshot, true, 1.0, World.WIDTH, World.HEIGHT);
+            assertTrue(mismatch(reference(snapshot, true), frame) < 0.001, "Menu text spans band edges");
+        } finally {
+            tiled.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Test frame follows the component size")
+    void testResize() {
+        TiledRenderer tiled = new TiledRenderer(8);
+        try {
+            BufferedImage small = tiled.render(playing(), false, 1.0, 400, 5);
+            assertEquals(400, small.getWidth());
+            assertEquals(5, small.getHeight(), "More bands than rows should still draw");
+        } finally {
+            tiled.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Test bullets stamped band by band match one full raster stamp")
+    void testBulletStampAcrossBands() {
+        FrameSnapshot snapshot = playing();
+        BufferedImage whole = new BufferedImage(World.WIDTH, World.HEIGHT, BufferedImage.TYPE_INT_RGB);
+        BufferedImage banded = new BufferedImage(World.WIDTH, World.HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = whole.createGraphics();
+        snapshot.drawSprites(g, IntRaster.of(whole), 1.0);
+        g.dispose();
+
+        // Bands split through the bullets fired from the ship
+        IntRaster full = IntRaster.of(banded);
+        int split = (int) snapshot.getPlayerY() - 40;
+        g = banded.createGraphics();
+        // Sprites still drawn through Graphics2D are clipped the same way
+        g.setClip(0, 0, World.WIDTH, split);
+        snapshot.drawSprites(g, full.band(0, split), 1.0);
+        g.setClip(0, split, World.WIDTH, World.HEIGHT - split);
+        snapshot.drawSprites(g, full.band(split, World.HEIGHT), 1.0);
+        g.dispose();
+
+        int[] expected = whole.getRGB(0, 0, World.WIDTH, World.HEIGHT, null, 0, World.WIDTH);
+        int[] actual = banded.getRGB(0, 0, World.WIDTH, World.HEIGHT, null, 0, World.WIDTH);
+        assertTrue(Arrays.stream(expected).anyMatch(p -> (p & 0xFFFFFF) != 0), "Something should be drawn");
+        assertArrayEquals(expected, actual, "Each band should stamp exactly its own rows");
+    }
+}
@@ -0,0 +1,111 @@
+package se.asteroid.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.asteroid.model.PlayerInput;
+import se.asteroid.model.SnapshotRing;
+import se.asteroid.model.World;
+import se.asteroid.util.SplitMix64;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorldStateTest {
+
+    private static void step(World world, int tick) {
+        PlayerInput input = new PlayerInput();
+        input.setUp(tick % 90 < 30);
+        input.setLeft(tick % 70 < 20);
+        if (tick % 6 == 0) input.addShot();
+        if (tick % 150 == 0) input.addMissileBurst();
+        if (tick % 40 == 0) input.addRotateRight();
+        world.step(input);
+    }
+
+    private static byte[] save(World world) {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+        world.save(buffer);
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    @Test
+    @DisplayName("Test the state generator matches SplittableRandom")
+    void testSplitMixMatchesSplittableRandom() {
+        SplittableRandom expected = new SplittableRandom(42);
+        SplitMix64 actual = new SplitMix64(42);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(expected.nextDouble(), actual.nextDouble());
+            assertEquals(expected.nextInt(), actual.nextInt());
+            assertEquals(expected.nextInt(17), actual.nextInt(17));
+            assertEquals(expected.nextBoolean(), actual.nextBoolean());
+            assertEquals(expected.nextLong(), actual.nextLong());
+        }
+    }
+
+    @Test
+    @DisplayName("Test a restored world plays on exactly like the original")
+    void testRestoreResimulates() {
+        World world = new World(11L);
+        world.start();
+        for (int t = 0; t < 400; t++) step(world, t);
+        ByteBuffer saved = ByteBuffer.allocate(1 << 20);
+        world.save(saved);
+        saved.flip();
+
+        for (int t = 400; t < 700; t++) step(world, t);
+        byte[] expected = save(world);
+
+        world.restore(saved);
+        assertEquals(400, world.getTick());
+        for (int t = 400; t < 700; t++) step(world, t);
+        assertArrayEquals(expected, save(world), "Resimulated ticks should end in the same state");
+    }
+
+    @Test
+    @DisplayName("Test a state restores into a world with different entities")
+    void testRestoreIntoOtherWorld() {
+        World world = new World(12L);
+        world.start();
+        for (int t = 0; t < 500; t++) step(world, t);
+        byte[] state = save(world);
+
+        World other = new World(99L);
+        other.restore(ByteBuffer.wrap(state));
+        assertArrayEquals(state, save(other));
+        for (int t = 500; t < 800; t++) {
+            step(world, t);
+            step(other, t);
+        }
+        assertArrayEquals(save(world), save(other), "Both worlds should keep in step");
+
+        assertThrows(IllegalArgumentException.class, () -> other.restore(ByteBuffer.allocate(64)));
+    }
+
+    @Test
+    @DisplayName("Test the ring rewinds and drops the ticks after it")
+    void testRing() {
+        World world = new World(13L);
+        world.start();
+        SnapshotRing ring = SnapshotRing.forSeconds(1, 60);
+        for (int t = 0; t < 200; t++) {
+            step(world, t);
+            ring.record(world);
+        }
+        assertEquals(60, ring.size(), "Only the last second is kept");
+        assertEquals(141, ring.getOldestTick());
+        assertEquals(200, ring.getNewestTick());
+        assertFalse(ring.rewind(world, 60));
+
+        assertTrue(ring.rewind(world, 30));
+        assertEquals(170, world.getTick());
+        assertEquals(170, ring.getNewestTick());
+        assertEquals(30, ring.size());
+
+        assertTrue(ring.restore(world, 150));
+        assertEquals(150, world.getTick());
+        assertFalse(ring.restore(world, 160), "Ticks after a rewind are gone");
+    }
+}
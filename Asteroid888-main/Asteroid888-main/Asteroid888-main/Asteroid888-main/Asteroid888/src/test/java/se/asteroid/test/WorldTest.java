@@ -0,0 +1,178 @@
+package se.asteroid.test;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.asteroid.model.Asteroid;
+import se.asteroid.model.Pilot;
+import se.asteroid.model.PlayerInput;
+import se.asteroid.model.World;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorldTest {
+    private World world;
+    private PlayerInput input;
+
+    @BeforeEach
+    void setUp() {
+        world = new World();
+        input = new PlayerInput();
+    }
+
+    @Test
+    @DisplayName("Test world does nothing before start")
+    void testNotStarted() {
+        world.step(input);
+        assertFalse(world.isGameStarted(), "World should wait for start()");
+        assertEquals(0, world.getTick(), "No tick should run before start()");
+        assertNull(world.getPlayer(), "No player before start()");
+    }
+
+    @Test
+    @DisplayName("Test world spawns initial wave on start")
+    void testStart() {
+        world.start();
+        assertTrue(world.isGameStarted());
+        assertNotNull(world.getPlayer());
+        assertEquals(8, world.getAsteroids().size(), "Should spawn 3 large and 5 small asteroids");
+        assertEquals(4, world.getRegularEnemies().size());
+        assertEquals(3, world.getSecondTierEnemies().size());
+        assertEquals(3, world.getLives());
+        assertEquals(0, world.getScore());
+    }
+
+    @Test
+    @DisplayName("Test held keys move the player")
+    void testMovementInput() {
+        world.start();
+        double startX = world.getPlayer().getX();
+
+        input.setRight(true);
+        for (int i = 0; i < 10; i++) {
+            world.step(input);
+        }
+
+        assertTrue(world.getPlayer().getX() > startX, "Player should move right while D is held");
+        assertEquals(10, world.getTick());
+    }
+
+    @Test
+    @DisplayName("Test shot presses fire once per press")
+    void testShotPresses() {
+        world.start();
+
+        input.addShot();
+        input.addShot();
+        world.step(input);
+        input.clearPresses();
+
+        int bullets = world.getPlayer().getBullets().size();
+        assertTrue(bullets <= 2, "Each press should fire at most one bullet");
+
+        world.step(input);
+        assertTrue(world.getPlayer().getBullets().size() <= bullets, "No new shots without presses");
+    }
+
+    @Test
+    @DisplayName("Test world runs headless at high tick rate")
+    void testHeadlessRun() {
+        world.start();
+        for (int i = 0; i < 2000 && !world.isGameOver(); i++) {
+            world.step(input);
+        }
+        assertTrue(world.getTick() > 0);
+    }
+
+    @Test
+    @DisplayName("Test brute force and spatial hash broadphase agree")
+    void testCollisionModesAgree() {
+        for (World.CollisionMode mode : World.CollisionMode.values()) {
+            World world = new World();
+            world.setCollisionMode(mode);
+            world.start();
+            world.getAsteroids().clear();
+            world.getRegularEnemies().clear();
+            world.getSecondTierEnemies().clear();
+
+            Asteroid asteroid = new Asteroid(400, 250, false);
+            world.getAsteroids().add(asteroid);
+
+            PlayerInput shot = new PlayerInput();
+            shot.addShot();
+            world.step(shot);
+
+            assertEquals(40, asteroid.getHealth(), "Bullet should hit the asteroid in " + mode);
+            assertTrue(world.getPlayer().getBullets().isEmpty(), "Bullet should be consumed in " + mode);
+        }
+    }
+
+    @Test
+    @DisplayName("Test the same seed replays the same game")
+    void testSeedReplay() {
+        World first = new World(1234L);
+        World second = new World(1234L);
+        first.start();
+        second.start();
+
+        PlayerInput fire = new PlayerInput();
+        for (int i = 0; i < 600; i++) {
+            fire.clearPresses();
+            if (i % 10 == 0) {
+                fire.addShot();
+            }
+            fire.setRight(i % 120 < 60);
+            first.step(fire);
+            second.step(fire);
+        }
+
+        assertEquals(1234L, first.getSeed());
+        assertEquals(first.getScore(), second.getScore());
+        assertEquals(first.getLives(), second.getLives());
+        assertEquals(first.getAsteroids().size(), second.getAsteroids().size());
+        for (int i = 0; i < first.getAsteroids().size(); i++) {
+            assertEquals(first.getAsteroids().get(i).getX(), second.getAsteroids().get(i).getX());
+            assertEquals(first.getAsteroids().get(i).getY(), second.getAsteroids().get(i).getY());
+        }
+        assertEquals(first.getPlayer().getX(), second.getPlayer().getX());
+    }
+
+    @Test
+    @DisplayName("Test different seeds spawn different waves")
+    void testSeedsDiffer() {
+        World first = new World(1L);
+        World second = new World(2L);
+        first.start();
+        second.start();
+        assertNotEquals(first.getAsteroids().get(0).getX(), second.getAsteroids().get(0).getX());
+    }
+
+    @Test
+    @DisplayName("Test pilots share a world and fly on their own input")
+    void testPilots() {
+        world.start();
+        Pilot second = world.addPilot();
+        assertEquals(2, world.getPilots().size());
+        assertEquals(1, second.getSlot());
+        assertNotNull(second.getShip(), "A pilot joining a running game spawns straight away");
+        assertNotEquals(world.getPlayer().getX(), second.getShip().getX(), "Slots spawn apart");
+
+        double firstX = world.getPlayer().getX();
+        double secondX = second.getShip().getX();
+        world.getPilots().get(0).getInput().setRight(true);
+        second.getInput().setLeft(true);
+        for (int i = 0; i < 10; i++) {
+            world.step();
+        }
+        assertTrue(world.getPlayer().getX() > firstX, "First pilot holds right");
+        assertTrue(second.getShip().getX() < secondX, "Second pilot holds left");
+
+        world.removePilot(second);
+        assertEquals(1, world.getPilots().size());
+        assertEquals(1, world.addPilot().getSlot(), "A freed slot is reused");
+        assertThrows(IllegalStateException.class, () -> {
+            world.removePilot(world.getPilots().get(1));
+            world.removePilot(world.getPilots().get(0));
+        }, "The last pilot has to stay");
+    }
+}